@@ -0,0 +1,617 @@
+package webelement.customElementsDecorator.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Short summary:
+ * The processor looks at every class which is a custom webelement or contains FindBy annotated fields.
+ * If all fields which the page factory would decorate can be assigned from the package of the class, a binder
+ * "<ClassName>_CustomElementBinder" is generated next to it. The binder creates the custom webelements with a plain
+ * constructor call, so neither reflection nor cglib is needed when the page object is initialized.
+ *
+ * Classes which can not be bound (private fields, FindBys/FindAll, default WebElement fields, ...) get a note
+ * and are still initialized at runtime by the CustomElementFieldDecorator.
+ *
+ * For every concrete custom webelement a subclass "<ClassName>_CustomElementProxy" is generated as well. It
+ * overrides all methods and routes them through the CustomElementInvocations, just like the cglib enhanced classes
+ * of the CustomElementFieldDecorator do. The binders create these proxies instead of the custom webelements.
+ * */
+
+/**
+ * Generates a CustomElementBinder for page objects and custom webelements at compile time.
+ **/
+public class CustomElementBinderProcessor extends AbstractProcessor {
+
+    private static final String CUSTOM_WEB_ELEMENT = "webelement.customElements.superElements.CustomWebElement";
+    private static final String BINDER_INTERFACE = "webelement.customElementsDecorator.CustomElementBinder";
+    private static final String BINDERS = "webelement.customElementsDecorator.CustomElementBinders";
+    private static final String BINDER_SUFFIX = "_CustomElementBinder";
+    private static final String PROXY_INTERFACE = "webelement.customElementsDecorator.CustomElementProxy";
+    private static final String INVOCATIONS = "webelement.customElementsDecorator.CustomElementInvocations";
+    private static final String PROXY_SUFFIX = "_CustomElementProxy";
+    private static final String FRAMES = "webelement.customElementsDecorator.CustomElementFrames";
+    private static final String FRAME = "webelement.customElementsDecorator.Frame";
+    private static final String WEB_ELEMENT = "org.openqa.selenium.WebElement";
+    private static final String WEB_DRIVER = "org.openqa.selenium.WebDriver";
+    private static final String BY = "org.openqa.selenium.By";
+    private static final String FIND_BY = "org.openqa.selenium.support.FindBy";
+    private static final String FIND_BYS = "org.openqa.selenium.support.FindBys";
+    private static final String FIND_ALL = "org.openqa.selenium.support.FindAll";
+    private static final String ACTUAL_WEB_ELEMENT_REFERENCE = "__actual_web_element_reference";
+
+    /**
+     * The FindBy attributes in the order in which the WebElementTransformer evaluates them, followed by the
+     * matching By factory method.
+     **/
+    private static final String[][] FIND_BY_ATTRIBUTES = {
+            {"id", "id"}, {"name", "name"}, {"xpath", "xpath"}, {"css", "cssSelector"}, {"className", "className"},
+            {"linkText", "linkText"}, {"partialLinkText", "partialLinkText"}, {"tagName", "tagName"}
+    };
+
+    /**
+     * The binders which were already generated in an earlier round.
+     **/
+    private final Set<String> generatedBinders = new HashSet<>();
+
+    /**
+     * The proxies which were already generated in this or an earlier round.
+     **/
+    private final Set<String> generatedProxies = new HashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // Custom webelements without any annotations need a binder too, so all classes are inspected. Since no
+        // annotation is claimed, -Xlint:processing warns about them, the build disables that lint category
+        return Collections.singleton("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement customWebElement = processingEnv.getElementUtils().getTypeElement(CUSTOM_WEB_ELEMENT);
+        if (customWebElement == null) {
+            return false;
+        }
+
+        List<TypeElement> candidates = new ArrayList<>();
+        for (TypeElement type : collectTypes(roundEnv.getRootElements())) {
+            if (isCandidate(type, customWebElement)) {
+                candidates.add(type);
+            }
+        }
+
+        // The proxies are generated first, since the binders create them
+        for (TypeElement type : candidates) {
+            if (isCustomWebElement(type.asType(), customWebElement)) {
+                generateProxy(type);
+            }
+        }
+        for (TypeElement type : candidates) {
+            generateBinder(type, customWebElement);
+        }
+        // Never claim the annotations, other processors might want them too
+        return false;
+    }
+
+    /**
+     * Collects all classes including nested classes.
+     **/
+    private List<TypeElement> collectTypes(Iterable<? extends Element> elements) {
+        List<TypeElement> types = new ArrayList<>();
+
+        for (TypeElement type : ElementFilter.typesIn(elements)) {
+            if (type.getKind() == ElementKind.CLASS) {
+                types.add(type);
+            }
+            types.addAll(collectTypes(type.getEnclosedElements()));
+        }
+        return types;
+    }
+
+    /**
+     * A class is a candidate if it is a concrete custom webelement or declares FindBy annotated fields. The generated
+     * proxies are no candidates, their fields are bound by the binder of the class they extend.
+     **/
+    private boolean isCandidate(TypeElement type, TypeElement customWebElement) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || type.equals(customWebElement) || isProxy(type)) {
+            return false;
+        }
+        if (isCustomWebElement(type.asType(), customWebElement)) {
+            return true;
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (getAnnotation(field, FIND_BY) != null || getAnnotation(field, FIND_BYS) != null
+                    || getAnnotation(field, FIND_ALL) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the class is a generated proxy.
+     **/
+    private boolean isProxy(TypeElement type) {
+        if (type.getSimpleName().toString().endsWith(PROXY_SUFFIX)) {
+            return true;
+        }
+        TypeElement proxyInterface = processingEnv.getElementUtils().getTypeElement(PROXY_INTERFACE);
+        return proxyInterface != null && processingEnv.getTypeUtils().isAssignable(type.asType(),
+                processingEnv.getTypeUtils().erasure(proxyInterface.asType()));
+    }
+
+    /**
+     * Generates the binder for a class or emits a note why the class is left to the CustomElementFieldDecorator.
+     **/
+    private void generateBinder(TypeElement type, TypeElement customWebElement) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binderName = getGeneratedName(type, BINDER_SUFFIX);
+        String qualifiedBinderName = packageName.isEmpty() ? binderName : packageName + "." + binderName;
+
+        if (!generatedBinders.add(qualifiedBinderName)) {
+            return;
+        }
+
+        List<String> statements = new ArrayList<>();
+        String reason = collectBindings(type, customWebElement, packageName, statements);
+        if (reason != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "No custom element binder generated, the CustomElementFieldDecorator is used instead: " + reason, type);
+            return;
+        }
+
+        String targetName = type.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Binds the custom webelements of {@link ").append(targetName).append("}.\n")
+                .append(" * Generated by ").append(getClass().getName()).append(". Do not edit.\n")
+                .append(" **/\n")
+                .append("public final class ").append(binderName)
+                .append(" implements ").append(BINDER_INTERFACE).append("<").append(targetName).append("> {\n\n")
+                .append("    @Override\n")
+                .append("    public void bind(").append(targetName).append(" target, ").append(WEB_DRIVER).append(" webDriver) {\n");
+        for (String statement : statements) {
+            source.append("        ").append(statement).append("\n");
+        }
+        source.append("    }\n")
+                .append("}\n");
+
+        writeSource(qualifiedBinderName, source, type);
+    }
+
+    /**
+     * Generates the proxy for a custom webelement, if it can be subclassed.
+     **/
+    private void generateProxy(TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String proxyName = getGeneratedName(type, PROXY_SUFFIX);
+        String qualifiedProxyName = packageName.isEmpty() ? proxyName : packageName + "." + proxyName;
+
+        if (generatedProxies.contains(qualifiedProxyName) || type.getModifiers().contains(Modifier.FINAL)
+                || !isAccessible(type, packageName) || !type.getTypeParameters().isEmpty()) {
+            return;
+        }
+
+        String targetName = type.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Routes the method calls of {@link ").append(targetName).append("} through the CustomElementInvocations.\n")
+                .append(" * Generated by ").append(getClass().getName()).append(". Do not edit.\n")
+                .append(" **/\n")
+                .append("@SuppressWarnings(\"unchecked\")\n")
+                .append("public final class ").append(proxyName).append(" extends ").append(targetName)
+                .append(" implements ").append(PROXY_INTERFACE).append(" {\n");
+
+        boolean hasConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                hasConstructor = true;
+                source.append("\n    public ").append(proxyName).append("(").append(getParameters(constructor, (ExecutableType) constructor.asType())).append(")")
+                        .append(getThrows((ExecutableType) constructor.asType())).append(" {\n")
+                        .append("        super(").append(getArguments(constructor)).append(");\n")
+                        .append("    }\n");
+            }
+        }
+        if (!hasConstructor) {
+            return;
+        }
+
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (isProxyable(method, packageName)) {
+                appendProxyMethod(source, method, (ExecutableType) processingEnv.getTypeUtils().asMemberOf((DeclaredType) type.asType(), method));
+            }
+        }
+        source.append("}\n");
+
+        generatedProxies.add(qualifiedProxyName);
+        writeSource(qualifiedProxyName, source, type);
+    }
+
+    /**
+     * A method is overridden by the proxy, if cglib would intercept it as well. Methods of Object and default methods
+     * of interfaces are left alone.
+     **/
+    private boolean isProxyable(ExecutableElement method, String packageName) {
+        Set<Modifier> modifiers = method.getModifiers();
+        TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+
+        if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.PRIVATE)
+                || modifiers.contains(Modifier.ABSTRACT) || declaringType.getKind() != ElementKind.CLASS
+                || declaringType.getQualifiedName().contentEquals("java.lang.Object")) {
+            return false;
+        }
+        boolean packagePrivate = !modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.PROTECTED);
+        return !packagePrivate || processingEnv.getElementUtils().getPackageOf(declaringType).getQualifiedName().contentEquals(packageName);
+    }
+
+    /**
+     * Appends a method which calls the original method via the CustomElementInvocations.
+     **/
+    private void appendProxyMethod(StringBuilder source, ExecutableElement method, ExecutableType methodType) {
+        Set<Modifier> modifiers = method.getModifiers();
+        String visibility = modifiers.contains(Modifier.PUBLIC) ? "public " : modifiers.contains(Modifier.PROTECTED) ? "protected " : "";
+        String name = method.getSimpleName().toString();
+        TypeMirror returnType = methodType.getReturnType();
+        boolean isVoid = returnType.getKind() == TypeKind.VOID;
+
+        source.append("\n    @Override\n")
+                .append("    ").append(visibility).append(getTypeParameters(method)).append(returnType).append(" ").append(name)
+                .append("(").append(getParameters(method, methodType)).append(")").append(getThrows(methodType)).append(" {\n");
+        if (isVoid) {
+            source.append("        ").append(INVOCATIONS).append(".invoke(this, \"").append(name).append("\", () -> {\n")
+                    .append("            super.").append(name).append("(").append(getArguments(method)).append(");\n")
+                    .append("            return null;\n")
+                    .append("        });\n");
+        } else {
+            // Object needs no cast, it would only be reported as redundant
+            String cast = returnType.toString().equals("java.lang.Object") ? "" : "(" + returnType + ") ";
+            source.append("        return ").append(cast).append(INVOCATIONS).append(".invoke(this, \"").append(name)
+                    .append("\", () -> super.").append(name).append("(").append(getArguments(method)).append("));\n");
+        }
+        source.append("    }\n");
+    }
+
+    private String getTypeParameters(ExecutableElement method) {
+        if (method.getTypeParameters().isEmpty()) {
+            return "";
+        }
+        List<String> typeParameters = new ArrayList<>();
+        for (TypeParameterElement typeParameter : method.getTypeParameters()) {
+            List<String> bounds = new ArrayList<>();
+            for (TypeMirror bound : typeParameter.getBounds()) {
+                if (!bound.toString().equals("java.lang.Object")) {
+                    bounds.add(bound.toString());
+                }
+            }
+            typeParameters.add(typeParameter.getSimpleName() + (bounds.isEmpty() ? "" : " extends " + String.join(" & ", bounds)));
+        }
+        return "<" + String.join(", ", typeParameters) + "> ";
+    }
+
+    private String getParameters(ExecutableElement executable, ExecutableType executableType) {
+        List<String> parameters = new ArrayList<>();
+        List<? extends TypeMirror> parameterTypes = executableType.getParameterTypes();
+
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            String parameterType = parameterTypes.get(i).toString();
+            if (executable.isVarArgs() && i == parameterTypes.size() - 1) {
+                parameterType = parameterType.substring(0, parameterType.length() - 2) + "...";
+            }
+            parameters.add(parameterType + " p" + i);
+        }
+        return String.join(", ", parameters);
+    }
+
+    private String getArguments(ExecutableElement executable) {
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < executable.getParameters().size(); i++) {
+            arguments.add("p" + i);
+        }
+        return String.join(", ", arguments);
+    }
+
+    private String getThrows(ExecutableType executableType) {
+        if (executableType.getThrownTypes().isEmpty()) {
+            return "";
+        }
+        List<String> thrownTypes = new ArrayList<>();
+        for (TypeMirror thrownType : executableType.getThrownTypes()) {
+            thrownTypes.add(thrownType.toString());
+        }
+        return " throws " + String.join(", ", thrownTypes);
+    }
+
+    /**
+     * Returns the name of a generated class: the binary name of the class without the package plus the suffix.
+     **/
+    private String getGeneratedName(TypeElement type, String suffix) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        return (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + suffix;
+    }
+
+    /**
+     * Returns the name which the binder should use to create a custom webelement: its generated proxy if there is
+     * one, else the custom webelement itself.
+     **/
+    private String getInstantiatedName(TypeElement elementType) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(elementType).getQualifiedName().toString();
+        String proxyName = getGeneratedName(elementType, PROXY_SUFFIX);
+        String qualifiedProxyName = packageName.isEmpty() ? proxyName : packageName + "." + proxyName;
+
+        if (generatedProxies.contains(qualifiedProxyName) || processingEnv.getElementUtils().getTypeElement(qualifiedProxyName) != null) {
+            return qualifiedProxyName;
+        }
+        return elementType.getQualifiedName().toString();
+    }
+
+    private void writeSource(String qualifiedName, StringBuilder source, TypeElement originatingType) {
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, originatingType);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "The generated class " + qualifiedName + " could not be written: " + e.getMessage(), originatingType);
+        }
+    }
+
+    /**
+     * Creates the assignment statements for all fields of the class hierarchy.
+     *
+     * @return Returns null if all fields can be bound, else the reason why not.
+     **/
+    private String collectBindings(TypeElement type, TypeElement customWebElement, String packageName, List<String> statements) {
+        if (!isAccessible(type, packageName) || !type.getTypeParameters().isEmpty()) {
+            return "the class must not be private or generic";
+        }
+
+        for (TypeElement current = type; current != null && !current.equals(customWebElement); current = superclassOf(current)) {
+            if (current.getQualifiedName().toString().startsWith("java.")) {
+                break;
+            }
+            boolean samePackage = processingEnv.getElementUtils().getPackageOf(current).getQualifiedName().contentEquals(packageName);
+
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                String reason = collectBinding(field, samePackage, customWebElement, packageName, statements);
+                if (reason != null) {
+                    return reason;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the assignment statement for one field.
+     *
+     * @return Returns null if the field can be bound or does not need to be bound, else the reason why not.
+     **/
+    private String collectBinding(VariableElement field, boolean samePackage, TypeElement customWebElement, String packageName,
+                                  List<String> statements) {
+        String fieldName = field.getSimpleName().toString();
+        AnnotationMirror findBy = getAnnotation(field, FIND_BY);
+        TypeMirror fieldType = field.asType();
+
+        if (getAnnotation(field, FIND_BYS) != null || getAnnotation(field, FIND_ALL) != null) {
+            return "the field " + fieldName + " uses FindBys or FindAll";
+        }
+        if (findBy == null) {
+            // The page factory decorates WebElements without an annotation by their id or name
+            if (isType(fieldType, WEB_ELEMENT) && !fieldName.equals(ACTUAL_WEB_ELEMENT_REFERENCE)) {
+                return "the WebElement field " + fieldName + " is decorated by the page factory";
+            }
+            return null;
+        }
+
+        boolean single = isCustomWebElement(fieldType, customWebElement);
+        TypeMirror itemType = single ? null : getListItemType(fieldType);
+        boolean list = itemType != null && isCustomWebElement(itemType, customWebElement);
+
+        if (!single && !list) {
+            if (isType(fieldType, WEB_ELEMENT) || getListItemType(fieldType) != null) {
+                return "the field " + fieldName + " is not a custom webelement";
+            }
+            // Neither the page factory nor the CustomElementFieldDecorator assign this field
+            return null;
+        }
+
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)
+                || (!samePackage && !modifiers.contains(Modifier.PUBLIC))) {
+            return "the field " + fieldName + " is not accessible, make it package-private";
+        }
+
+        TypeElement elementType = (TypeElement) processingEnv.getTypeUtils().asElement(single ? fieldType : itemType);
+        if (!isAccessible(elementType, packageName) || elementType.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "the type of the field " + fieldName + " is abstract or not accessible";
+        }
+
+        String locator = toLocator(findBy);
+        if (locator == null) {
+            return "the FindBy annotation of the field " + fieldName + " uses how/using";
+        }
+
+        String elementName = getInstantiatedName(elementType);
+        String creation;
+        if (single) {
+            if (!hasConstructor(elementType, WEB_DRIVER, BY)) {
+                return "the type of the field " + fieldName + " has no public (WebDriver, By) constructor";
+            }
+            creation = "new " + elementName + "(webDriver, " + locator + ")";
+        } else {
+            if (!hasConstructor(elementType, WEB_DRIVER, BY, WEB_ELEMENT, "int")) {
+                return "the list item type of the field " + fieldName + " has no public (WebDriver, By, WebElement, int) constructor";
+            }
+            creation = BINDERS + ".createList(webDriver, " + locator + ", " + elementName + "::new)";
+        }
+
+        // Same as the CustomElementFieldDecorator: the frame of the field wins over the frame of the element class
+        AnnotationMirror frame = getAnnotation(field, FRAME);
+        if (frame == null) {
+            frame = getAnnotation(elementType, FRAME);
+        }
+        if (frame != null) {
+            creation = FRAMES + ".withFramePath(" + toFramePath(frame) + ", () -> " + creation + ")";
+        }
+        statements.add("target." + fieldName + " = " + creation + ";");
+        return null;
+    }
+
+    /**
+     * Transforms a Frame annotation to the source of its frame path array.
+     **/
+    private String toFramePath(AnnotationMirror frame) {
+        StringBuilder framePath = new StringBuilder("new String[]{");
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : frame.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                List<?> selectors = (List<?>) entry.getValue().getValue();
+                for (int i = 0; i < selectors.size(); i++) {
+                    framePath.append(i > 0 ? ", " : "").append(processingEnv.getElementUtils()
+                            .getConstantExpression(((AnnotationValue) selectors.get(i)).getValue()));
+                }
+            }
+        }
+        return framePath.append("}").toString();
+    }
+
+    /**
+     * Transforms a FindBy annotation to the source of the matching By locator.
+     *
+     * @return The source code or null if the annotation only uses how/using.
+     **/
+    private String toLocator(AnnotationMirror findBy) {
+        for (String[] attribute : FIND_BY_ATTRIBUTES) {
+            String value = getStringValue(findBy, attribute[0]);
+            if (value != null && !value.isEmpty()) {
+                // XPath expressions are optimized at runtime unless they are located within a list item
+                String factory = attribute[0].equals("xpath") ? BINDERS + ".xpath" : BY + "." + attribute[1];
+                return factory + "(" + processingEnv.getElementUtils().getConstantExpression(value) + ")";
+            }
+        }
+        return null;
+    }
+
+    private String getStringValue(AnnotationMirror annotation, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return null;
+    }
+
+    private AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private boolean isCustomWebElement(TypeMirror type, TypeElement customWebElement) {
+        return type.getKind() == TypeKind.DECLARED && processingEnv.getTypeUtils().isSubtype(
+                processingEnv.getTypeUtils().erasure(type), processingEnv.getTypeUtils().erasure(customWebElement.asType()));
+    }
+
+    private boolean isType(TypeMirror type, String typeName) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(typeName);
+    }
+
+    /**
+     * Returns the item type of a java.util.List field or null if the field is no such list.
+     **/
+    private TypeMirror getListItemType(TypeMirror type) {
+        if (!isType(type, "java.util.List")) {
+            return null;
+        }
+        List<? extends TypeMirror> typeArguments = ((DeclaredType) type).getTypeArguments();
+        if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return typeArguments.get(0);
+    }
+
+    private boolean hasConstructor(TypeElement type, String... parameterTypes) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC) || parameters.size() != parameterTypes.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameterTypes.length && matches; i++) {
+                TypeMirror parameterType = processingEnv.getTypeUtils().erasure(parameters.get(i).asType());
+                matches = parameterType.toString().equals(parameterTypes[i]);
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A class is accessible from the binder if it and all enclosing classes are public or package-private
+     * in the package of the binder. Inner (non static) classes can not be created by the binder.
+     **/
+    private boolean isAccessible(TypeElement type, String packageName) {
+        boolean samePackage = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().contentEquals(packageName);
+
+        for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || (!samePackage && !modifiers.contains(Modifier.PUBLIC))) {
+                return false;
+            }
+            if (((TypeElement) current).getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+}
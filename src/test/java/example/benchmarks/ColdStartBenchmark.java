@@ -0,0 +1,73 @@
+package example.benchmarks;
+
+import example.pages.BingPage;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.support.PageFactory;
+import webelement.customElementsDecorator.CustomElementBinders;
+import webelement.customElementsDecorator.CustomElementFieldDecorator;
+import webelement.driver.SimulatedCommandExecutor;
+
+/**
+ * Measures the initialization of the BingPage with the generated binders and with the CustomElementFieldDecorator
+ * against a simulated browser: the first initialization of the JVM and the average of the following ones. No browser
+ * is needed. The first initialization can only be measured once per JVM, so run it once per mode, e.g.
+ * "ColdStartBenchmark binder" and "ColdStartBenchmark decorator".
+ **/
+public class ColdStartBenchmark {
+
+    /**
+     * The number of initializations after the first one.
+     **/
+    private static final int RUNS = 10000;
+
+    /**
+     * Runs the benchmark and prints the time of the first initialization and the average of the following ones.
+     *
+     * @param args "binder" (default) or "decorator".
+     **/
+    public static void main(String[] args) {
+        boolean binder = args.length == 0 || "binder".equals(args[0]);
+        RemoteWebDriver webDriver = new SimulatedCommandExecutor()
+                .withElements(By.xpath("NotNeeded"), 1)
+                .withElements(By.id("b_results"), 1)
+                .createDriver();
+
+        try {
+            // Loads the driver classes, so only the initialization of the page is measured
+            webDriver.get("https://www.bing.com/");
+
+            long start = System.nanoTime();
+            initElements(webDriver, new BingPage(), binder);
+            long firstNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                initElements(webDriver, new BingPage(), binder);
+            }
+            long steadyNanos = (System.nanoTime() - start) / RUNS;
+
+            System.out.println(String.format("%s (binder generated: %s): first %.1f ms, then %.1f us per page",
+                    binder ? "CustomElementBinders" : "CustomElementFieldDecorator",
+                    CustomElementBinders.hasBinder(BingPage.class), firstNanos / 1e6, steadyNanos / 1e3));
+        } finally {
+            webDriver.quit();
+        }
+    }
+
+    /**
+     * Initializes a page object.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param page      The page object.
+     * @param binder    True to use the generated binder, false to use the CustomElementFieldDecorator.
+     **/
+    private static void initElements(WebDriver webDriver, BingPage page, boolean binder) {
+        if (binder) {
+            CustomElementBinders.initElements(webDriver, page);
+        } else {
+            PageFactory.initElements(new CustomElementFieldDecorator(webDriver, webDriver), page);
+        }
+    }
+}
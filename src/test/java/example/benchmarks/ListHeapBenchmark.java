@@ -0,0 +1,170 @@
+package example.benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.PageFactory;
+import webelement.customElements.concreteElements.WebButton;
+import webelement.customElements.concreteElements.WebLabel;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.customElementsDecorator.CustomElementFieldDecorator;
+import webelement.driver.SimulatedCommandExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compares the heap which decorated lists of custom webelements retain, against a simulated browser. A field declared
+ * as List is a CustomElementList, which creates its items on their first access, a field declared as ArrayList is
+ * filled with all items right away. No browser is needed.
+ **/
+public class ListHeapBenchmark {
+
+    /**
+     * The number of rows the simulated page has.
+     **/
+    private static final int ROWS = 5000;
+
+    /**
+     * The number of page objects which are kept at the same time.
+     **/
+    private static final int PAGES = 4;
+
+    /**
+     * A row of the result table with two nested custom webelements.
+     **/
+    public static class ResultRow extends CustomWebElement {
+
+        @FindBy(css = "a")
+        WebButton link;
+
+        @FindBy(css = "p")
+        WebLabel caption;
+
+        /**
+         * Constructor.
+         *
+         * @param webDriver The webDriver used to interact with the webbrowser.
+         * @param by        The locator used to identify the element(s) on the website.
+         **/
+        public ResultRow(WebDriver webDriver, By by) {
+            super(webDriver, by);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param webDriver  The webDriver used to interact with the webbrowser.
+         * @param by         The locator used to identify the element(s) on the website.
+         * @param webElement The webElement which forms part of List<WebElement>
+         * @param listIndex  The list index of webElement within the List<WebElement>
+         **/
+        public ResultRow(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
+            super(webDriver, by, webElement, listIndex);
+        }
+    }
+
+    /**
+     * A page whose rows are created on their first access.
+     **/
+    public static class LazyPage {
+
+        @FindBy(css = "tr")
+        List<ResultRow> rows;
+    }
+
+    /**
+     * A page whose rows are created when the page is decorated.
+     **/
+    public static class EagerPage {
+
+        @FindBy(css = "tr")
+        ArrayList<ResultRow> rows;
+    }
+
+    /**
+     * Runs both scenarios and prints the retained heap, the commands and the decoration time per row.
+     *
+     * @param args Not used.
+     **/
+    public static void main(String[] args) {
+        SimulatedCommandExecutor simulation = new SimulatedCommandExecutor()
+                .withElements(By.cssSelector("tr"), ROWS)
+                .withChildElements(By.cssSelector("a"), 1)
+                .withChildElements(By.cssSelector("p"), 1);
+        RemoteWebDriver webDriver = simulation.createDriver();
+
+        try {
+            webDriver.get("https://www.example.com/");
+            // Warms up cglib and the decorator, so the first scenario does not pay for it
+            measure(simulation, webDriver, "Warm-up", LazyPage::new, page -> page.rows);
+            measure(simulation, webDriver, "Warm-up", EagerPage::new, page -> page.rows);
+
+            System.out.println(String.format("%-30s %12s %16s %16s", "Scenario", "Heap [B/row]", "Commands [1/row]", "Time [us/row]"));
+            System.out.println(measure(simulation, webDriver, "List (CustomElementList)", LazyPage::new, page -> page.rows));
+            System.out.println(measure(simulation, webDriver, "ArrayList (eager)", EagerPage::new, page -> page.rows));
+        } finally {
+            webDriver.quit();
+        }
+    }
+
+    /**
+     * Decorates PAGES page objects, locates their rows and measures the heap they retain together.
+     *
+     * @param simulation The simulated browser.
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param scenario   The name of the scenario.
+     * @param newPage    Creates a page object.
+     * @param rows       Returns the decorated list of a page object.
+     * @return The formatted result of the scenario.
+     **/
+    private static <P> String measure(SimulatedCommandExecutor simulation, WebDriver webDriver, String scenario,
+                                      Supplier<P> newPage, Function<P, List<ResultRow>> rows) {
+        List<P> pages = new ArrayList<>(PAGES);
+        long usedBefore = usedHeap();
+
+        simulation.startScenario(scenario);
+        long start = System.nanoTime();
+        for (int i = 0; i < PAGES; i++) {
+            P page = newPage.get();
+            PageFactory.initElements(new CustomElementFieldDecorator(webDriver, webDriver), page);
+            // Locates the rows of the lazy list as well, so both lists keep a handle of each row
+            if (rows.apply(page).size() != ROWS) {
+                throw new IllegalStateException("The page has not " + ROWS + " rows");
+            }
+            pages.add(page);
+        }
+        long nanos = System.nanoTime() - start;
+        SimulatedCommandExecutor.Summary summary = simulation.endScenario();
+        long retained = usedHeap() - usedBefore;
+        double rowCount = (double) PAGES * ROWS;
+
+        // Keeps the pages reachable until the heap was measured
+        return pages.size() == PAGES ? String.format("%-30s %12.0f %16.2f %16.2f", scenario, retained / rowCount,
+                summary.getCommands() / rowCount, nanos / 1e3 / rowCount) : null;
+    }
+
+    /**
+     * Returns the used heap after several garbage collections.
+     *
+     * @return The used heap in bytes.
+     **/
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
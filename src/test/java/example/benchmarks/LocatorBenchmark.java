@@ -0,0 +1,102 @@
+package example.benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import webelement.driver.WebDriverFactory;
+import webelement.modules.XPathOptimizer;
+
+/**
+ * Compares the lookup time of XPath locators with the locators the XPathOptimizer rewrites them to, on a large local
+ * page. Run it with the main method, it needs a chromedriver (see the Test class).
+ **/
+public class LocatorBenchmark {
+
+    /**
+     * The number of rows of the generated page. Each row contains a few nested elements.
+     **/
+    private static final int ROWS = 20000;
+
+    /**
+     * The number of lookups per locator.
+     **/
+    private static final int LOOKUPS = 50;
+
+    /**
+     * The XPath locators which are compared with their rewritten locators.
+     **/
+    private static final String[] XPATHS = {
+            "//*[@id='row-19999']",
+            "//input[@name='field-19999']",
+            "//div[contains(@class,'selected')]",
+            "//div[contains(concat(' ', normalize-space(@class), ' '), ' selected ')]//input[@name='field-19000']",
+            "//ul/li[@data-index='19999']",
+    };
+
+    /**
+     * Creates the page. Every 1000th row is selected.
+     **/
+    private static final String CREATE_PAGE_SCRIPT = ""
+            + "var list = document.createElement('ul'), html = [];\n"
+            + "for (var i = 0; i < arguments[0]; i++) {\n"
+            + "  html.push('<li data-index=\"' + i + '\"><div id=\"row-' + i + '\" class=\"row' + (i % 1000 === 0 ? ' selected' : '') + '\">'\n"
+            + "    + '<span>Row ' + i + '</span><input type=\"checkbox\"><input name=\"field-' + i + '\"></div></li>');\n"
+            + "}\n"
+            + "list.innerHTML = html.join('');\n"
+            + "document.body.appendChild(list);\n";
+
+    /**
+     * Runs the benchmark and prints the average lookup time of each locator.
+     *
+     * @param args Not used.
+     **/
+    public static void main(String[] args) {
+        WebDriver webDriver = new WebDriverFactory(ChromeDriverService.createDefaultService())
+                .create(new ChromeOptions().setHeadless(true));
+
+        try {
+            webDriver.get("about:blank");
+            ((JavascriptExecutor) webDriver).executeScript(CREATE_PAGE_SCRIPT, ROWS);
+
+            System.out.println(String.format("%-100s %12s %14s %8s", "Locator", "XPath [ms]", "Rewritten [ms]", "Speedup"));
+            for (String xpath : XPATHS) {
+                By rewritten = XPathOptimizer.optimize(xpath);
+                int found = webDriver.findElements(By.xpath(xpath)).size();
+
+                if (webDriver.findElements(rewritten).size() != found) {
+                    throw new IllegalStateException("The rewritten locator " + rewritten + " does not find the same elements as " + xpath);
+                }
+
+                // Warm up both locators before measuring
+                measure(webDriver, By.xpath(xpath));
+                measure(webDriver, rewritten);
+
+                double xpathMillis = measure(webDriver, By.xpath(xpath));
+                double rewrittenMillis = measure(webDriver, rewritten);
+                System.out.println(String.format("%-100s %12.2f %14.2f %7.1fx", xpath + " -> " + rewritten, xpathMillis,
+                        rewrittenMillis, xpathMillis / rewrittenMillis));
+            }
+            System.out.println(XPathOptimizer.getReport());
+        } finally {
+            webDriver.quit();
+        }
+    }
+
+    /**
+     * Measures the average lookup time of a locator.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param locator   The locator.
+     * @return The average lookup time in milliseconds.
+     **/
+    private static double measure(WebDriver webDriver, By locator) {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            webDriver.findElements(locator);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / LOOKUPS;
+    }
+}
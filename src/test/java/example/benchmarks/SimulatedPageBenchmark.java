@@ -0,0 +1,70 @@
+package example.benchmarks;
+
+import example.pages.BingPage;
+import org.openqa.selenium.By;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.support.PageFactory;
+import webelement.customElementsDecorator.CustomElementBinders;
+import webelement.customElementsDecorator.CustomElementFieldDecorator;
+import webelement.driver.LatencyModel;
+import webelement.driver.SimulatedCommandExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the Bing example against a simulated browser and logs the number of commands and the simulated wall time of
+ * each scenario. The results are deterministic, so they can be compared between commits. No browser is needed.
+ **/
+public class SimulatedPageBenchmark {
+
+    /**
+     * The number of runs of each scenario.
+     **/
+    private static final int RUNS = 100;
+
+    /**
+     * Runs the scenarios, the simulation logs their summaries.
+     *
+     * @param args Not used.
+     **/
+    public static void main(String[] args) {
+        SimulatedCommandExecutor simulation = new SimulatedCommandExecutor()
+                .withDefaultLatency(LatencyModel.normal(Duration.ofMillis(4), Duration.ofMillis(1)))
+                .withLatency(DriverCommand.GET, LatencyModel.uniform(Duration.ofMillis(300), Duration.ofMillis(600)))
+                .withLatency(DriverCommand.CLICK_ELEMENT, LatencyModel.normal(Duration.ofMillis(30), Duration.ofMillis(10)))
+                .withElements(By.xpath("NotNeeded"), 1)
+                .withElements(By.id("sb_form_q"), 1)
+                .withElements(By.id("sb_form_go"), 1)
+                // The results are loaded after the page
+                .withElements(By.id("b_results"), 1, Duration.ofMillis(200), null)
+                .withChildElements(By.xpath(".//li//h2//a"), 10)
+                .withSeed(42);
+        RemoteWebDriver webDriver = simulation.createDriver();
+
+        webDriver.manage().timeouts().implicitlyWait(5, TimeUnit.SECONDS);
+
+        simulation.startScenario("CustomElementFieldDecorator");
+        for (int i = 0; i < RUNS; i++) {
+            webDriver.get("https://www.bing.com/");
+            BingPage bingPage = new BingPage();
+            PageFactory.initElements(new CustomElementFieldDecorator(webDriver, webDriver), bingPage);
+            bingPage.search("Test");
+            bingPage.openSearchResult(0);
+        }
+        simulation.endScenario();
+
+        simulation.startScenario("CustomElementBinders");
+        for (int i = 0; i < RUNS; i++) {
+            webDriver.get("https://www.bing.com/");
+            BingPage bingPage = new BingPage();
+            CustomElementBinders.initElements(webDriver, bingPage);
+            bingPage.search("Test");
+            bingPage.openSearchResult(0);
+        }
+        simulation.endScenario();
+
+        webDriver.quit();
+    }
+}
@@ -28,8 +28,8 @@ public class BingResultListModule extends CustomWebElement {
      * @param searchResultNumber The number of the search result, which should be opened. 0 is the first search result.
      **/
     public void openSearchResult(int searchResultNumber) {
-        WebElement listContainer = getWebDriver().findElement(getBy());
-        List<WebElement> resultLinks = listContainer.findElements(By.xpath(".//li//h2//a"));
+        // The list is located again on every call, so the links belong to the current search results
+        List<WebElement> resultLinks = findWebElement().findElements(By.xpath(".//li//h2//a"));
 
         resultLinks.get(searchResultNumber).click();
     }
@@ -16,13 +16,13 @@ public class BingSearchModule extends CustomWebElement {
      * The search field in which the search text can be entered.
      **/
     @FindBy(id = "sb_form_q")
-    private WebTextField searchField;
+    WebTextField searchField;
 
     /**
      * The button, which triggers the search process.
      **/
     @FindBy(id = "sb_form_go")
-    private WebButton searchButton;
+    WebButton searchButton;
 
     /**
      * Constructor.
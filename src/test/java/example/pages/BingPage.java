@@ -15,14 +15,14 @@ public class BingPage {
      * If the custom webelement does not use the given locator, you can simply insert what you want.
      **/
     @FindBy(xpath = "NotNeeded")
-    private BingSearchModule searchModule;
+    BingSearchModule searchModule;
 
     /**
      * Includes the bing result list module in this page.
      * The given locator can be used in the custom webelement.
      **/
     @FindBy(id = "b_results")
-    private BingResultListModule resultListModule;
+    BingResultListModule resultListModule;
 
     /**
      * Searches for a text.
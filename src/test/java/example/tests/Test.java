@@ -4,10 +4,14 @@ import example.pages.BingPage;
 //import io.github.bonigarcia.wdm.ChromeDriverManager;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.support.PageFactory;
-import webelement.customElementsDecorator.CustomElementFieldDecorator;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import webelement.customElementsDecorator.CustomElementBinders;
+import webelement.diagnostics.CommandHistory;
+import webelement.diagnostics.CommandHistoryRule;
+import webelement.driver.WebDriverFactory;
 
 import java.util.concurrent.TimeUnit;
 
@@ -21,6 +25,12 @@ public class Test {
      **/
     private WebDriver webDriver;
 
+    /**
+     * Attaches the last driver commands to the failure of a test.
+     **/
+    @Rule
+    public final CommandHistoryRule commandHistory = new CommandHistoryRule(() -> webDriver);
+
     /**
      * The set up method which creates the driver for each test and turns the implicit wait feature off.
      **/
@@ -29,8 +39,12 @@ public class Test {
         // Setup chrome driver via webdrivermanager for easy usage
         //ChromeDriverManager.getInstance().setup();
 
-        // Create it
-        webDriver = new ChromeDriver();
+        // Create it, the commands are sent via a pooled keep-alive connection and the last ones are kept for failures
+        // Use "new WebDriverFactory(new URL("http://localhost:4444/wd/hub"))" for a remote selenium server
+        // The factory creates a plain RemoteWebDriver, use "new ChromeDriver()" if the test needs Chrome specific APIs
+        webDriver = new WebDriverFactory(ChromeDriverService.createDefaultService())
+                .withCommandExecutorLayer(CommandHistory::new)
+                .create(new ChromeOptions());
 
         // Enable implicit wait
         webDriver.manage().timeouts().implicitlyWait(5, TimeUnit.SECONDS);
@@ -58,9 +72,9 @@ public class Test {
         // Open the Bing page
         webDriver.get("https://www.bing.com/");
 
-        // Uses the Selenium page factory in order to initialize the Bing page object
-        // The CustomElementFieldDecorator statement is needed for the usage of the custom elements
-        PageFactory.initElements(new CustomElementFieldDecorator(webDriver, webDriver), bingPage);
+        // Initializes the Bing page object via its generated binder
+        // Without a generated binder the Selenium page factory with the CustomElementFieldDecorator is used
+        CustomElementBinders.initElements(webDriver, bingPage);
         // Do the search and open result stuff
         bingPage.search("Test");
         bingPage.openSearchResult(0);
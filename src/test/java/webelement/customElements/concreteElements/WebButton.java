@@ -2,6 +2,7 @@ package webelement.customElements.concreteElements;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
 import webelement.customElements.superElements.CustomWebElement;
 
 /**
@@ -19,10 +20,22 @@ public class WebButton extends CustomWebElement {
         super(webDriver, by);
     }
 
+    /**
+     * Constructor.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param by         The locator used to identify the element(s) on the website.
+     * @param webElement The webElement which forms part of List<WebElement>
+     * @param listIndex  The list index of webElement within the List<WebElement>
+     **/
+    public WebButton(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
+        super(webDriver, by, webElement, listIndex);
+    }
+
      /**
      * Clicks on the button.
      **/
     public void click() {
-        getWebDriver().findElement(getBy()).click();
+        findWebElement().click();
     }
 }
@@ -2,6 +2,7 @@ package webelement.customElements.concreteElements;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
 import webelement.customElements.superElements.CustomWebElement;
 
 /**
@@ -19,13 +20,25 @@ public class WebCheckbox extends CustomWebElement {
         super(webDriver, by);
     }
 
+    /**
+     * Constructor.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param by         The locator used to identify the element(s) on the website.
+     * @param webElement The webElement which forms part of List<WebElement>
+     * @param listIndex  The list index of webElement within the List<WebElement>
+     **/
+    public WebCheckbox(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
+        super(webDriver, by, webElement, listIndex);
+    }
+
     /**
      * Returns true if the checkbox is checked, else false.
      *
      * @return Returns true if the checkbox is checked, else false.
      **/
     public boolean isChecked() {
-        return getWebDriver().findElement(getBy()).isSelected();
+        return findWebElement().isSelected();
     }
 
     /**
@@ -33,7 +46,7 @@ public class WebCheckbox extends CustomWebElement {
      **/
     public void check() {
         if (!isChecked()) {
-            getWebDriver().findElement(getBy()).click();
+            findWebElement().click();
         }
     }
 
@@ -43,7 +56,7 @@ public class WebCheckbox extends CustomWebElement {
     public void uncheck() {
 
         if (isChecked()) {
-            getWebDriver().findElement(getBy()).click();
+            findWebElement().click();
         }
     }
 }
@@ -0,0 +1,89 @@
+package webelement.customElements.concreteElements;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.driver.StreamingFileUploader;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A file input. Files for remote sessions are uploaded by the {@link StreamingFileUploader}, which streams them to the
+ * selenium server instead of loading them into memory, and several files are uploaded concurrently.
+ **/
+public class WebFileInput extends CustomWebElement {
+
+    /**
+     * Returns the names of the selected files. Argument: the file input.
+     **/
+    private static final String FILE_NAMES_SCRIPT = ""
+            + "return Array.prototype.map.call(arguments[0].files || [], function (file) { return file.name; });\n";
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param by        The locator used to identify the file input on the website.
+     **/
+    public WebFileInput(WebDriver webDriver, By by) {
+        super(webDriver, by);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param by         The locator used to identify the file inputs on the website.
+     * @param webElement The webElement which forms part of List<WebElement>
+     * @param listIndex  The list index of webElement within the List<WebElement>
+     **/
+    public WebFileInput(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
+        super(webDriver, by, webElement, listIndex);
+    }
+
+    /**
+     * Selects the files. Several files require a file input with the "multiple" attribute.
+     *
+     * @param files The files to select.
+     **/
+    public void upload(Path... files) {
+        upload(Arrays.asList(files));
+    }
+
+    /**
+     * Selects the files. Several files require a file input with the "multiple" attribute.
+     *
+     * @param files The files to select.
+     **/
+    public void upload(List<Path> files) {
+        List<String> paths = StreamingFileUploader.getDefault().upload(getWebDriver(), files);
+        findWebElement().sendKeys(String.join("\n", paths));
+    }
+
+    /**
+     * Removes the selected files.
+     **/
+    public void clear() {
+        findWebElement().clear();
+    }
+
+    /**
+     * Returns the names of the selected files.
+     *
+     * @return The names of the selected files.
+     **/
+    public List<String> getFileNames() {
+        List<?> names = (List<?>) ((JavascriptExecutor) getWebDriver()).executeScript(FILE_NAMES_SCRIPT, findWebElement());
+        List<String> fileNames = new ArrayList<>(names.size());
+
+        for (Object name : names) {
+            fileNames.add((String) name);
+        }
+        return fileNames;
+    }
+}
@@ -0,0 +1,176 @@
+package webelement.customElements.concreteElements;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.modules.ScriptRegistry;
+import webelement.modules.WebElementScripts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A form. All fields are filled or read in a single script execution instead of one or more commands per field.
+ **/
+public class WebForm extends CustomWebElement {
+
+    /**
+     * Fills the fields. Arguments: the form element and a list of [locator type, locator value, field value].
+     * Returns the locators which could not be found or whose elements cannot be filled.
+     **/
+    private static final ScriptRegistry.PinnedScript FILL_SCRIPT = ScriptRegistry.getDefault().pin("formFill",
+            WebElementScripts.FIND_FUNCTION + WebElementScripts.FIRE_FUNCTION
+            + "var form = arguments[0], missing = [];\n"
+            + "arguments[1].forEach(function (field) {\n"
+            + "  var elements = find(form, field), value = field[2], element = elements[0];\n"
+            + "  var type = element ? (element.type || '').toLowerCase() : '';\n"
+            + "  if (!element) {\n"
+            + "    missing.push(field[0] + ': ' + field[1]);\n"
+            + "  } else if (element instanceof HTMLSelectElement) {\n"
+            + "    var values = [].concat(value).map(String), found = false, changed = false;\n"
+            + "    Array.prototype.forEach.call(element.options, function (option) {\n"
+            + "      var matches = values.indexOf(option.value) >= 0 || values.indexOf(option.text.trim()) >= 0;\n"
+            + "      if (matches || element.multiple) {\n"
+            + "        changed = changed || option.selected !== matches;\n"
+            + "        option.selected = matches;\n"
+            + "      }\n"
+            + "      found = found || matches;\n"
+            + "    });\n"
+            + "    if (!found) { missing.push(field[0] + ': ' + field[1] + ' = ' + value); }\n"
+            + "    if (changed) { fire(element, ['input', 'change']); }\n"
+            + "  } else if (type === 'checkbox') {\n"
+            + "    if (element.checked !== (value === true || value === 'true')) { element.click(); }\n"
+            + "  } else if (type === 'radio') {\n"
+            + "    var radio = typeof value === 'boolean' ? (value ? element : null)\n"
+            + "        : elements.filter(function (option) { return option.value === String(value); })[0];\n"
+            + "    if (radio && !radio.checked) { radio.click(); }\n"
+            + "    if (!radio && typeof value !== 'boolean') { missing.push(field[0] + ': ' + field[1] + ' = ' + value); }\n"
+            + "  } else if (element instanceof HTMLInputElement || element instanceof HTMLTextAreaElement) {\n"
+            + "    var prototype = element instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;\n"
+            + "    Object.getOwnPropertyDescriptor(prototype, 'value').set.call(element, value === null ? '' : String(value));\n"
+            + "    fire(element, ['input', 'change']);\n"
+            + "  } else {\n"
+            + "    missing.push(field[0] + ': ' + field[1] + ' (unsupported ' + element.tagName.toLowerCase() + ')');\n"
+            + "  }\n"
+            + "});\n"
+            + "return missing;\n");
+
+    /**
+     * Reads all fields. Argument: the form element.
+     **/
+    private static final ScriptRegistry.PinnedScript READ_SCRIPT = ScriptRegistry.getDefault().pin("formRead", ""
+            + "var form = arguments[0], values = {}, checkboxes = {};\n"
+            + "var controls = Array.prototype.slice.call(form.elements || form.querySelectorAll('input, select, textarea'));\n"
+            + "var ignored = ['button', 'submit', 'reset', 'image', 'fieldset', 'output', 'object'];\n"
+            + "controls = controls.filter(function (element) {\n"
+            + "  return (element.name || element.id) && ignored.indexOf((element.type || element.tagName).toLowerCase()) < 0;\n"
+            + "});\n"
+            + "controls.forEach(function (element) {\n"
+            + "  var key = element.name || element.id;\n"
+            + "  if (element.type === 'checkbox') { checkboxes[key] = (checkboxes[key] || 0) + 1; }\n"
+            + "});\n"
+            + "controls.forEach(function (element) {\n"
+            + "  var key = element.name || element.id, type = element.type.toLowerCase();\n"
+            + "  if (type === 'radio') {\n"
+            + "    if (element.checked || !(key in values)) { values[key] = element.checked ? element.value : null; }\n"
+            + "  } else if (type === 'checkbox' && checkboxes[key] > 1) {\n"
+            + "    values[key] = values[key] || [];\n"
+            + "    if (element.checked) { values[key].push(element.value); }\n"
+            + "  } else if (type === 'checkbox') {\n"
+            + "    values[key] = element.checked;\n"
+            + "  } else if (type === 'select-multiple') {\n"
+            + "    values[key] = Array.prototype.filter.call(element.options, function (option) { return option.selected; })\n"
+            + "        .map(function (option) { return option.value; });\n"
+            + "  } else {\n"
+            + "    values[key] = element.value;\n"
+            + "  }\n"
+            + "});\n"
+            + "return values;\n");
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param by        The locator used to identify the form on the website.
+     **/
+    public WebForm(WebDriver webDriver, By by) {
+        super(webDriver, by);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param by         The locator used to identify the element(s) on the website.
+     * @param webElement The webElement which forms part of List<WebElement>
+     * @param listIndex  The list index of webElement within the List<WebElement>
+     **/
+    public WebForm(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
+        super(webDriver, by, webElement, listIndex);
+    }
+
+    /**
+     * Fills the fields of the form in one script execution and fires the input and change events for each field.
+     * <p>
+     * The value of a text field or text area is set as text. A checkbox is checked if the value is true. A radio
+     * button is selected if the value is true or, if the locator identifies the whole radio group, if its value
+     * matches. The options of a select are selected by value or visible text, a multi select accepts a List.
+     * Checkboxes and radio buttons are clicked, so their click handlers run as well. Other elements (e.g.
+     * contenteditable elements or custom elements) are not supported and are reported like missing fields.
+     *
+     * @param values The values of the fields, by the locator of the field within the form. Use a LinkedHashMap if
+     *               the fields must be filled in a specific order.
+     **/
+    public void fill(Map<By, ?> values) {
+        List<List<Object>> fields = new ArrayList<>();
+
+        for (Map.Entry<By, ?> value : values.entrySet()) {
+            List<Object> field = new ArrayList<Object>(transformer().transformByToScriptLocator(value.getKey()));
+            field.add(value.getValue());
+            fields.add(field);
+        }
+
+        List<?> missing = (List<?>) FILL_SCRIPT.execute(getWebDriver(), findWebElement(), fields);
+        if (missing != null && !missing.isEmpty()) {
+            throw new NoSuchElementException("The form " + getBy() + " could not fill the fields: " + missing);
+        }
+    }
+
+    /**
+     * Fills a single field of the form. See fill(Map) for the supported values.
+     *
+     * @param field The locator of the field within the form.
+     * @param value The value of the field.
+     **/
+    public void fill(By field, Object value) {
+        fill(Collections.singletonMap(field, value));
+    }
+
+    /**
+     * Reads all fields of the form in one script execution.
+     * <p>
+     * The key is the name (or id) of the field. Text fields and selects return their value, a multi select and a
+     * group of checkboxes with the same name return the List of selected values, a single checkbox returns whether
+     * it is checked and a radio group returns the value of the selected radio button or null. Buttons are ignored.
+     *
+     * @return The values of the fields.
+     **/
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getValues() {
+        return (Map<String, Object>) READ_SCRIPT.execute(getWebDriver(), findWebElement());
+    }
+
+    /**
+     * Returns the value of a field. Uses getValues(), so prefer that one if several fields are needed.
+     *
+     * @param name The name (or id) of the field.
+     * @return The value of the field or null if there is no such field.
+     **/
+    public Object getValue(String name) {
+        return getValues().get(name);
+    }
+}
@@ -19,19 +19,31 @@ public class WebPageElement extends CustomWebElement {
         super(webDriver, by);
     }
 
+    /**
+     * Constructor.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param by         The locator used to identify the element(s) on the website.
+     * @param webElement The webElement which forms part of List<WebElement>
+     * @param listIndex  The list index of webElement within the List<WebElement>
+     **/
+    public WebPageElement(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
+        super(webDriver, by, webElement, listIndex);
+    }
+
     /**
      * Clicks on the button.
      **/
     public void click() {
-        getWebDriver().findElement(getBy()).click();
+        findWebElement().click();
     }
 
     /**
      * Sets the text of the element.
      **/
     public void setText(String text) {
-        getWebDriver().findElement(getBy()).clear();
-        getWebDriver().findElement(getBy()).sendKeys(text);
+        findWebElement().clear();
+        findWebElement().sendKeys(text);
     }
 
     /**
@@ -40,7 +52,7 @@ public class WebPageElement extends CustomWebElement {
      * @return The found sub web element of this complex web element.
      **/
     public WebElement findElement(By locator) {
-        return getWebDriver().findElement(getBy()).findElement(locator);
+        return findWebElement().findElement(locator);
     }
 
     /**
@@ -49,7 +61,7 @@ public class WebPageElement extends CustomWebElement {
      * @return The found sub web elements of this complex web element.
      **/
     public List<WebElement> findElements(By locator) {
-        return getWebDriver().findElement(getBy()).findElements(locator);
+        return findWebElement().findElements(locator);
     }
 
     /**
@@ -58,6 +70,6 @@ public class WebPageElement extends CustomWebElement {
      * @return Returns the node text of the element.
      **/
     public String getText() {
-        return getWebDriver().findElement(getBy()).getText();
+        return findWebElement().getText();
     }
 }
@@ -4,6 +4,7 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import webelement.customElements.superElements.CustomWebElement;
+import webelement.modules.WebElementStates;
 
 import java.util.List;
 
@@ -47,4 +48,22 @@ public class WebRadioboxGroup extends CustomWebElement {
     public void clickRadioboxOption(int index) {
         getWebDriver().findElements(getBy()).get(index).click();
     }
+
+    /**
+     * Returns the indices of the visible radiobox options. All options are checked in a single script execution.
+     *
+     * @return The indices of the visible radiobox options.
+     **/
+    public List<Integer> getVisibleRadioboxOptionIndices() {
+        return WebElementStates.visibleIndices(getWebDriver(), getBy());
+    }
+
+    /**
+     * Returns the indices of the enabled radiobox options. All options are checked in a single script execution.
+     *
+     * @return The indices of the enabled radiobox options.
+     **/
+    public List<Integer> getEnabledRadioboxOptionIndices() {
+        return WebElementStates.enabledIndices(getWebDriver(), getBy());
+    }
 }
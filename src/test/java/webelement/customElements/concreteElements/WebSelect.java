@@ -0,0 +1,301 @@
+package webelement.customElements.concreteElements;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.modules.ScriptRegistry;
+import webelement.modules.WebElementScripts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A select (dropdown). Options are selected and read in a single script execution instead of one command per
+ * option like the selenium Select helper, which makes a difference for selects with thousands of options.
+ **/
+public class WebSelect extends CustomWebElement {
+
+    /**
+     * Selects the matching options. Arguments: the select, the match mode ("text", "value" or "index"), the list of
+     * texts, values or indices and true if all other options should be deselected. Disabled options are skipped and
+     * a select which is not multiple only selects the first match. Returns the number of selected options.
+     **/
+    private static final ScriptRegistry.PinnedScript SELECT_SCRIPT = ScriptRegistry.getDefault().pin("selectOptions", WebElementScripts.FIRE_FUNCTION
+            + "var select = arguments[0], mode = arguments[1], values = arguments[2], exclusive = arguments[3];\n"
+            + "var normalize = function (text) { return text.replace(/\\s+/g, ' ').trim(); };\n"
+            + "var matched = 0, changed = false;\n"
+            + "for (var i = 0; i < select.options.length; i++) {\n"
+            + "  var option = select.options[i];\n"
+            + "  var key = mode === 'text' ? normalize(option.text) : mode === 'value' ? option.value : i;\n"
+            + "  var matches = values.indexOf(key) >= 0 && !option.disabled && (select.multiple || matched === 0);\n"
+            + "  if (matches || (exclusive && select.multiple)) {\n"
+            + "    changed = changed || option.selected !== matches;\n"
+            + "    option.selected = matches;\n"
+            + "  }\n"
+            + "  if (matches) { matched++; }\n"
+            + "}\n"
+            + "if (changed) { fire(select, ['input', 'change']); }\n"
+            + "return matched;\n");
+
+    /**
+     * Deselects all options. Argument: the select. Returns false if the select is not multiple.
+     **/
+    private static final ScriptRegistry.PinnedScript DESELECT_ALL_SCRIPT = ScriptRegistry.getDefault().pin("deselectAllOptions", WebElementScripts.FIRE_FUNCTION
+            + "var select = arguments[0], changed = false;\n"
+            + "if (!select.multiple) { return false; }\n"
+            + "Array.prototype.forEach.call(select.options, function (option) {\n"
+            + "  changed = changed || option.selected;\n"
+            + "  option.selected = false;\n"
+            + "});\n"
+            + "if (changed) { fire(select, ['input', 'change']); }\n"
+            + "return true;\n");
+
+    /**
+     * Reads the options. Arguments: the select and true if only the selected options should be returned. Returns a
+     * list of [index, text, value, selected, disabled].
+     **/
+    private static final ScriptRegistry.PinnedScript OPTIONS_SCRIPT = ScriptRegistry.getDefault().pin("readOptions", ""
+            + "var select = arguments[0], selectedOnly = arguments[1], result = [];\n"
+            + "for (var i = 0; i < select.options.length; i++) {\n"
+            + "  var option = select.options[i];\n"
+            + "  if (!selectedOnly || option.selected) {\n"
+            + "    result.push([i, option.text.replace(/\\s+/g, ' ').trim(), option.value, option.selected, option.disabled]);\n"
+            + "  }\n"
+            + "}\n"
+            + "return result;\n");
+
+    /**
+     * An option of the select as it was read.
+     **/
+    public static final class Option {
+
+        private final int index;
+        private final String text;
+        private final String value;
+        private final boolean selected;
+        private final boolean enabled;
+
+        /**
+         * Constructor.
+         *
+         * @param index    The index of the option within the select.
+         * @param text     The visible text of the option.
+         * @param value    The value of the option.
+         * @param selected True if the option was selected.
+         * @param enabled  True if the option was enabled.
+         **/
+        public Option(int index, String text, String value, boolean selected, boolean enabled) {
+            this.index = index;
+            this.text = text;
+            this.value = value;
+            this.selected = selected;
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns the index of the option within the select.
+         *
+         * @return Returns the index of the option within the select.
+         **/
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the visible text of the option with normalized whitespace.
+         *
+         * @return Returns the visible text of the option.
+         **/
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Returns the value of the option.
+         *
+         * @return Returns the value of the option.
+         **/
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Returns true if the option was selected, else false.
+         *
+         * @return Returns true if the option was selected, else false.
+         **/
+        public boolean isSelected() {
+            return selected;
+        }
+
+        /**
+         * Returns true if the option was enabled, else false.
+         *
+         * @return Returns true if the option was enabled, else false.
+         **/
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public String toString() {
+            return "Option{index=" + index + ", text=" + text + ", value=" + value + ", selected=" + selected
+                    + ", enabled=" + enabled + "}";
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param by        The locator used to identify the select on the website.
+     **/
+    public WebSelect(WebDriver webDriver, By by) {
+        super(webDriver, by);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param by         The locator used to identify the selects on the website.
+     * @param webElement The webElement which forms part of List<WebElement>
+     * @param listIndex  The list index of webElement within the List<WebElement>
+     **/
+    public WebSelect(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
+        super(webDriver, by, webElement, listIndex);
+    }
+
+    /**
+     * Selects the options with the given visible texts. Whitespace is normalized like in getText(). All other options
+     * stay selected, use selectOnlyByVisibleText() to deselect them.
+     *
+     * @param texts The visible texts of the options.
+     **/
+    public void selectByVisibleText(String... texts) {
+        select("text", Arrays.asList((Object[]) texts), false);
+    }
+
+    /**
+     * Selects the options with the given visible texts and deselects all other options of a multi select.
+     *
+     * @param texts The visible texts of the options.
+     **/
+    public void selectOnlyByVisibleText(String... texts) {
+        select("text", Arrays.asList((Object[]) texts), true);
+    }
+
+    /**
+     * Selects the options with the given values. All other options stay selected.
+     *
+     * @param values The values of the options.
+     **/
+    public void selectByValue(String... values) {
+        select("value", Arrays.asList((Object[]) values), false);
+    }
+
+    /**
+     * Selects the options with the given indices. All other options stay selected.
+     *
+     * @param indices The indices of the options.
+     **/
+    public void selectByIndex(int... indices) {
+        List<Object> values = new ArrayList<>(indices.length);
+
+        for (int index : indices) {
+            values.add((long) index);
+        }
+        select("index", values, false);
+    }
+
+    /**
+     * Deselects all options of a multi select.
+     **/
+    public void deselectAll() {
+        Object multiple = executeScript(DESELECT_ALL_SCRIPT, findWebElement());
+
+        if (!Boolean.TRUE.equals(multiple)) {
+            throw new UnsupportedOperationException("You may only deselect all options of a multi-select");
+        }
+    }
+
+    /**
+     * Reads all options in one script execution.
+     *
+     * @return All options of the select.
+     **/
+    public List<Option> getOptions() {
+        return readOptions(false);
+    }
+
+    /**
+     * Reads the selected options in one script execution.
+     *
+     * @return The selected options of the select.
+     **/
+    public List<Option> getSelectedOptions() {
+        return readOptions(true);
+    }
+
+    /**
+     * Returns the first selected option.
+     *
+     * @return The first selected option.
+     * @throws NoSuchElementException If no option is selected.
+     **/
+    public Option getFirstSelectedOption() {
+        List<Option> selectedOptions = getSelectedOptions();
+
+        if (selectedOptions.isEmpty()) {
+            throw new NoSuchElementException("No options are selected in " + getBy());
+        }
+        return selectedOptions.get(0);
+    }
+
+    /**
+     * Returns true if several options can be selected, else false.
+     *
+     * @return Returns true if several options can be selected, else false.
+     **/
+    public boolean isMultiple() {
+        String multiple = findWebElement().getAttribute("multiple");
+        return multiple != null && !"false".equals(multiple);
+    }
+
+    /**
+     * Selects the matching options and fires the input and change events if the selection changed.
+     **/
+    private void select(String mode, List<Object> values, boolean exclusive) {
+        Object matched = executeScript(SELECT_SCRIPT, findWebElement(), mode, values, exclusive);
+
+        if (((Number) matched).intValue() == 0) {
+            throw new NoSuchElementException("Cannot locate an enabled option with " + mode + " " + values + " in " + getBy());
+        }
+    }
+
+    /**
+     * Reads the options of the select.
+     **/
+    private List<Option> readOptions(boolean selectedOnly) {
+        List<?> rows = (List<?>) executeScript(OPTIONS_SCRIPT, findWebElement(), selectedOnly);
+        List<Option> options = new ArrayList<>(rows.size());
+
+        for (Object row : rows) {
+            List<?> values = (List<?>) row;
+            options.add(new Option(((Number) values.get(0)).intValue(), (String) values.get(1), (String) values.get(2),
+                    (Boolean) values.get(3), !((Boolean) values.get(4))));
+        }
+        return Collections.unmodifiableList(options);
+    }
+
+    /**
+     * Executes a script of this select.
+     **/
+    private Object executeScript(ScriptRegistry.PinnedScript script, Object... arguments) {
+        return script.execute(getWebDriver(), arguments);
+    }
+}
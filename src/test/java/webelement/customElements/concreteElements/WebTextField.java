@@ -3,6 +3,7 @@ package webelement.customElements.concreteElements;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Keys;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
 import webelement.customElements.superElements.CustomWebElement;
 
 /**
@@ -20,6 +21,18 @@ public class WebTextField extends CustomWebElement {
         super(webDriver, by);
     }
 
+    /**
+     * Constructor.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param by         The locator used to identify the element(s) on the website.
+     * @param webElement The webElement which forms part of List<WebElement>
+     * @param listIndex  The list index of webElement within the List<WebElement>
+     **/
+    public WebTextField(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
+        super(webDriver, by, webElement, listIndex);
+    }
+
     /**
      * Returns the text of this textfield.
      *
@@ -35,14 +48,14 @@ public class WebTextField extends CustomWebElement {
      * @param text The text which should be inserted in this text field.
      **/
     public void setText(String text) {
-        getWebDriver().findElement(getBy()).clear();
-        getWebDriver().findElement(getBy()).sendKeys(text);
+        findWebElement().clear();
+        findWebElement().sendKeys(text);
     }
 
     /**
      * Tries to submit by pressing enter.
      */
     public void submit() {
-        getWebDriver().findElement(getBy()).sendKeys(Keys.ENTER);
+        findWebElement().sendKeys(Keys.ENTER);
     }
 }
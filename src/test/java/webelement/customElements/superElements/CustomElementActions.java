@@ -0,0 +1,140 @@
+package webelement.customElements.superElements;
+
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.interactions.Actions;
+
+import java.time.Duration;
+
+/**
+ * Queues clicks, keystrokes and focus changes on any number of custom webelements and sends them to the browser as
+ * a single W3C actions command. The browser still gets real input events, but a whole form interaction costs one
+ * round trip instead of one per click or keystroke.
+ * <p>
+ * Example: "searchField.actions().setText(searchField, "Test").tab().click(searchButton).perform();"
+ **/
+public class CustomElementActions {
+
+    /**
+     * The selenium action builder which collects the action sequences.
+     **/
+    private final Actions actions;
+
+    /**
+     * The modifier key which selects the whole text of an input together with "a".
+     **/
+    private Keys selectAllModifier = Keys.CONTROL;
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     **/
+    public CustomElementActions(WebDriver webDriver) {
+        actions = new Actions(webDriver);
+    }
+
+    /**
+     * Sets the modifier key which selects the whole text of an input together with "a" (e.g. Keys.COMMAND on macOS).
+     * Default is Keys.CONTROL.
+     *
+     * @param selectAllModifier The modifier key.
+     * @return This action builder.
+     **/
+    public CustomElementActions withSelectAllModifier(Keys selectAllModifier) {
+        this.selectAllModifier = selectAllModifier;
+        return this;
+    }
+
+    /**
+     * Clicks in the middle of the custom webelement.
+     *
+     * @param element The custom webelement which should be clicked.
+     * @return This action builder.
+     **/
+    public CustomElementActions click(CustomWebElement element) {
+        actions.click(element.getWebElement());
+        return this;
+    }
+
+    /**
+     * Focuses the custom webelement by clicking on it and then types the keys.
+     *
+     * @param element The custom webelement which should receive the keys.
+     * @param keys    The keys which should be typed.
+     * @return This action builder.
+     **/
+    public CustomElementActions sendKeys(CustomWebElement element, CharSequence... keys) {
+        actions.sendKeys(element.getWebElement(), keys);
+        return this;
+    }
+
+    /**
+     * Types the keys into the currently focused element.
+     *
+     * @param keys The keys which should be typed.
+     * @return This action builder.
+     **/
+    public CustomElementActions sendKeys(CharSequence... keys) {
+        actions.sendKeys(keys);
+        return this;
+    }
+
+    /**
+     * Focuses the custom webelement by clicking on it, selects its whole text and replaces it by typing the text.
+     *
+     * @param element The custom webelement whose text should be replaced.
+     * @param text    The new text.
+     * @return This action builder.
+     **/
+    public CustomElementActions setText(CustomWebElement element, String text) {
+        actions.click(element.getWebElement())
+                .keyDown(selectAllModifier)
+                .sendKeys("a")
+                .keyUp(selectAllModifier)
+                .sendKeys(Keys.BACK_SPACE);
+        if (!text.isEmpty()) {
+            actions.sendKeys(text);
+        }
+        return this;
+    }
+
+    /**
+     * Moves the focus to the next element by pressing tab.
+     *
+     * @return This action builder.
+     **/
+    public CustomElementActions tab() {
+        actions.sendKeys(Keys.TAB);
+        return this;
+    }
+
+    /**
+     * Moves the mouse into the middle of the custom webelement.
+     *
+     * @param element The custom webelement to which the mouse should be moved.
+     * @return This action builder.
+     **/
+    public CustomElementActions moveTo(CustomWebElement element) {
+        actions.moveToElement(element.getWebElement());
+        return this;
+    }
+
+    /**
+     * Waits before the next queued action is executed. The pause happens in the browser and costs no round trip.
+     *
+     * @param duration The duration of the pause.
+     * @return This action builder.
+     **/
+    public CustomElementActions pause(Duration duration) {
+        actions.pause(duration);
+        return this;
+    }
+
+    /**
+     * Sends all queued actions to the browser in one command.
+     **/
+    public void perform() {
+        actions.perform();
+    }
+}
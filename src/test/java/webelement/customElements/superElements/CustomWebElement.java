@@ -1,18 +1,32 @@
 package webelement.customElements.superElements;
 
-import org.openqa.selenium.support.PageFactory;
-import webelement.customElementsDecorator.CustomElementFieldDecorator;
+import webelement.customElementsDecorator.CustomElementBinders;
+import webelement.customElementsDecorator.CustomElementFrames;
+import webelement.customElementsDecorator.CustomElementInvocations;
+import webelement.customElementsDecorator.PageScope;
+import webelement.diagnostics.ElementLocationEvent;
+import webelement.modules.AdaptiveWaits;
+import webelement.modules.ScreenshotWriter;
+import webelement.modules.WebElementStates;
 import webelement.modules.WebElementTransformer;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Keys;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
 /**
  * Parent class for all complex web elements.
  **/
-public abstract class CustomWebElement {
+public abstract class CustomWebElement implements PageScope.Member {
 
     /**
      * The webDriver which can be used in subclasses.
@@ -25,15 +39,15 @@ public abstract class CustomWebElement {
     private By locator;
 
     /**
-     * Used to access the locators of a webelement.
+     * Used to access the locators of a webelement. It is stateless and therefore shared by all elements.
      * **/
-    private WebElementTransformer transformer;
+    private static final WebElementTransformer transformer = new WebElementTransformer();
 
     /**
      * Used to store a WebElement so that driver.findElement() isn't called repetatively
      * Don't rename this variable name. We check for it and ignore it in our CustomElementFieldDecorator class
      */
-    protected WebElement __actual_web_element_reference;
+    protected volatile WebElement __actual_web_element_reference;
 
     /**
      * Used to store list index of WebElement within a List<WebElement>
@@ -41,6 +55,63 @@ public abstract class CustomWebElement {
      */
     private int listIndex = -1;
 
+    /**
+     * True as soon as the nested custom webelements of this custom webelement have been initialized.
+     **/
+    private volatile boolean nestedElementsInitialized;
+
+    /**
+     * The css selectors of the frames in which this custom webelement is located or null if it has no frame.
+     **/
+    private final String[] framePath;
+
+    /**
+     * The page scope in which this custom webelement is registered or null if no page scope was open.
+     **/
+    private final PageScope scope;
+
+    /**
+     * True as soon as the page scope released this custom webelement.
+     **/
+    private volatile boolean released;
+
+    /**
+     * The list item (or custom webelement nested in a list item) relative to which this custom webelement was
+     * located or null if it was located in the whole page.
+     **/
+    private final CustomWebElement searchContext;
+
+    /**
+     * The class of the page object (or custom webelement) which declared this custom webelement or null if it was
+     * created outside of an initialization.
+     **/
+    private final Class<?> ownerClass;
+
+    /**
+     * The children found by findChild(), by their locator.
+     **/
+    private final Map<By, WebElement> childCache = new ConcurrentHashMap<>();
+
+    /**
+     * The children found by findChildren(), by their locator.
+     **/
+    private final Map<By, List<WebElement>> childrenCache = new ConcurrentHashMap<>();
+
+    /**
+     * The values read by readIfChanged(), by their key. They belong to the fingerprint in lastFingerprint.
+     **/
+    private final Map<String, Object> readCache = new ConcurrentHashMap<>();
+
+    /**
+     * The last fingerprint of the subtree of this element or null if it was not taken yet or the caches were cleared.
+     **/
+    private volatile String lastFingerprint;
+
+    /**
+     * Stands for a null value in the readCache.
+     **/
+    private static final Object NULL_VALUE = new Object();
+
     /**
      * Constructor.
      *
@@ -50,16 +121,20 @@ public abstract class CustomWebElement {
     public CustomWebElement(WebDriver webDriver, By by) {
         this.webDriver = webDriver;
         locator = by;
-        transformer = new WebElementTransformer();
+        framePath = CustomElementFrames.resolveFramePath(CustomElementInvocations.getElementClass(getClass()));
+        scope = register();
+        searchContext = CustomElementBinders.currentSearchContext();
+        ownerClass = CustomElementBinders.currentOwnerClass();
         
-        // Call the page factory on this object to initialize custom webelements in custom webelements (aka nesting)
-        PageFactory.initElements(new CustomElementFieldDecorator(webDriver, webDriver), this);
-        //The following assignment needs to be done after initElements
-        //initElements first scans all Page classes and CustomWebElement classes for WebElement or CustomWebElement fields nested within
-        //If the field name happens to be the following, null is assigned by initElements
-        //Hence we need to assign the actual value after initELements is done assigning null otherwise our value is bound to get overwritten by null
-        __actual_web_element_reference = this.webDriver.findElement(locator);
-
+        // Custom webelements in custom webelements (aka nesting) are initialized and located on the first method
+        // call of a proxy (see CustomElementInvocations), so only the modules a test actually uses are built and an
+        // absent optional module can be checked with isPresent(). Other objects are initialized right away.
+        if (!CustomElementInvocations.isProxy(this)) {
+            initNestedElements();
+            //initElements never assigns the following field (the decorator and the binders skip it)
+            //In case initElements runs right away it still has to be assigned after it, like it always was
+            __actual_web_element_reference = locateWebElement();
+        }
     }
 
     /**
@@ -73,20 +148,170 @@ public abstract class CustomWebElement {
     public CustomWebElement(WebDriver webDriver, By by, WebElement webElement, int listIndex) {
         this.webDriver = webDriver;
         locator = by;
-        transformer = new WebElementTransformer();
         this.listIndex = listIndex;
+        framePath = CustomElementFrames.resolveFramePath(CustomElementInvocations.getElementClass(getClass()));
+        scope = register();
+        searchContext = CustomElementBinders.currentSearchContext();
+        ownerClass = CustomElementBinders.currentOwnerClass();
 
-        // Call the page factory on this object to initialize custom webelements in custom webelements (aka nesting)
-        PageFactory.initElements(new CustomElementFieldDecorator(webDriver, webDriver), this);
-        //The following assignment needs to be done after initElements
-        //initElements first scans all Page classes and CustomWebElement classes for WebElement or CustomWebElement fields nested within
-        //If the field name happens to be the following, null is assigned by initElements
-        //Hence we need to assign the actual value after initELements is done assigning null otherwise our value is bound to get overwritten by null
+        // Custom webelements in custom webelements (aka nesting) are initialized on the first method call of a proxy
+        // (see CustomElementInvocations), so only the modules a test actually uses are built. Other objects are
+        // initialized right away.
+        if (!CustomElementInvocations.isProxy(this)) {
+            initNestedElements();
+        }
+        //initElements never assigns the following field (the decorator and the binders skip it)
+        //In case initElements runs right away it still has to be assigned after it, like it always was
         __actual_web_element_reference = webElement;
     }
 
     /**
-     * Returns the locator to identify the element(s) on the website.
+     * Initializes the custom webelements in this custom webelement (aka nesting) if this has not been done yet.
+     * Called on the first method call of a proxy. Nested fields must therefore only be accessed from within methods
+     * of this custom webelement.
+     **/
+    public final void initNestedElements() {
+        if (nestedElementsInitialized) {
+            return;
+        }
+        synchronized (this) {
+            if (!nestedElementsInitialized) {
+                // Set first, the initialisation must not trigger itself
+                nestedElementsInitialized = true;
+                // Call the page factory on this object to initialize custom webelements in custom webelements (aka nesting)
+                // A binder generated at compile time is used if available, else the CustomElementFieldDecorator
+                // The nested custom webelements belong to the page scope of this one, even if they are built later
+                PageScope.runWithin(scope, () -> CustomElementBinders.initElements(webDriver, this));
+            }
+        }
+    }
+
+    /**
+     * Locates the WebElement of this custom webelement if this has not been done yet. Called on the first method
+     * call of a proxy.
+     **/
+    public final void resolveWebElement() {
+        if (__actual_web_element_reference == null && !released) {
+            synchronized (this) {
+                if (__actual_web_element_reference == null && !released) {
+                    __actual_web_element_reference = locateWebElement();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the element of this custom webelement is on the page. Answers in one script execution without
+     * waiting for the implicit wait and without locating the element, so it also works for absent optional modules.
+     * A list item is present as long as its element is attached to the page.
+     *
+     * @return Returns true if the element is on the page, else false.
+     **/
+    public final boolean isPresent() {
+        if (listIndex >= 0) {
+            WebElement webElement = __actual_web_element_reference;
+            CustomElementFrames.switchTo(webDriver, framePath);
+            return webElement != null && WebElementStates.isAttached(webDriver, webElement);
+        }
+        if (searchContext != null) {
+            return searchContext.isChildPresent(locator);
+        }
+        CustomElementFrames.switchTo(webDriver, framePath);
+        return WebElementStates.countPresent(webDriver, null, locator) > 0;
+    }
+
+    /**
+     * Returns true if the element of this custom webelement is not on the page. See isPresent().
+     *
+     * @return Returns true if the element is not on the page, else false.
+     **/
+    public final boolean isAbsent() {
+        return !isPresent();
+    }
+
+    /**
+     * Returns true if an element within this element matches the locator. Answers in one script execution without
+     * waiting for the implicit wait.
+     *
+     * @param locator The locator of the child relative to this element.
+     * @return Returns true if a matching child is on the page, else false.
+     **/
+    public final boolean isChildPresent(By locator) {
+        try {
+            WebElement webElement = getWebElement();
+            CustomElementFrames.switchTo(webDriver, framePath);
+            return webElement != null && WebElementStates.countPresent(webDriver, webElement, locator) > 0;
+        } catch (NoSuchElementException | StaleElementReferenceException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Registers this custom webelement in the current page scope.
+     *
+     * @return The page scope or null if no page scope is open.
+     **/
+    private PageScope register() {
+        PageScope currentScope = PageScope.current();
+
+        if (currentScope != null) {
+            currentScope.register(this);
+        }
+        return currentScope;
+    }
+
+    /**
+     * Drops the located WebElement, so it can be garbage collected even if this custom webelement is still
+     * referenced. Called by the page scope when the page is left. Further method calls of a proxy throw a
+     * StaleElementReferenceException.
+     **/
+    @Override
+    public final void release() {
+        released = true;
+        __actual_web_element_reference = null;
+        invalidateChildren();
+    }
+
+    /**
+     * Returns true if the page scope released this custom webelement.
+     *
+     * @return Returns true if this custom webelement was released, else false.
+     **/
+    @Override
+    public final boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Locates the WebElement of this CustomWebElement.
+     *
+     * @return The located WebElement.
+     **/
+    private WebElement locateWebElement() {
+        ElementLocationEvent event = new ElementLocationEvent();
+        boolean found = false;
+
+        event.begin();
+        try {
+            CustomElementFrames.switchTo(webDriver, framePath);
+            // Custom webelements in list items are searched in the item only
+            WebElement webElement = awaitElement(() -> searchContext != null ? searchContext.findChild(locator) : webDriver.findElement(locator), true);
+            found = true;
+            return webElement;
+        } finally {
+            if (event.shouldCommit()) {
+                event.elementClass = CustomElementInvocations.getElementClass(getClass()).getName();
+                event.locator = String.valueOf(locator);
+                event.foundElements = found ? 1 : 0;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Returns the locator to identify the element(s) on the website. A simple FindBy XPath is returned as the locator
+     * the {@link webelement.modules.XPathOptimizer} rewrote it to, e.g. By.id("q") for "//*[@id='q']". Set the system
+     * property "webelement.optimizeXPath" to "false" to keep the XPath locators.
      *
      * @return Returns the locator to identify the element(s) on the website.
      **/
@@ -99,9 +324,75 @@ public abstract class CustomWebElement {
      * @return WebElement
      */
     protected WebElement getWebElement() {
+        resolveWebElement();
     	return __actual_web_element_reference;
     }
 
+    /**
+     * Returns the WebElement on which an action should be performed. List items and custom webelements located
+     * within a list item use their located WebElement, so an action costs one command. Other custom webelements are
+     * located again in the whole page, so they always act on the current element.
+     *
+     * @return The WebElement of this custom webelement.
+     **/
+    protected final WebElement findWebElement() {
+        if (locatesChildrenRelatively()) {
+            return getWebElement();
+        }
+        return awaitElement(() -> webDriver.findElement(locator), false);
+    }
+
+    /**
+     * Locates the WebElement with the adaptive waits of the webdriver (see {@link AdaptiveWaits}) if they are enabled.
+     *
+     * @param locate  Locates the WebElement.
+     * @param observe Whether the lookup is recorded, which is only the case for the first location.
+     * @return The located WebElement.
+     **/
+    private WebElement awaitElement(Supplier<WebElement> locate, boolean observe) {
+        AdaptiveWaits waits = AdaptiveWaits.of(webDriver);
+        return waits != null ? waits.await(ownerClass, locator, locate, observe) : locate.get();
+    }
+
+    /**
+     * Returns the class of the page object (or custom webelement) which declared this custom webelement.
+     *
+     * @return The class of the owner or null if this custom webelement was created outside of an initialization.
+     **/
+    public final Class<?> getOwnerClass() {
+        return ownerClass;
+    }
+
+    /**
+     * Returns the list item (or custom webelement nested in a list item) relative to which this custom webelement
+     * was located.
+     *
+     * @return The search context or null if this custom webelement was located in the whole page.
+     **/
+    public final CustomWebElement getSearchContext() {
+        return searchContext;
+    }
+
+    /**
+     * Returns true if the custom webelements nested in this one are located relative to its WebElement, which is the
+     * case for list items and the custom webelements nested in them.
+     *
+     * @return Returns true if nested custom webelements are located relative to this one, else false.
+     **/
+    public final boolean locatesChildrenRelatively() {
+        return listIndex >= 0 || searchContext != null;
+    }
+
+    /**
+     * Returns the css selectors of the frames in which this custom webelement is located (see the Frame annotation).
+     * The returned array must not be modified.
+     *
+     * @return The frame path or null if this custom webelement has no frame.
+     **/
+    public final String[] getFramePath() {
+        return framePath;
+    }
+
     /**
      * Returns the list index within a List<WebElement>
      * @return listIndex
@@ -160,7 +451,8 @@ public abstract class CustomWebElement {
     }
 
     /**
-     * Returns the used type of a given by locator.
+     * Returns the used type of a given by locator. For a rewritten FindBy XPath this is the type of the rewritten
+     * locator (e.g. ID or CSS), not XPATH (see {@link #getBy()}).
      *
      * @return Returns the used type of a given by locator.
      **/
@@ -169,7 +461,8 @@ public abstract class CustomWebElement {
     }
 
     /**
-     * Returns the locator value of a locator.
+     * Returns the locator value of a locator. For a rewritten FindBy XPath this is the value of the rewritten locator
+     * (see {@link #getBy()}).
      *
      * @param type The type of the locator.
      * @return The value of the locator.
@@ -211,6 +504,138 @@ public abstract class CustomWebElement {
         __actual_web_element_reference.sendKeys(text);
     }
 
+    /**
+     * Returns a new action builder which queues clicks, keystrokes and focus changes on this and other custom
+     * webelements and sends them in a single actions command.
+     *
+     * @return A new action builder.
+     **/
+    public CustomElementActions actions() {
+        return new CustomElementActions(webDriver);
+    }
+
+    /**
+     * Captures only the region of this element and writes it to a file. The method returns as soon as the browser
+     * sent the screenshot, decoding, compression and the disk write happen in the background (see
+     * {@link ScreenshotWriter}).
+     *
+     * @param file The file to which the screenshot should be written, a "jpg" file is compressed.
+     * @return Completes with the file as soon as it was written.
+     **/
+    public CompletableFuture<Path> takeScreenshot(Path file) {
+        return ScreenshotWriter.getDefault().capture(webDriver, __actual_web_element_reference, file);
+    }
+
+    /**
+     * Finds an element within this element and caches it, so further calls with the same locator cost no command.
+     * The nested custom webelements of list items are located with it. The cache is cleared when a method of this
+     * custom webelement fails with a StaleElementReferenceException.
+     *
+     * @param locator The locator of the child relative to this element.
+     * @return The found child element.
+     **/
+    public WebElement findChild(By locator) {
+        WebElement child = childCache.get(locator);
+
+        if (child == null) {
+            child = getWebElement().findElement(locator);
+            childCache.put(locator, child);
+        }
+        return child;
+    }
+
+    /**
+     * Finds all elements within this element and caches them, so further calls with the same locator cost no
+     * command. See findChild().
+     *
+     * @param locator The locator of the children relative to this element.
+     * @return The found child elements, the list must not be modified.
+     **/
+    public List<WebElement> findChildren(By locator) {
+        List<WebElement> children = childrenCache.get(locator);
+
+        if (children == null) {
+            children = Collections.unmodifiableList(getWebElement().findElements(locator));
+            childrenCache.put(locator, children);
+        }
+        return children;
+    }
+
+    /**
+     * Clears the children cached by findChild() and findChildren() and the values cached by readIfChanged(), e.g.
+     * after the content of this element changed.
+     **/
+    public final void invalidateChildren() {
+        childCache.clear();
+        childrenCache.clear();
+        readCache.clear();
+        lastFingerprint = null;
+    }
+
+    /**
+     * Returns a hash of the subtree of this element in one script execution (see {@link WebElementStates}). When it
+     * differs from the last one, the children cached by findChild() and findChildren() and the values cached by
+     * readIfChanged() are cleared. Elements which are not located within a list item are hashed as they are on the
+     * page now, without locating them again.
+     *
+     * @return The fingerprint of the subtree of this element.
+     **/
+    public String getFingerprint() {
+        String fingerprint;
+
+        if (locatesChildrenRelatively()) {
+            WebElement webElement = getWebElement();
+            CustomElementFrames.switchTo(webDriver, framePath);
+            fingerprint = WebElementStates.fingerprint(webDriver, webElement);
+        } else {
+            CustomElementFrames.switchTo(webDriver, framePath);
+            fingerprint = WebElementStates.fingerprint(webDriver, null, locator, 1);
+        }
+        if (!fingerprint.equals(lastFingerprint)) {
+            invalidateChildren();
+            lastFingerprint = fingerprint;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns the value which was read with the same key as long as the subtree of this element did not change,
+     * else reads it again. Polling a large module costs one small script execution per call while nothing changes,
+     * e.g. "readIfChanged("rows", () -> getRowTexts())".
+     *
+     * @param key  The key of the value, unique within this custom webelement.
+     * @param read Reads the value.
+     * @param <T>  The type of the value.
+     * @return The cached or read value.
+     **/
+    @SuppressWarnings("unchecked")
+    public <T> T readIfChanged(String key, Supplier<T> read) {
+        String fingerprint = getFingerprint();
+        Object value = readCache.get(key);
+
+        if (value == null) {
+            value = read.get();
+            // The value is not cached if the subtree changed while it was read
+            if (fingerprint.equals(lastFingerprint)) {
+                readCache.put(key, value == null ? NULL_VALUE : value);
+            }
+            return (T) value;
+        }
+        return value == NULL_VALUE ? null : (T) value;
+    }
+
+    /**
+     * Returns the fingerprint of the elements within this element which match the locator (see getFingerprint()).
+     *
+     * @param locator The locator of the children relative to this element.
+     * @return The fingerprint of the matching children.
+     **/
+    public final String getChildrenFingerprint(By locator) {
+        WebElement webElement = getWebElement();
+        CustomElementFrames.switchTo(webDriver, framePath);
+        return WebElementStates.fingerprint(webDriver, webElement, locator, Integer.MAX_VALUE);
+    }
+
     /**
      * Finds an element which uses the locator of this element as base.
      *
@@ -0,0 +1,23 @@
+package webelement.customElementsDecorator;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Assigns the custom webelement fields of a page object without reflection.
+ * <p>
+ * Implementations are generated at compile time by the CustomElementBinderProcessor for every class whose
+ * FindBy annotated custom webelement fields can be assigned directly. They are looked up via
+ * {@link CustomElementBinders}, which falls back to the {@link CustomElementFieldDecorator} for all other classes.
+ *
+ * @param <T> The type of the page object or custom webelement whose fields are bound.
+ **/
+public interface CustomElementBinder<T> {
+
+    /**
+     * Creates the custom webelements of the target and assigns them to its fields.
+     *
+     * @param target    The page object or custom webelement whose fields should be assigned.
+     * @param webDriver The webDriver which will be used to create the custom webelements.
+     **/
+    void bind(T target, WebDriver webDriver);
+}
@@ -0,0 +1,221 @@
+package webelement.customElementsDecorator;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.PageFactory;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.diagnostics.DecorationEvent;
+import webelement.diagnostics.TraceRecorder;
+import webelement.diagnostics.ElementLocationEvent;
+import webelement.modules.PageReadiness;
+import webelement.modules.XPathOptimizer;
+
+import java.util.List;
+
+/**
+ * Entry point to initialize page objects and custom webelements.
+ * <p>
+ * If a binder was generated at compile time for the class of the page object (see {@link CustomElementBinder}),
+ * the binder is used to assign the fields. Otherwise the page factory is called with the
+ * {@link CustomElementFieldDecorator}, exactly like before.
+ **/
+public final class CustomElementBinders {
+
+    /**
+     * The suffix which is appended to the binary class name of a page object to get the name of its generated binder.
+     **/
+    public static final String BINDER_SUFFIX = "_CustomElementBinder";
+
+    /**
+     * Marker for classes without a generated binder.
+     **/
+    private static final CustomElementBinder<Object> NO_BINDER = (target, webDriver) -> {
+    };
+
+    /**
+     * The list item (or custom webelement nested in a list item) whose nested custom webelements are currently
+     * initialized on this thread, null while other objects are initialized.
+     **/
+    private static final ThreadLocal<CustomWebElement> SEARCH_CONTEXT = new ThreadLocal<>();
+
+    /**
+     * The class of the page object (or custom webelement) whose fields are currently initialized on this thread.
+     **/
+    private static final ThreadLocal<Class<?>> OWNER_CLASS = new ThreadLocal<>();
+
+    /**
+     * The binder of each page object class. The lookup is done once per class.
+     **/
+    private static final ClassValue<CustomElementBinder<Object>> BINDERS = new ClassValue<CustomElementBinder<Object>>() {
+        @Override
+        protected CustomElementBinder<Object> computeValue(Class<?> type) {
+            return loadBinder(type);
+        }
+    };
+
+    /**
+     * Creates a list item of a List of custom webelements.
+     *
+     * @param <T> The type of the list item.
+     **/
+    @FunctionalInterface
+    public interface ItemFactory<T extends CustomWebElement> {
+
+        /**
+         * Creates the list item.
+         *
+         * @param webDriver  The webDriver used to interact with the webbrowser.
+         * @param by         The locator of the list.
+         * @param webElement The webElement which forms the list item.
+         * @param listIndex  The list index of the webElement.
+         * @return The list item.
+         **/
+        T create(WebDriver webDriver, By by, WebElement webElement, int listIndex);
+    }
+
+    private CustomElementBinders() {
+    }
+
+    /**
+     * Initializes the FindBy annotated fields of a page object or custom webelement.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param page      The page object or custom webelement which should be initialized.
+     **/
+    public static void initElements(WebDriver webDriver, Object page) {
+        CustomElementBinder<Object> binder = BINDERS.get(page.getClass());
+        DecorationEvent event = new DecorationEvent();
+
+        // Page objects are initialized once the page is idle (if enabled)
+        if (!(page instanceof CustomWebElement)) {
+            PageReadiness.awaitIfGated(webDriver);
+        }
+        event.begin();
+        try (TraceRecorder.Span span = TraceRecorder.span(TraceRecorder.DECORATION,
+                CustomElementInvocations.getElementClass(page.getClass()), null)) {
+            span.arg("binder", binder != NO_BINDER);
+            // The fields are located in the frame of the page object or custom webelement unless they declare their own
+            String[] framePath = page instanceof CustomWebElement ? ((CustomWebElement) page).getFramePath()
+                    : CustomElementFrames.getFramePath(CustomElementInvocations.getElementClass(page.getClass()));
+            // The fields of list items (and of custom webelements nested in them) are located within the item
+            CustomWebElement previousSearchContext = SEARCH_CONTEXT.get();
+            Class<?> previousOwnerClass = OWNER_CLASS.get();
+            SEARCH_CONTEXT.set(page instanceof CustomWebElement && ((CustomWebElement) page).locatesChildrenRelatively()
+                    ? (CustomWebElement) page : null);
+            OWNER_CLASS.set(CustomElementInvocations.getElementClass(page.getClass()));
+            try {
+                CustomElementFrames.withOwnerFramePath(framePath, () -> {
+                    if (binder != NO_BINDER) {
+                        binder.bind(page, webDriver);
+                    } else {
+                        PageFactory.initElements(new CustomElementFieldDecorator(webDriver, webDriver), page);
+                    }
+                });
+            } finally {
+                SEARCH_CONTEXT.set(previousSearchContext);
+                OWNER_CLASS.set(previousOwnerClass);
+            }
+        } finally {
+            if (event.shouldCommit()) {
+                event.pageClass = CustomElementInvocations.getElementClass(page.getClass()).getName();
+                event.binder = binder != NO_BINDER;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Returns true if a generated binder is used for the given class.
+     *
+     * @param type The class of a page object or custom webelement.
+     * @return Returns true if a generated binder is used for the given class, else false.
+     **/
+    public static boolean hasBinder(Class<?> type) {
+        return BINDERS.get(type) != NO_BINDER;
+    }
+
+    /**
+     * Returns the list item (or custom webelement nested in a list item) whose nested custom webelements are
+     * currently initialized on this thread.
+     *
+     * @return The search context of the nested custom webelements or null if they are located in the whole page.
+     **/
+    public static CustomWebElement currentSearchContext() {
+        return SEARCH_CONTEXT.get();
+    }
+
+    /**
+     * Creates the locator of an XPath FindBy annotation. Used by the generated binders and the
+     * CustomElementFieldDecorator. Simple expressions are rewritten by the {@link XPathOptimizer}, unless the fields
+     * are located within a list item, where the rewritten css selector would not be equivalent.
+     *
+     * @param xpath The XPath expression of the FindBy annotation.
+     * @return The locator.
+     **/
+    public static By xpath(String xpath) {
+        return SEARCH_CONTEXT.get() == null ? XPathOptimizer.optimize(xpath) : By.xpath(xpath);
+    }
+
+    /**
+     * Returns the class of the page object (or custom webelement) whose fields are currently initialized on this
+     * thread.
+     *
+     * @return The class of the page object or null if no fields are initialized.
+     **/
+    public static Class<?> currentOwnerClass() {
+        return OWNER_CLASS.get();
+    }
+
+    /**
+     * Creates a List of custom webelements. The list items are located on the first access of the list and the
+     * custom webelements of the items on their first access. Used by the generated binders and the
+     * CustomElementFieldDecorator.
+     *
+     * @param webDriver   The webDriver used to interact with the webbrowser.
+     * @param by          The locator of the list.
+     * @param itemFactory Creates the custom webelement for each located webElement.
+     * @param <T>         The type of the list items.
+     * @return The list of custom webelements.
+     **/
+    public static <T extends CustomWebElement> List<T> createList(WebDriver webDriver, By by, ItemFactory<? extends T> itemFactory) {
+        // The list items are located on the first access of the list, so an absent list costs no implicit wait
+        return new CustomElementList<>(webDriver, by, null, itemFactory, CustomElementFrames.currentFramePath());
+    }
+
+    /**
+     * Finds the elements of a List field, within the current search context if there is one.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param by        The locator of the list.
+     * @return The found elements.
+     **/
+    static List<WebElement> findElements(WebDriver webDriver, By by) {
+        CustomWebElement searchContext = SEARCH_CONTEXT.get();
+        return searchContext != null ? searchContext.findChildren(by) : webDriver.findElements(by);
+    }
+
+    /**
+     * Loads the generated binder of a class. Enhanced (cglib) and generated proxy classes use the binder of the
+     * class they extend.
+     *
+     * @param type The class for which the binder should be loaded.
+     * @return The binder or NO_BINDER if none was generated.
+     **/
+    @SuppressWarnings("unchecked")
+    private static CustomElementBinder<Object> loadBinder(Class<?> type) {
+        Class<?> elementClass = CustomElementInvocations.getElementClass(type);
+        if (elementClass != type) {
+            return BINDERS.get(elementClass);
+        }
+
+        try {
+            Class<?> binderClass = Class.forName(type.getName() + BINDER_SUFFIX, true, type.getClassLoader());
+            return (CustomElementBinder<Object>) binderClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return NO_BINDER;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The generated binder for " + type.getName() + " could not be created.", e);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package webelement.customElementsDecorator;
 
 import webelement.customElements.superElements.CustomWebElement;
+import webelement.diagnostics.DecorationEvent;
+import webelement.diagnostics.TraceRecorder;
+import webelement.diagnostics.ElementLocationEvent;
 import webelement.modules.WebElementTransformer;
 import net.sf.cglib.proxy.Enhancer;
 import net.sf.cglib.proxy.MethodInterceptor;
@@ -91,9 +94,35 @@ public class CustomElementFieldDecorator implements FieldDecorator {
      **/
     //@Override
     public Object decorate(ClassLoader loader, Field field) {
+        DecorationEvent event = new DecorationEvent();
+
+        TraceRecorder.Span span = TraceRecorder.span(TraceRecorder.DECORATION, field.getDeclaringClass(), field.getName());
+
+        event.begin();
+        try {
+            return decorateField(loader, field);
+        } finally {
+            span.close();
+            if (event.shouldCommit()) {
+                event.pageClass = CustomElementInvocations.getElementClass(field.getDeclaringClass()).getName();
+                event.field = field.getName();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Decides how to decorate the field.
+     *
+     * @param loader The class loader that was used for the page object
+     * @param field  The field which should be decorated.
+     * @return Value to decorate the field with.
+     **/
+    private Object decorateField(ClassLoader loader, Field field) {
     	//If it is a custom annotated webelement, then ensure proper initialisation via the adding of the callback method
         if (CustomWebElement.class.isAssignableFrom(field.getType())  && field.isAnnotationPresent(FindBy.class)) {
-            return getEnhancedObject(field.getType(), getElementHandler(field), field.getAnnotation(FindBy.class));
+            return CustomElementFrames.withFramePath(getFramePath(field, field.getType()),
+                    () -> getEnhancedObject(field.getType(), getElementHandler(field), field.getAnnotation(FindBy.class)));
         }
         //Else if it happens to be List<? extends CustomWebElement>
         else if(isDecoratableList(field)) {
@@ -101,7 +130,8 @@ public class CustomElementFieldDecorator implements FieldDecorator {
             Type listType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
             try {
             	Class<?> listTypeClass = Class.forName(listType.getTypeName());
-            	return getEnhancedListObject(field.getType(), getElementListHandler(field), field.getAnnotation(FindBy.class), listTypeClass, getElementHandler(field));
+            	return CustomElementFrames.withFramePath(getFramePath(field, listTypeClass),
+                        () -> getEnhancedListObject(field.getType(), getElementListHandler(field), field.getAnnotation(FindBy.class), listTypeClass, getElementHandler(field)));
             } catch(ClassNotFoundException e) {
             	return null;
             }
@@ -117,6 +147,18 @@ public class CustomElementFieldDecorator implements FieldDecorator {
         }
     }
 
+    /**
+     * Returns the frame path of the field: the frame of the field itself, else the frame of the custom webelement class.
+     *
+     * @param field        The field which should be decorated.
+     * @param elementClass The class of the custom webelement or of the list items.
+     * @return The frame path or null if neither declares a frame.
+     **/
+    private String[] getFramePath(Field field, Class<?> elementClass) {
+        String[] framePath = CustomElementFrames.getFramePath(field);
+        return framePath != null ? framePath : CustomElementFrames.getFramePath(elementClass);
+    }
+
     private boolean isDecoratableList(Field field) {
         if (!List.class.isAssignableFrom(field.getType())) {
           return false;
@@ -189,16 +231,40 @@ public class CustomElementFieldDecorator implements FieldDecorator {
      **/
     private Object getEnhancedObject(Class<?> clzz, MethodInterceptor methodInterceptor, FindBy locator) {
         Enhancer e = new Enhancer();
-        WebElementTransformer transformer = new WebElementTransformer();
 
         e.setSuperclass(clzz);
         e.setCallback(methodInterceptor);
 
-        return e.create(new Class[]{WebDriver.class, By.class}, new Object[]{webDriver, transformer.transformFindByToBy(locator)});
+        return e.create(new Class[]{WebDriver.class, By.class}, new Object[]{webDriver, toBy(locator)});
     }
 
+    /**
+     * Creates the List of custom webelements for a field. If the field accepts a CustomElementList, the items are
+     * enhanced on their first access with one Enhancer shared by all items. Otherwise the list class is enhanced and
+     * filled with all enhanced items right away.
+     *
+     * @param listClass                The type of the list field.
+     * @param methodInterceptor        The class which implements the callback method of the list.
+     * @param locator                  The locator which was used to identify the list items via the FindBy annotation.
+     * @param elementClass             The type of the list items.
+     * @param elementMethodInterceptor The class which implements the callback method of the list items.
+     **/
     @SuppressWarnings("unchecked")
 	private Object getEnhancedListObject(Class<?> listClass, MethodInterceptor methodInterceptor, FindBy locator, Class<?> elementClass, MethodInterceptor elementMethodInterceptor) {
+        if (listClass.isAssignableFrom(CustomElementList.class)) {
+            Enhancer elementEnhancer = new Enhancer();
+            elementEnhancer.setSuperclass(elementClass);
+            elementEnhancer.setCallback(elementMethodInterceptor);
+
+            return CustomElementBinders.createList(webDriver, toBy(locator),
+                    (itemDriver, itemBy, element, index) -> {
+                        // Enhancer.create() is not thread safe
+                        synchronized (elementEnhancer) {
+                            return (CustomWebElement) elementEnhancer.create(new Class<?>[]{WebDriver.class, By.class, WebElement.class, int.class}, new Object[]{itemDriver, itemBy, element, index});
+                        }
+                    });
+        }
+
         Enhancer listEnhancer = new Enhancer();
 
         if(listClass.isInterface()) {
@@ -209,9 +275,17 @@ public class CustomElementFieldDecorator implements FieldDecorator {
         listEnhancer.setInterfaces(new Class[] {List.class});
         listEnhancer.setCallback(methodInterceptor);
         List<CustomWebElement> customElements = (List<CustomWebElement>) listEnhancer.create();
-        WebElementTransformer transformer = new WebElementTransformer();
-        By by = transformer.transformFindByToBy(locator);
-        List<WebElement> elements = webDriver.findElements(by);
+        By by = toBy(locator);
+        ElementLocationEvent event = new ElementLocationEvent();
+        event.begin();
+        CustomElementFrames.switchTo(webDriver, CustomElementFrames.currentFramePath());
+        List<WebElement> elements = CustomElementBinders.findElements(webDriver, by);
+        if (event.shouldCommit()) {
+            event.elementClass = elementClass.getName();
+            event.locator = String.valueOf(by);
+            event.foundElements = elements.size();
+            event.commit();
+        }
         Iterator<WebElement> webElementIterator = elements.iterator();
         int elementIndex = 0;
         while(webElementIterator.hasNext()) {
@@ -225,4 +299,15 @@ public class CustomElementFieldDecorator implements FieldDecorator {
         }
         return customElements;
     }
+
+    /**
+     * Transforms the FindBy annotation of a field to its locator. XPath locators of fields within a list item are kept,
+     * since the rewritten css selector would not be equivalent below the item (see {@link CustomElementBinders#xpath}).
+     *
+     * @param locator The FindBy annotation of the field.
+     * @return The locator of the field.
+     **/
+    private By toBy(FindBy locator) {
+        return new WebElementTransformer().transformFindByToBy(locator, CustomElementBinders.currentSearchContext() == null);
+    }
 }
@@ -0,0 +1,394 @@
+package webelement.customElementsDecorator;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of the frame the webdriver of each session is switched to, so a custom webelement in a frame (see
+ * {@link Frame}) only switches the frame if the webdriver is not already there.
+ * <p>
+ * The frame of a webdriver is known after the first switch of a custom webelement. From then on a custom webelement
+ * without a frame switches back to the top level document. A nested custom webelement in another frame than the
+ * custom webelement which called it switches back to the frame of its caller when its method returns, so the caller
+ * can go on using its own WebElements. The frame becomes unknown again if something else
+ * switches the frame (e.g. a manual "switchTo().frame()") and if a custom webelement fails to find an element. The
+ * NavigationTrackingCommandExecutor (used by the WebDriverFactory) reports such switches and navigations automatically,
+ * without it call {@link FrameContext#reset()} after a manual switch.
+ **/
+public final class CustomElementFrames {
+
+    /**
+     * The frame path of the top level document.
+     **/
+    private static final String[] TOP_LEVEL = new String[0];
+
+    /**
+     * The frame path of the field which is currently decorated or bound, null if the field has no frame.
+     **/
+    private static final ThreadLocal<String[]> FIELD_FRAME_PATH = new ThreadLocal<>();
+
+    /**
+     * The frame path of the page object or custom webelement which is currently initialized, null if it has no frame.
+     **/
+    private static final ThreadLocal<String[]> OWNER_FRAME_PATH = new ThreadLocal<>();
+
+    /**
+     * True while a frame context switches the frame on this thread.
+     **/
+    private static final ThreadLocal<Boolean> SWITCHING = new ThreadLocal<>();
+
+    /**
+     * The frame context of each webdriver.
+     **/
+    private static final Map<WebDriver, FrameContext> CONTEXTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private CustomElementFrames() {
+    }
+
+    /**
+     * Returns the frame path declared by the Frame annotation of a field or class.
+     *
+     * @param annotatedElement The field or class.
+     * @return The frame path or null if there is no Frame annotation.
+     **/
+    public static String[] getFramePath(AnnotatedElement annotatedElement) {
+        Frame frame = annotatedElement.getAnnotation(Frame.class);
+        return frame != null ? frame.value() : null;
+    }
+
+    /**
+     * Creates the custom webelement(s) of a field in the given frame. Used by the generated binders and the
+     * CustomElementFieldDecorator.
+     *
+     * @param framePath The frame path of the field or null.
+     * @param supplier  Creates the custom webelement or the List of custom webelements.
+     * @param <T>       The type of the field.
+     * @return The created custom webelement(s).
+     **/
+    public static <T> T withFramePath(String[] framePath, Supplier<T> supplier) {
+        String[] previousFramePath = FIELD_FRAME_PATH.get();
+
+        FIELD_FRAME_PATH.set(framePath);
+        try {
+            return supplier.get();
+        } finally {
+            FIELD_FRAME_PATH.set(previousFramePath);
+        }
+    }
+
+    /**
+     * Initializes the fields of a page object or custom webelement, whose fields are located in the given frame by
+     * default.
+     *
+     * @param framePath   The frame path of the page object or custom webelement or null.
+     * @param initializer Initializes the fields.
+     **/
+    static void withOwnerFramePath(String[] framePath, Runnable initializer) {
+        String[] previousFieldFramePath = FIELD_FRAME_PATH.get();
+        String[] previousOwnerFramePath = OWNER_FRAME_PATH.get();
+
+        FIELD_FRAME_PATH.remove();
+        OWNER_FRAME_PATH.set(framePath);
+        try {
+            initializer.run();
+        } finally {
+            FIELD_FRAME_PATH.set(previousFieldFramePath);
+            OWNER_FRAME_PATH.set(previousOwnerFramePath);
+        }
+    }
+
+    /**
+     * Returns the frame path of a new custom webelement: the frame of its field, else the frame of its class, else the
+     * frame of the page object or custom webelement which contains it.
+     *
+     * @param elementClass The class of the custom webelement as written by the user.
+     * @return The frame path or null if the custom webelement has no frame.
+     **/
+    public static String[] resolveFramePath(Class<?> elementClass) {
+        String[] framePath = FIELD_FRAME_PATH.get();
+
+        if (framePath == null) {
+            framePath = getFramePath(elementClass);
+        }
+        return framePath != null ? framePath : OWNER_FRAME_PATH.get();
+    }
+
+    /**
+     * Returns the frame path of the field which is currently decorated or bound, or of its page object.
+     *
+     * @return The frame path or null if there is no frame.
+     **/
+    public static String[] currentFramePath() {
+        String[] framePath = FIELD_FRAME_PATH.get();
+        return framePath != null ? framePath : OWNER_FRAME_PATH.get();
+    }
+
+    /**
+     * Returns the frame context of a webdriver and creates it if necessary.
+     *
+     * @param webDriver The webdriver.
+     * @return The frame context of the webdriver.
+     **/
+    public static FrameContext of(WebDriver webDriver) {
+        synchronized (CONTEXTS) {
+            return CONTEXTS.computeIfAbsent(webDriver, key -> new FrameContext());
+        }
+    }
+
+    /**
+     * Switches the webdriver to the frame, if it is not already there.
+     *
+     * @param webDriver The webdriver.
+     * @param framePath The frame path or null if the element has no frame.
+     * @return Returns true if the switch was skipped because the webdriver is assumed to be in the frame already.
+     **/
+    public static boolean switchTo(WebDriver webDriver, String[] framePath) {
+        FrameContext context = framePath != null ? of(webDriver) : CONTEXTS.get(webDriver);
+        return context != null && context.switchTo(webDriver, framePath);
+    }
+
+    /**
+     * Switches the webdriver back to the frame of a calling custom webelement after a nested custom webelement in
+     * another frame returned.
+     *
+     * @param webDriver       The webdriver.
+     * @param framePath       The frame path of the nested custom webelement or null if it has no frame.
+     * @param callerFramePath The frame path of the calling custom webelement or null if it has no frame.
+     **/
+    public static void restore(WebDriver webDriver, String[] framePath, String[] callerFramePath) {
+        if (!Arrays.equals(framePath != null ? framePath : TOP_LEVEL, callerFramePath != null ? callerFramePath : TOP_LEVEL)) {
+            FrameContext context = CONTEXTS.get(webDriver);
+            if (context != null) {
+                context.restore(webDriver, callerFramePath);
+            }
+        }
+    }
+
+    /**
+     * Returns true while a frame context switches the frame on this thread.
+     *
+     * @return Returns true while a frame context switches the frame on this thread.
+     **/
+    public static boolean isSwitching() {
+        return Boolean.TRUE.equals(SWITCHING.get());
+    }
+
+    /**
+     * Updates the frame contexts of a session after a command which was not sent by a frame context changed the
+     * frame. Used by the NavigationTrackingCommandExecutor.
+     *
+     * @param sessionId The id of the session.
+     * @param topLevel  True if the webdriver is now in the top level document (e.g. after a navigation), false if the
+     *                  frame is unknown.
+     **/
+    public static void reset(String sessionId, boolean topLevel) {
+        synchronized (CONTEXTS) {
+            for (Map.Entry<WebDriver, FrameContext> entry : CONTEXTS.entrySet()) {
+                if (entry.getKey() instanceof RemoteWebDriver
+                        && String.valueOf(((RemoteWebDriver) entry.getKey()).getSessionId()).equals(sessionId)) {
+                    entry.getValue().reset(topLevel);
+                }
+            }
+        }
+    }
+
+    /**
+     * The frame the webdriver of a session is switched to. It does not reference the webdriver, which is the weak key
+     * of its entry in the contexts, so the context does not keep a quit webdriver alive.
+     **/
+    public static final class FrameContext {
+
+        /**
+         * The frame path the webdriver is switched to or null if it is unknown.
+         **/
+        private String[] currentFramePath;
+
+        /**
+         * The number of times the frame was switched.
+         **/
+        private final AtomicLong switches = new AtomicLong();
+
+        /**
+         * The number of commands which were sent to switch the frames.
+         **/
+        private final AtomicLong switchCommands = new AtomicLong();
+
+        /**
+         * The number of times a switch was skipped because the webdriver was already in the frame.
+         **/
+        private final AtomicLong skippedSwitches = new AtomicLong();
+
+        /**
+         * The number of times the frame became unknown.
+         **/
+        private final AtomicLong resets = new AtomicLong();
+
+        /**
+         * The number of switches back to the frame of a calling custom webelement.
+         **/
+        private final AtomicLong restores = new AtomicLong();
+
+        /**
+         * Constructor.
+         **/
+        FrameContext() {
+        }
+
+        /**
+         * Switches the webdriver to the frame, if it is not already there.
+         *
+         * @param webDriver The webdriver of this context.
+         * @param framePath The frame path or null if the element has no frame.
+         * @return Returns true if the switch was skipped because the webdriver is assumed to be in the frame already.
+         **/
+        synchronized boolean switchTo(WebDriver webDriver, String[] framePath) {
+            if (currentFramePath == null && framePath == null) {
+                // Nothing is known and nothing is needed, the frame is handled by the test itself
+                return false;
+            }
+
+            String[] targetFramePath = framePath != null ? framePath : TOP_LEVEL;
+            if (currentFramePath != null && Arrays.equals(currentFramePath, targetFramePath)) {
+                skippedSwitches.incrementAndGet();
+                return true;
+            }
+
+            // Only the missing frames are switched if the target frame is inside the current frame. The parent frame is
+            // used if the target frame contains the current frame and that needs less commands than starting from the top
+            boolean inside = currentFramePath != null && isPrefix(currentFramePath, targetFramePath);
+            int parents = currentFramePath != null && isPrefix(targetFramePath, currentFramePath)
+                    ? currentFramePath.length - targetFramePath.length : -1;
+            int start = inside ? currentFramePath.length : 0;
+            currentFramePath = null;
+            SWITCHING.set(Boolean.TRUE);
+            try {
+                if (parents > 0 && parents <= 1 + 2 * targetFramePath.length) {
+                    for (int i = 0; i < parents; i++) {
+                        webDriver.switchTo().parentFrame();
+                        switchCommands.incrementAndGet();
+                    }
+                    start = targetFramePath.length;
+                } else if (!inside) {
+                    webDriver.switchTo().defaultContent();
+                    switchCommands.incrementAndGet();
+                }
+                for (int i = start; i < targetFramePath.length; i++) {
+                    webDriver.switchTo().frame(webDriver.findElement(By.cssSelector(targetFramePath[i])));
+                    switchCommands.addAndGet(2);
+                }
+            } finally {
+                SWITCHING.remove();
+            }
+            currentFramePath = targetFramePath.clone();
+            switches.incrementAndGet();
+            return false;
+        }
+
+        /**
+         * Switches the webdriver back to the frame of a calling custom webelement, if it is not already there.
+         *
+         * @param webDriver The webdriver of this context.
+         * @param framePath The frame path of the calling custom webelement or null if it has no frame.
+         **/
+        synchronized void restore(WebDriver webDriver, String[] framePath) {
+            long previousSwitches = switches.get();
+
+            switchTo(webDriver, framePath);
+            if (switches.get() != previousSwitches) {
+                restores.incrementAndGet();
+            }
+        }
+
+        /**
+         * Marks the frame as unknown, so the next custom webelement with a frame switches it in any case. Call it
+         * after switching the frame manually.
+         **/
+        public void reset() {
+            reset(false);
+        }
+
+        /**
+         * Updates the frame after something else changed it.
+         *
+         * @param topLevel True if the webdriver is in the top level document, false if the frame is unknown.
+         **/
+        synchronized void reset(boolean topLevel) {
+            currentFramePath = topLevel ? TOP_LEVEL : null;
+            resets.incrementAndGet();
+        }
+
+        /**
+         * Returns the frame path the webdriver is switched to.
+         *
+         * @return The frame path or null if it is unknown.
+         **/
+        public synchronized String[] getCurrentFramePath() {
+            return currentFramePath != null ? currentFramePath.clone() : null;
+        }
+
+        /**
+         * Returns the number of times the frame was switched.
+         *
+         * @return The number of frame switches.
+         **/
+        public long getSwitches() {
+            return switches.get();
+        }
+
+        /**
+         * Returns the number of commands which were sent to switch the frames.
+         *
+         * @return The number of switch commands.
+         **/
+        public long getSwitchCommands() {
+            return switchCommands.get();
+        }
+
+        /**
+         * Returns the number of times a switch was skipped because the webdriver was already in the frame.
+         *
+         * @return The number of skipped switches.
+         **/
+        public long getSkippedSwitches() {
+            return skippedSwitches.get();
+        }
+
+        /**
+         * Returns the number of times the frame became unknown or was changed by something else.
+         *
+         * @return The number of resets.
+         **/
+        public long getResets() {
+            return resets.get();
+        }
+
+        /**
+         * Returns the number of times the frame was switched back to the frame of a calling custom webelement. These
+         * switches are included in the number of switches.
+         *
+         * @return The number of switches back to a calling custom webelement.
+         **/
+        public long getRestores() {
+            return restores.get();
+        }
+
+        @Override
+        public String toString() {
+            return "FrameContext{currentFramePath=" + Arrays.toString(getCurrentFramePath()) + ", switches=" + switches
+                    + ", switchCommands=" + switchCommands + ", skippedSwitches=" + skippedSwitches + ", resets=" + resets + ", restores=" + restores + "}";
+        }
+
+        private static boolean isPrefix(String[] prefix, String[] framePath) {
+            return prefix.length <= framePath.length && Arrays.equals(prefix, Arrays.copyOf(framePath, prefix.length));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package webelement.customElementsDecorator;
+
+import net.sf.cglib.proxy.Factory;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.diagnostics.CommandHistory;
+import webelement.diagnostics.ElementActionEvent;
+import webelement.diagnostics.TraceRecorder;
+import webelement.modules.PageReadiness;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Handles the method calls of custom webelements. All calls of the cglib enhanced custom webelements of the
+ * {@link CustomElementFieldDecorator} and of the generated {@link CustomElementProxy} classes end up here.
+ **/
+public final class CustomElementInvocations {
+
+    /**
+     * A method call of a custom webelement which can be proceeded.
+     **/
+    @FunctionalInterface
+    public interface Invocation {
+
+        /**
+         * Calls the original method of the custom webelement.
+         *
+         * @return The return value of the method.
+         * @throws Throwable Everything the original method throws.
+         **/
+        Object proceed() throws Throwable;
+    }
+
+    /**
+     * Methods of the CustomWebElement which only return state and are therefore not handled as an element action.
+     **/
+    private static final Set<String> ACCESSORS = new HashSet<>(Arrays.asList(
+            "getBy", "getWebDriver", "getWebElement", "getListIndex", "getFramePath", "transformer", "getLocatorType",
+            "getLocatorValue", "release", "isReleased", "getSearchContext", "getOwnerClass", "locatesChildrenRelatively", "invalidateChildren",
+            "toString", "hashCode", "equals"));
+
+    /**
+     * The custom webelement whose method is currently executed on this thread.
+     **/
+    private static final ThreadLocal<CustomWebElement> CURRENT_ELEMENT = new ThreadLocal<>();
+
+    private CustomElementInvocations() {
+    }
+
+    /**
+     * Handles a method call of a custom webelement.
+     *
+     * @param element    The custom webelement whose method was called.
+     * @param methodName The name of the called method.
+     * @param invocation Calls the original method.
+     * @return The return value of the original method.
+     **/
+    public static Object invoke(CustomWebElement element, String methodName, Invocation invocation) {
+        try {
+            return invokeMethod(element, methodName, invocation);
+        } catch (Throwable e) {
+            // The failure of the outermost method call carries the last driver commands (if recorded)
+            if (CURRENT_ELEMENT.get() == null) {
+                CommandHistory.attachTo(e, element.getWebDriver());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Handles a method call of a custom webelement: locates it, switches to its frame and records the call.
+     **/
+    private static Object invokeMethod(CustomWebElement element, String methodName, Invocation invocation) {
+        if (ACCESSORS.contains(methodName)) {
+            return proceed(invocation);
+        }
+        if (element.isReleased()) {
+            throw new StaleElementReferenceException("The custom webelement " + getElementClass(element.getClass()).getName()
+                    + " (" + element.getBy() + ") was released by its page scope. Initialize the page object again.");
+        }
+
+        // Nested custom webelements are initialized and the element is located on demand
+        element.initNestedElements();
+        // The outermost method call waits until the page in the frame of the custom webelement is idle (if enabled)
+        if (CURRENT_ELEMENT.get() == null && PageReadiness.isGated(element.getWebDriver())) {
+            CustomElementFrames.switchTo(element.getWebDriver(), element.getFramePath());
+            PageReadiness.awaitIfGated(element.getWebDriver());
+        }
+        element.resolveWebElement();
+
+        CustomWebElement previousElement = CURRENT_ELEMENT.get();
+        ElementActionEvent event = new ElementActionEvent();
+        TraceRecorder.Span span = TraceRecorder.span(TraceRecorder.ELEMENT, getElementClass(element.getClass()), methodName);
+        boolean failed = true;
+
+        CURRENT_ELEMENT.set(element);
+        event.begin();
+        // Switches the frame only if the webdriver is not already in the frame of the custom webelement
+        boolean assumedFrame = CustomElementFrames.switchTo(element.getWebDriver(), element.getFramePath());
+        try {
+            Object result = proceed(invocation);
+            failed = false;
+            return result;
+        } catch (NotFoundException | StaleElementReferenceException e) {
+            // The frame may have been changed without being noticed, so the next custom webelement switches again
+            if (assumedFrame) {
+                CustomElementFrames.of(element.getWebDriver()).reset();
+            }
+            // Cached children may be gone as well
+            if (e instanceof StaleElementReferenceException) {
+                element.invalidateChildren();
+            }
+            throw e;
+        } finally {
+            CURRENT_ELEMENT.set(previousElement);
+            // A nested call returns to the frame of the calling custom webelement, which may use its own WebElements next
+            if (previousElement != null) {
+                restoreCallerFrame(element, previousElement, failed);
+            }
+            span.close();
+            if (event.shouldCommit()) {
+                event.elementClass = getElementClass(element.getClass()).getName();
+                event.locator = String.valueOf(element.getBy());
+                event.action = methodName;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Switches back to the frame of the calling custom webelement after a nested call. A failed switch does not hide
+     * the failure of the call, the frame is unknown afterwards.
+     **/
+    private static void restoreCallerFrame(CustomWebElement element, CustomWebElement caller, boolean failed) {
+        try {
+            CustomElementFrames.restore(element.getWebDriver(), element.getFramePath(), caller.getFramePath());
+        } catch (WebDriverException e) {
+            CustomElementFrames.of(element.getWebDriver()).reset();
+            if (!failed) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the custom webelement whose method is currently executed on this thread.
+     *
+     * @return The custom webelement or null if no method of a custom webelement is executed.
+     **/
+    public static CustomWebElement currentElement() {
+        return CURRENT_ELEMENT.get();
+    }
+
+    /**
+     * Returns true if the object is an enhanced (cglib) or generated proxy, whose method calls are handled here.
+     *
+     * @param object The object which should be checked.
+     * @return Returns true if the object is an enhanced (cglib) or generated proxy, else false.
+     **/
+    public static boolean isProxy(Object object) {
+        return object instanceof Factory || object instanceof CustomElementProxy;
+    }
+
+    /**
+     * Returns the class of a custom webelement as written by the user. Enhanced (cglib) and generated proxy
+     * classes are replaced by their superclass.
+     *
+     * @param type The class of a (possibly enhanced) custom webelement or page object.
+     * @return The class as written by the user.
+     **/
+    public static Class<?> getElementClass(Class<?> type) {
+        Class<?> elementClass = type;
+
+        while (Factory.class.isAssignableFrom(elementClass) || CustomElementProxy.class.isAssignableFrom(elementClass)) {
+            elementClass = elementClass.getSuperclass();
+        }
+        return elementClass;
+    }
+
+    /**
+     * Proceeds an invocation. Checked exceptions are rethrown unchanged, because the calling method declares them.
+     **/
+    private static Object proceed(Invocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (Throwable throwable) {
+            throw CustomElementInvocations.<RuntimeException>sneakyThrow(throwable);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> T sneakyThrow(Throwable throwable) throws T {
+        throw (T) throwable;
+    }
+}
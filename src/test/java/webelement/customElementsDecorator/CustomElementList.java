@@ -0,0 +1,392 @@
+package webelement.customElementsDecorator;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.diagnostics.ElementLocationEvent;
+import webelement.modules.WebElementStates;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A List of custom webelements which creates its items only when they are used.
+ * <p>
+ * The list shares the webDriver, the locator and the item factory with all items and only keeps the located
+ * webElement of each item. The custom webelement of an item (including its nested custom webelements) is created on the
+ * first access of that item and reused afterwards. The list is read only, like the result of a findElements() call.
+ * The items of the lists created by the generated binders and the CustomElementFieldDecorator are located on the
+ * first access of the list, isPresent() and isAbsent() check the page without locating them.
+ * getFingerprint() notices changes of the list items in one script execution, so readIfChanged() only locates and
+ * reads them again if they changed.
+ * A list which was created while a page scope was open is released together with its items (see {@link PageScope}).
+ *
+ * @param <T> The type of the list items.
+ **/
+public class CustomElementList<T extends CustomWebElement> extends AbstractList<T> implements RandomAccess, PageScope.Member {
+
+    /**
+     * The webDriver used to interact with the webbrowser.
+     **/
+    private final WebDriver webDriver;
+
+    /**
+     * The locator which was used to locate the list items.
+     **/
+    private final By by;
+
+    /**
+     * The located webElement of each list item or null if the items have not been located yet or the list was released.
+     **/
+    private volatile WebElement[] webElements;
+
+    /**
+     * True as soon as the page scope released the list.
+     **/
+    private volatile boolean released;
+
+    /**
+     * The list item (or custom webelement nested in a list item) within which the list items are located or null
+     * if they are located in the whole page.
+     **/
+    private final CustomWebElement searchContext;
+
+    /**
+     * Creates the custom webelement of a list item.
+     **/
+    private final CustomElementBinders.ItemFactory<? extends T> itemFactory;
+
+    /**
+     * The already created custom webelements. An entry is null until the item is used.
+     **/
+    private volatile AtomicReferenceArray<T> items;
+
+    /**
+     * The frame path of the list items or null if they have no frame.
+     **/
+    private final String[] framePath;
+
+    /**
+     * The page scope of the list and its items or null if no page scope was open.
+     **/
+    private final PageScope scope;
+
+    /**
+     * The values read by readIfChanged(), by their key. They belong to the fingerprint in lastFingerprint.
+     **/
+    private final Map<String, Object> readCache = new ConcurrentHashMap<>();
+
+    /**
+     * The last fingerprint of the list items or null if it was not taken yet.
+     **/
+    private volatile String lastFingerprint;
+
+    /**
+     * Stands for a null value in the readCache.
+     **/
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver   The webDriver used to interact with the webbrowser.
+     * @param by          The locator which was used to locate the list items.
+     * @param webElements The located webElement of each list item.
+     * @param itemFactory Creates the custom webelement of a list item.
+     **/
+    public CustomElementList(WebDriver webDriver, By by, List<WebElement> webElements, CustomElementBinders.ItemFactory<? extends T> itemFactory) {
+        this(webDriver, by, webElements, itemFactory, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver   The webDriver used to interact with the webbrowser.
+     * @param by          The locator which was used to locate the list items.
+     * @param webElements The located webElement of each list item or null to locate them on the first access.
+     * @param itemFactory Creates the custom webelement of a list item.
+     * @param framePath   The frame path of the list items or null if they have no frame (see {@link Frame}).
+     **/
+    public CustomElementList(WebDriver webDriver, By by, List<WebElement> webElements, CustomElementBinders.ItemFactory<? extends T> itemFactory,
+                             String[] framePath) {
+        this.webDriver = webDriver;
+        this.by = by;
+        this.itemFactory = itemFactory;
+        this.framePath = framePath;
+        this.searchContext = CustomElementBinders.currentSearchContext();
+        if (webElements != null) {
+            setWebElements(webElements);
+        }
+        this.scope = PageScope.current();
+        if (scope != null) {
+            scope.register(this);
+        }
+    }
+
+    /**
+     * Returns the list item and creates its custom webelement if it is used for the first time.
+     *
+     * @param index The index of the list item.
+     * @return The custom webelement of the list item.
+     **/
+    @Override
+    public T get(int index) {
+        WebElement[] itemElements = getWebElements();
+        AtomicReferenceArray<T> createdItems = items;
+        T item = createdItems.get(index);
+
+        if (item == null) {
+            synchronized (createdItems) {
+                item = createdItems.get(index);
+                if (item == null) {
+                    int itemIndex = index;
+                    item = PageScope.callWithin(scope, () -> CustomElementFrames.withFramePath(framePath,
+                            () -> itemFactory.create(webDriver, by, itemElements[itemIndex], itemIndex)));
+                    createdItems.set(index, item);
+                }
+            }
+        }
+        return item;
+    }
+
+    @Override
+    public int size() {
+        return getWebElements().length;
+    }
+
+    /**
+     * Drops the located webElements and the created items, so they can be garbage collected even if this list is
+     * still referenced. Called by the page scope when the page is left. Further calls throw a
+     * StaleElementReferenceException.
+     **/
+    @Override
+    public void release() {
+        released = true;
+        webElements = null;
+        items = new AtomicReferenceArray<>(0);
+    }
+
+    @Override
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Returns true if at least one element on the page matches the locator of the list. Answers in one script
+     * execution without waiting for the implicit wait and without locating the list items.
+     *
+     * @return Returns true if the list has items on the page, else false.
+     **/
+    public boolean isPresent() {
+        if (searchContext != null) {
+            return searchContext.isChildPresent(by);
+        }
+        CustomElementFrames.switchTo(webDriver, framePath);
+        return WebElementStates.countPresent(webDriver, null, by) > 0;
+    }
+
+    /**
+     * Returns a hash of the subtrees of all elements which match the locator of the list in one script execution
+     * (see {@link WebElementStates}). When it differs from the last one, the list items are located again on their
+     * next access and the values cached by readIfChanged() are cleared.
+     *
+     * @return The fingerprint of the list items.
+     * @throws StaleElementReferenceException If the list was released by its page scope.
+     **/
+    public String getFingerprint() {
+        String fingerprint;
+
+        if (released) {
+            throw new StaleElementReferenceException("The list " + by + " was released by its page scope. Initialize the page object again.");
+        }
+        if (searchContext != null) {
+            fingerprint = searchContext.getChildrenFingerprint(by);
+        } else {
+            CustomElementFrames.switchTo(webDriver, framePath);
+            fingerprint = WebElementStates.fingerprint(webDriver, null, by, Integer.MAX_VALUE);
+        }
+        if (!fingerprint.equals(lastFingerprint)) {
+            synchronized (this) {
+                readCache.clear();
+                if (!released) {
+                    webElements = null;
+                }
+            }
+            // The search context caches the located children
+            if (searchContext != null) {
+                searchContext.invalidateChildren();
+            }
+            lastFingerprint = fingerprint;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns the value which was read with the same key as long as the list items did not change, else reads it
+     * again, e.g. "readIfChanged("titles", () -> titles.stream().map(WebLabel::getText).collect(Collectors.toList()))".
+     *
+     * @param key  The key of the value, unique within this list.
+     * @param read Reads the value.
+     * @param <V>  The type of the value.
+     * @return The cached or read value.
+     **/
+    @SuppressWarnings("unchecked")
+    public <V> V readIfChanged(String key, Supplier<V> read) {
+        String fingerprint = getFingerprint();
+        Object value = readCache.get(key);
+
+        if (value == null) {
+            value = read.get();
+            // The value is not cached if the list items changed while they were read
+            if (fingerprint.equals(lastFingerprint)) {
+                readCache.put(key, value == null ? NULL_VALUE : value);
+            }
+            return (V) value;
+        }
+        return value == NULL_VALUE ? null : (V) value;
+    }
+
+    /**
+     * Returns true if no element on the page matches the locator of the list. See isPresent().
+     *
+     * @return Returns true if the list has no items on the page, else false.
+     **/
+    public boolean isAbsent() {
+        return !isPresent();
+    }
+
+    /**
+     * Returns the locator which was used to locate the list items.
+     *
+     * @return The locator which was used to locate the list items.
+     **/
+    public By getBy() {
+        return by;
+    }
+
+    /**
+     * Returns the webElement of a list item without creating its custom webelement.
+     *
+     * @param index The index of the list item.
+     * @return The located webElement of the list item.
+     **/
+    public WebElement getWebElement(int index) {
+        return getWebElements()[index];
+    }
+
+    /**
+     * Returns the indices of the visible list items. Checks all items in a single script execution and does not create
+     * the custom webelements of the items.
+     *
+     * @return The indices of the visible list items.
+     **/
+    public List<Integer> visibleIndices() {
+        CustomElementFrames.switchTo(webDriver, framePath);
+        return WebElementStates.visibleIndices(webDriver, Arrays.asList(getWebElements()));
+    }
+
+    /**
+     * Returns the indices of the enabled list items. Checks all items in a single script execution and does not create
+     * the custom webelements of the items.
+     *
+     * @return The indices of the enabled list items.
+     **/
+    public List<Integer> enabledIndices() {
+        CustomElementFrames.switchTo(webDriver, framePath);
+        return WebElementStates.enabledIndices(webDriver, Arrays.asList(getWebElements()));
+    }
+
+    /**
+     * Returns the visible list items. Only the custom webelements of the visible items are created.
+     *
+     * @return The visible list items.
+     **/
+    public List<T> visibleItems() {
+        return getAll(visibleIndices());
+    }
+
+    /**
+     * Returns the enabled list items. Only the custom webelements of the enabled items are created.
+     *
+     * @return The enabled list items.
+     **/
+    public List<T> enabledItems() {
+        return getAll(enabledIndices());
+    }
+
+    /**
+     * Returns the located webElements.
+     *
+     * @return The located webElement of each list item.
+     * @throws StaleElementReferenceException If the list was released by its page scope.
+     **/
+    private WebElement[] getWebElements() {
+        WebElement[] currentWebElements = webElements;
+
+        if (released) {
+            throw new StaleElementReferenceException("The list " + by + " was released by its page scope. Initialize the page object again.");
+        }
+        if (currentWebElements == null) {
+            synchronized (this) {
+                if (webElements == null) {
+                    setWebElements(locateWebElements());
+                }
+                currentWebElements = webElements;
+            }
+        }
+        return currentWebElements;
+    }
+
+    /**
+     * Locates the webElements of the list items, within the search context if there is one.
+     *
+     * @return The located webElements.
+     **/
+    private List<WebElement> locateWebElements() {
+        ElementLocationEvent event = new ElementLocationEvent();
+
+        event.begin();
+        CustomElementFrames.switchTo(webDriver, framePath);
+        List<WebElement> elements = searchContext != null ? searchContext.findChildren(by) : webDriver.findElements(by);
+        if (event.shouldCommit()) {
+            event.locator = String.valueOf(by);
+            event.foundElements = elements.size();
+            event.commit();
+        }
+        return elements;
+    }
+
+    /**
+     * Sets the located webElements. The items array is assigned first, since webElements marks the list as located.
+     *
+     * @param located The located webElement of each list item.
+     **/
+    private void setWebElements(List<WebElement> located) {
+        items = new AtomicReferenceArray<>(located.size());
+        webElements = located.toArray(new WebElement[0]);
+    }
+
+    /**
+     * Returns the list items with the given indices.
+     *
+     * @param indices The indices of the list items.
+     * @return The list items.
+     **/
+    private List<T> getAll(List<Integer> indices) {
+        List<T> result = new ArrayList<>(indices.size());
+
+        for (int index : indices) {
+            result.add(get(index));
+        }
+        return result;
+    }
+}
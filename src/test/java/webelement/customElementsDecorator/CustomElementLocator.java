@@ -46,11 +46,13 @@ public class CustomElementLocator implements MethodInterceptor {
         // Configure a custom webelement (WebButton etc.)
         if (o instanceof CustomWebElement) {
             // Invokes the method of the original object
-            try {
-                return methodProxy.invokeSuper(o, objects);
-            } catch (InvocationTargetException e) {
-                throw e.getCause();
-            }
+            return CustomElementInvocations.invoke((CustomWebElement) o, method.getName(), () -> {
+                try {
+                    return methodProxy.invokeSuper(o, objects);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
         }
         // Configure a normal webelement
         // Should never be called in the current usecase because it gets handled in the CustomElementFieldDecorator class
@@ -0,0 +1,9 @@
+package webelement.customElementsDecorator;
+
+/**
+ * Marker for the subclasses of custom webelements which are generated at compile time by the
+ * CustomElementBinderProcessor. Like the cglib enhanced classes of the {@link CustomElementFieldDecorator}, they
+ * route all method calls through {@link CustomElementInvocations}.
+ **/
+public interface CustomElementProxy {
+}
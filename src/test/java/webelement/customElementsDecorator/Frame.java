@@ -0,0 +1,31 @@
+package webelement.customElementsDecorator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the (i)frame in which a custom webelement is located. Before a method of the custom webelement is called,
+ * the webdriver is switched to that frame, but only if it is not already there (see {@link CustomElementFrames}).
+ * <p>
+ * The annotation can be used on a FindBy annotated field, on the class of a custom webelement or on the class of a
+ * page object (for all of its fields). A field annotation wins over the annotation of the custom webelement class,
+ * which wins over the annotation of the page object or the enclosing custom webelement. Nested custom webelements
+ * are located in the frame of the custom webelement which contains them.
+ * <p>
+ * Example: "@Frame("#editor") @FindBy(id = "save") WebButton saveButton;" or "@Frame({"#outer", "iframe.inner"})".
+ * "@Frame({})" declares that an element is located in the top level document.
+ **/
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.FIELD})
+public @interface Frame {
+
+    /**
+     * The css selectors of the frame elements, from the top level document down to the frame of the element. Each
+     * selector is searched in the document of the previous frame.
+     *
+     * @return The css selectors of the frame elements.
+     **/
+    String[] value();
+}
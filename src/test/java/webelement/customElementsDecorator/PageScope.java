@@ -0,0 +1,394 @@
+package webelement.customElementsDecorator;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import webelement.diagnostics.PageScopeEvent;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The lifecycle of the custom webelements of a page.
+ * <p>
+ * Custom webelements (and Lists of custom webelements) which are created on a thread while a page scope is open
+ * register weakly in that scope. When the scope is closed or the webdriver navigates (reported by the
+ * NavigationTrackingCommandExecutor, which the WebDriverFactory adds to every driver), the registered custom
+ * webelements are released: they drop their located webElements, so page objects which are still referenced somewhere
+ * no longer keep the element handles of old pages reachable. A method call of a released custom webelement throws a
+ * StaleElementReferenceException, so the page object has to be initialized again.
+ * <p>
+ * Example: "try (PageScope scope = PageScope.open(webDriver)) { CustomElementBinders.initElements(webDriver, page); ... }"
+ * <p>
+ * Custom webelements which are created while no page scope is open are not registered and behave exactly like before.
+ **/
+public final class PageScope implements AutoCloseable {
+
+    /**
+     * A custom webelement or List of custom webelements which can be released by its page scope.
+     **/
+    public interface Member {
+
+        /**
+         * Drops the located webElement(s). Further method calls throw a StaleElementReferenceException.
+         **/
+        void release();
+
+        /**
+         * Returns true if the member was released by its page scope.
+         *
+         * @return Returns true if the member was released, else false.
+         **/
+        boolean isReleased();
+    }
+
+    /**
+     * The innermost open page scope of this thread.
+     **/
+    private static final ThreadLocal<PageScope> CURRENT = new ThreadLocal<>();
+
+    /**
+     * All open page scopes, used to find the scopes of a session after a navigation.
+     **/
+    private static final Set<PageScope> OPEN_SCOPES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The webDriver of the page.
+     **/
+    private final WebDriver webDriver;
+
+    /**
+     * The name of the page scope, e.g. the class of the page object.
+     **/
+    private final String name;
+
+    /**
+     * The page scope which was open on this thread before this one.
+     **/
+    private final PageScope previous;
+
+    /**
+     * The weakly registered members. A member which is no longer reachable is removed via the reference queue.
+     **/
+    private final Set<Reference<Member>> members = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Receives the references of the members which were garbage collected.
+     **/
+    private final ReferenceQueue<Member> collectedMembers = new ReferenceQueue<>();
+
+    /**
+     * The number of members which were registered.
+     **/
+    private final AtomicLong registeredElements = new AtomicLong();
+
+    /**
+     * The number of members which were released.
+     **/
+    private final AtomicLong releasedElements = new AtomicLong();
+
+    /**
+     * The number of navigations which released the members.
+     **/
+    private final AtomicLong navigations = new AtomicLong();
+
+    /**
+     * Records the lifetime of the page scope.
+     **/
+    private final PageScopeEvent event = new PageScopeEvent();
+
+    /**
+     * True as soon as the page scope was closed.
+     **/
+    private volatile boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver The webDriver of the page.
+     * @param name      The name of the page scope.
+     **/
+    private PageScope(WebDriver webDriver, String name) {
+        this.webDriver = webDriver;
+        this.name = name;
+        this.previous = current();
+    }
+
+    /**
+     * Opens a page scope on this thread. Close it (e.g. via try-with-resources) when the page is left.
+     *
+     * @param webDriver The webDriver of the page.
+     * @return The open page scope.
+     **/
+    public static PageScope open(WebDriver webDriver) {
+        return open(webDriver, null);
+    }
+
+    /**
+     * Opens a page scope on this thread. Close it (e.g. via try-with-resources) when the page is left.
+     *
+     * @param webDriver The webDriver of the page.
+     * @param name      The name of the page scope used in the diagnostics, e.g. the class of the page object.
+     * @return The open page scope.
+     **/
+    public static PageScope open(WebDriver webDriver, String name) {
+        PageScope scope = new PageScope(webDriver, name);
+
+        scope.event.begin();
+        CURRENT.set(scope);
+        OPEN_SCOPES.add(scope);
+        return scope;
+    }
+
+    /**
+     * Returns the innermost open page scope of this thread. Scopes which were closed out of order (e.g. an outer
+     * scope before its inner scope or from another thread) are skipped.
+     *
+     * @return The page scope or null if no page scope is open.
+     **/
+    public static PageScope current() {
+        return skipClosed(CURRENT.get());
+    }
+
+    /**
+     * Returns the scope or, if it is closed, the innermost open scope which was open before it.
+     *
+     * @param scope The page scope or null.
+     * @return The open page scope or null if there is none.
+     **/
+    private static PageScope skipClosed(PageScope scope) {
+        while (scope != null && scope.closed) {
+            scope = scope.previous;
+        }
+        return scope;
+    }
+
+    /**
+     * Creates something (e.g. a list item) in the given page scope instead of the current one, so custom webelements
+     * which are created on demand belong to the page scope of their owner.
+     *
+     * @param scope    The page scope or null if the created custom webelements should not be registered.
+     * @param supplier Creates the custom webelement(s).
+     * @param <T>      The type of the created object.
+     * @return The created object.
+     **/
+    public static <T> T callWithin(PageScope scope, Supplier<T> supplier) {
+        PageScope previousScope = CURRENT.get();
+
+        if (previousScope == scope) {
+            return supplier.get();
+        }
+        CURRENT.set(scope);
+        try {
+            return supplier.get();
+        } finally {
+            CURRENT.set(previousScope);
+        }
+    }
+
+    /**
+     * Initializes something (e.g. nested custom webelements) in the given page scope instead of the current one.
+     *
+     * @param scope    The page scope or null if the created custom webelements should not be registered.
+     * @param runnable Creates the custom webelement(s).
+     **/
+    public static void runWithin(PageScope scope, Runnable runnable) {
+        callWithin(scope, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Releases the members of the open page scopes of a session after the webdriver navigated. The page scopes stay
+     * open, so the page objects of the new page register in them. Used by the NavigationTrackingCommandExecutor.
+     *
+     * @param sessionId The id of the session.
+     **/
+    public static void navigated(String sessionId) {
+        for (PageScope scope : OPEN_SCOPES) {
+            if (scope.webDriver instanceof RemoteWebDriver
+                    && String.valueOf(((RemoteWebDriver) scope.webDriver).getSessionId()).equals(sessionId)) {
+                scope.navigations.incrementAndGet();
+                scope.releaseMembers();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of page scopes which are open on any thread.
+     *
+     * @return The number of open page scopes.
+     **/
+    public static int getOpenScopeCount() {
+        return OPEN_SCOPES.size();
+    }
+
+    /**
+     * Returns the number of registered members of all open page scopes which were neither released nor garbage
+     * collected yet.
+     *
+     * @return The number of live custom webelements and Lists of custom webelements.
+     **/
+    public static int getLiveElementCount() {
+        int liveElements = 0;
+
+        for (PageScope scope : OPEN_SCOPES) {
+            liveElements += scope.getLiveElements();
+        }
+        return liveElements;
+    }
+
+    /**
+     * Registers a custom webelement or List of custom webelements weakly. Members registered after the page scope
+     * was closed are released right away.
+     *
+     * @param member The custom webelement or List of custom webelements.
+     **/
+    public void register(Member member) {
+        expungeCollectedMembers();
+        registeredElements.incrementAndGet();
+        members.add(new WeakReference<>(member, collectedMembers));
+        if (closed) {
+            releaseMembers();
+        }
+    }
+
+    /**
+     * Releases all members, e.g. after the page changed without a navigation command (a link was clicked). The page
+     * scope stays open.
+     **/
+    public void releaseMembers() {
+        for (Reference<Member> reference : members) {
+            if (members.remove(reference)) {
+                Member member = reference.get();
+                if (member != null && !member.isReleased()) {
+                    member.release();
+                    releasedElements.incrementAndGet();
+                }
+            }
+        }
+        expungeCollectedMembers();
+    }
+
+    /**
+     * Releases all members and closes the page scope. The innermost page scope which was open before and is still
+     * open becomes the current one again.
+     **/
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        int liveElements = getLiveElements();
+
+        closed = true;
+        OPEN_SCOPES.remove(this);
+        releaseMembers();
+        if (CURRENT.get() == this) {
+            CURRENT.set(skipClosed(previous));
+        }
+        if (event.shouldCommit()) {
+            event.scope = name;
+            event.registeredElements = registeredElements.get();
+            event.liveElements = liveElements;
+            event.releasedElements = releasedElements.get();
+            event.navigations = navigations.get();
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the webDriver of the page.
+     *
+     * @return The webDriver of the page.
+     **/
+    public WebDriver getWebDriver() {
+        return webDriver;
+    }
+
+    /**
+     * Returns the name of the page scope.
+     *
+     * @return The name or null if none was given.
+     **/
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns true if the page scope was closed.
+     *
+     * @return Returns true if the page scope was closed, else false.
+     **/
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the number of members which are neither released nor garbage collected yet.
+     *
+     * @return The number of live custom webelements and Lists of custom webelements.
+     **/
+    public int getLiveElements() {
+        int liveElements = 0;
+
+        expungeCollectedMembers();
+        for (Reference<Member> reference : members) {
+            Member member = reference.get();
+            if (member != null && !member.isReleased()) {
+                liveElements++;
+            }
+        }
+        return liveElements;
+    }
+
+    /**
+     * Returns the number of members which were registered.
+     *
+     * @return The number of registered custom webelements and Lists of custom webelements.
+     **/
+    public long getRegisteredElements() {
+        return registeredElements.get();
+    }
+
+    /**
+     * Returns the number of members which were released.
+     *
+     * @return The number of released custom webelements and Lists of custom webelements.
+     **/
+    public long getReleasedElements() {
+        return releasedElements.get();
+    }
+
+    /**
+     * Returns the number of navigations which released the members.
+     *
+     * @return The number of navigations.
+     **/
+    public long getNavigations() {
+        return navigations.get();
+    }
+
+    /**
+     * Removes the references of the garbage collected members.
+     **/
+    private void expungeCollectedMembers() {
+        Reference<? extends Member> reference;
+
+        while ((reference = collectedMembers.poll()) != null) {
+            members.remove(reference);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PageScope{name=" + name + ", closed=" + closed + ", liveElements=" + getLiveElements()
+                + ", registeredElements=" + registeredElements + ", releasedElements=" + releasedElements
+                + ", navigations=" + navigations + "}";
+    }
+}
@@ -0,0 +1,360 @@
+package webelement.diagnostics;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.SessionId;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.customElementsDecorator.CustomElementInvocations;
+import webelement.driver.CommandExecutorLayer;
+import webelement.driver.WebDriverFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A command executor which keeps the last commands of its session (command, locator and class of the custom webelement,
+ * duration and outcome) in a fixed-size ring buffer. Unlike logging, it costs nothing but one small entry per command
+ * until a failure needs the history: a failing method call of a custom webelement and the {@link CommandHistoryRule}
+ * attach the history to the exception, so it is part of the test report.
+ * <p>
+ * Add it as a layer of the {@link WebDriverFactory}, e.g. ".withCommandExecutorLayer(CommandHistory::new)".
+ **/
+public class CommandHistory implements CommandExecutorLayer {
+
+    /**
+     * The default number of kept commands.
+     **/
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The outcome of a successful command.
+     **/
+    private static final String OK = "ok";
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    /**
+     * The command executor which actually executes the commands.
+     **/
+    private final CommandExecutor delegate;
+
+    /**
+     * The ring buffer. The entry of a command is written to the slot "sequence & mask" and replaces the oldest entry.
+     **/
+    private final AtomicReferenceArray<Entry> entries;
+
+    /**
+     * The mask of the slots, the capacity is a power of two.
+     **/
+    private final int mask;
+
+    /**
+     * The sequence number of the next command.
+     **/
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The id of the session, known after its first command.
+     **/
+    private volatile SessionId sessionId;
+
+    /**
+     * Constructor. Keeps the last {@link #DEFAULT_CAPACITY} commands.
+     *
+     * @param delegate The command executor which actually executes the commands.
+     **/
+    public CommandHistory(CommandExecutor delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param delegate The command executor which actually executes the commands.
+     * @param capacity The number of kept commands, rounded up to a power of two.
+     **/
+    public CommandHistory(CommandExecutor delegate, int capacity) {
+        if (capacity < 1 || capacity > 1 << 20) {
+            throw new IllegalArgumentException("The capacity must be between 1 and " + (1 << 20) + ": " + capacity);
+        }
+        int slots = 1;
+
+        while (slots < capacity) {
+            slots <<= 1;
+        }
+        this.delegate = delegate;
+        this.entries = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Returns the command history of a driver.
+     *
+     * @param webDriver The driver.
+     * @return The command history or null if the driver does not use this layer.
+     **/
+    public static CommandHistory of(WebDriver webDriver) {
+        return WebDriverFactory.findCommandExecutor(webDriver, CommandHistory.class);
+    }
+
+    /**
+     * Attaches the command history of a driver to a failure as suppressed {@link Dump}, unless the failure has one
+     * already or the driver does not use this layer.
+     *
+     * @param failure   The failure, e.g. of a test or of a method call of a custom webelement.
+     * @param webDriver The driver which executed the commands.
+     **/
+    public static void attachTo(Throwable failure, WebDriver webDriver) {
+        CommandHistory history = webDriver != null ? of(webDriver) : null;
+
+        if (history == null || failure == null) {
+            return;
+        }
+        for (Throwable suppressed : failure.getSuppressed()) {
+            if (suppressed instanceof Dump) {
+                return;
+            }
+        }
+        failure.addSuppressed(new Dump(history.dump()));
+    }
+
+    @Override
+    public CommandExecutor getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        Object outcome = OK;
+
+        try {
+            Response response = delegate.execute(command);
+            if (response.getStatus() != null && response.getStatus() != 0) {
+                outcome = response.getStatus();
+            }
+            return response;
+        } catch (IOException | RuntimeException | Error e) {
+            outcome = e;
+            throw e;
+        } finally {
+            record(command, startMillis, System.nanoTime() - startNanos, outcome);
+        }
+    }
+
+    /**
+     * Writes the entry of a command to the ring buffer without locking.
+     **/
+    private void record(Command command, long startMillis, long durationNanos, Object outcome) {
+        CustomWebElement element = CustomElementInvocations.currentElement();
+        long commandSequence = sequence.getAndIncrement();
+
+        if (sessionId == null && command.getSessionId() != null) {
+            sessionId = command.getSessionId();
+        }
+        // Only references are kept, they are formatted when the history is dumped
+        entries.lazySet((int) (commandSequence & mask), new Entry(commandSequence, command.getName(),
+                element != null ? element.getClass() : null, element != null ? element.getBy() : null,
+                startMillis, durationNanos, outcome));
+    }
+
+    /**
+     * Returns the kept commands, from the oldest to the latest one.
+     *
+     * @return The kept commands.
+     **/
+    public List<Entry> getEntries() {
+        long end = sequence.get();
+        long start = Math.max(0, end - entries.length());
+        List<Entry> kept = new ArrayList<>((int) (end - start));
+
+        for (long i = start; i < end; i++) {
+            Entry entry = entries.get((int) (i & mask));
+            // Skips slots which are still being written or were overwritten meanwhile
+            if (entry != null && entry.sequence == i) {
+                kept.add(entry);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Returns the number of executed commands, including the ones which are not kept anymore.
+     *
+     * @return The number of executed commands.
+     **/
+    public long getCommandCount() {
+        return sequence.get();
+    }
+
+    /**
+     * Returns the number of kept commands.
+     *
+     * @return The capacity of the ring buffer.
+     **/
+    public int getCapacity() {
+        return entries.length();
+    }
+
+    /**
+     * Formats the kept commands, one per line.
+     *
+     * @return The kept commands.
+     **/
+    public String dump() {
+        List<Entry> kept = getEntries();
+        StringBuilder builder = new StringBuilder("The last ").append(kept.size()).append(" of ")
+                .append(getCommandCount()).append(" commands of session ").append(sessionId).append(':');
+
+        for (Entry entry : kept) {
+            builder.append(System.lineSeparator()).append("    ").append(entry);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "CommandHistory{session=" + sessionId + ", commands=" + getCommandCount() + ", capacity=" + getCapacity() + "}";
+    }
+
+    /**
+     * An executed command.
+     **/
+    public static final class Entry {
+
+        private final long sequence;
+        private final String command;
+        private final Class<?> elementClass;
+        private final By locator;
+        private final long startMillis;
+        private final long durationNanos;
+
+        /**
+         * The outcome: "ok", the status of the failed response or the thrown exception.
+         **/
+        private final Object outcome;
+
+        /**
+         * Constructor.
+         **/
+        Entry(long sequence, String command, Class<?> elementClass, By locator, long startMillis, long durationNanos, Object outcome) {
+            this.sequence = sequence;
+            this.command = command;
+            this.elementClass = elementClass;
+            this.locator = locator;
+            this.startMillis = startMillis;
+            this.durationNanos = durationNanos;
+            this.outcome = outcome;
+        }
+
+        /**
+         * Returns the sequence number of the command within its session.
+         *
+         * @return The sequence number, starting at 0.
+         **/
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns the name of the command, e.g. "clickElement".
+         *
+         * @return The name of the command.
+         **/
+        public String getCommand() {
+            return command;
+        }
+
+        /**
+         * Returns the class of the custom webelement which sent the command.
+         *
+         * @return The class of the custom webelement or null if the command was not sent by a custom webelement.
+         **/
+        public Class<?> getElementClass() {
+            return elementClass != null ? CustomElementInvocations.getElementClass(elementClass) : null;
+        }
+
+        /**
+         * Returns the locator of the custom webelement which sent the command.
+         *
+         * @return The locator or null if the command was not sent by a custom webelement.
+         **/
+        public By getLocator() {
+            return locator;
+        }
+
+        /**
+         * Returns the time at which the command was started.
+         *
+         * @return The start of the command in milliseconds since the epoch.
+         **/
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /**
+         * Returns the duration of the command.
+         *
+         * @return The duration in nanoseconds.
+         **/
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Returns true if the command failed.
+         *
+         * @return Returns true if the response has an error status or the command threw an exception, else false.
+         **/
+        public boolean isFailed() {
+            return outcome != OK;
+        }
+
+        /**
+         * Returns the outcome of the command.
+         *
+         * @return "ok", "status 7" for a failed response or the exception class and message.
+         **/
+        public String getOutcome() {
+            if (outcome instanceof Throwable) {
+                return outcome.getClass().getSimpleName() + ": " + String.valueOf(((Throwable) outcome).getMessage()).split("\\R", 2)[0];
+            }
+            return outcome == OK ? OK : "status " + outcome;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + sequence + " " + TIME_FORMAT.format(Instant.ofEpochMilli(startMillis)) + " " + command
+                    + (elementClass != null ? " [" + getElementClass().getSimpleName() + " " + locator + "]" : "")
+                    + " " + TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms " + getOutcome();
+        }
+    }
+
+    /**
+     * The command history attached to a failure. It has no stack trace, its message is the history.
+     **/
+    public static final class Dump extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor.
+         *
+         * @param history The formatted command history.
+         **/
+        Dump(String history) {
+            super(history, null, false, false);
+        }
+    }
+}
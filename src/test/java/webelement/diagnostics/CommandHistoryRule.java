@@ -0,0 +1,33 @@
+package webelement.diagnostics;
+
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+import org.openqa.selenium.WebDriver;
+
+import java.util.function.Supplier;
+
+/**
+ * A JUnit rule which attaches the {@link CommandHistory} of the driver to the failure of a test, e.g.
+ * "@Rule public final CommandHistoryRule commandHistory = new CommandHistoryRule(() -> webDriver);".
+ **/
+public class CommandHistoryRule extends TestWatcher {
+
+    /**
+     * Returns the driver of the current test.
+     **/
+    private final Supplier<WebDriver> webDriver;
+
+    /**
+     * Constructor.
+     *
+     * @param webDriver Returns the driver of the current test, which may be created after the rule.
+     **/
+    public CommandHistoryRule(Supplier<WebDriver> webDriver) {
+        this.webDriver = webDriver;
+    }
+
+    @Override
+    protected void failed(Throwable e, Description description) {
+        CommandHistory.attachTo(e, webDriver.get());
+    }
+}
@@ -0,0 +1,30 @@
+package webelement.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for the initialisation of a page object or custom webelement (page or module) or of a single field.
+ **/
+@Name("webelement.Decoration")
+@Label("Decoration")
+@Category({"Selenium", "Custom Elements"})
+@Description("Initialisation of the FindBy annotated fields of a page object or custom webelement")
+@StackTrace(false)
+public class DecorationEvent extends Event {
+
+    @Label("Page Class")
+    public String pageClass;
+
+    @Label("Field")
+    @Description("The decorated field or null if the whole page or module was initialized")
+    public String field;
+
+    @Label("Generated Binder")
+    @Description("True if a generated binder was used instead of the CustomElementFieldDecorator")
+    public boolean binder;
+}
@@ -0,0 +1,36 @@
+package webelement.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a command which was sent to the webdriver.
+ **/
+@Name("webelement.DriverCommand")
+@Label("Driver Command")
+@Category({"Selenium", "Driver"})
+@Description("A command which was sent to the webdriver")
+@StackTrace(false)
+public class DriverCommandEvent extends Event {
+
+    @Label("Command")
+    public String command;
+
+    @Label("Session")
+    public String session;
+
+    @Label("Element Class")
+    @Description("The custom webelement which triggered the command or null")
+    public String elementClass;
+
+    @Label("Locator")
+    @Description("The locator of the custom webelement which triggered the command or null")
+    public String locator;
+
+    @Label("Failed")
+    public boolean failed;
+}
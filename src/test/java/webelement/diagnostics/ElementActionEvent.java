@@ -0,0 +1,31 @@
+package webelement.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a method call on a custom webelement (e.g. a click() on a WebButton).
+ **/
+@Name("webelement.ElementAction")
+@Label("Element Action")
+@Category({"Selenium", "Custom Elements"})
+@Description("A method call on a custom webelement")
+@StackTrace(false)
+public class ElementActionEvent extends Event {
+
+    @Label("Element Class")
+    public String elementClass;
+
+    @Label("Locator")
+    public String locator;
+
+    @Label("Action")
+    public String action;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,28 @@
+package webelement.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for locating the webelement(s) of a custom webelement or a List of custom webelements.
+ **/
+@Name("webelement.ElementLocation")
+@Label("Element Location")
+@Category({"Selenium", "Custom Elements"})
+@Description("Locating the webelement(s) of a custom webelement")
+@StackTrace(false)
+public class ElementLocationEvent extends Event {
+
+    @Label("Element Class")
+    public String elementClass;
+
+    @Label("Locator")
+    public String locator;
+
+    @Label("Found Elements")
+    public int foundElements;
+}
@@ -0,0 +1,64 @@
+package webelement.diagnostics;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.Response;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.customElementsDecorator.CustomElementInvocations;
+import webelement.driver.CommandExecutorLayer;
+
+import java.io.IOException;
+
+/**
+ * A command executor which emits a {@link DriverCommandEvent} for each command of the webdriver.
+ * <p>
+ * Wrap the command executor of a RemoteWebDriver with it, e.g.
+ * "new RemoteWebDriver(new JfrCommandExecutor(new HttpCommandExecutor(url)), capabilities)".
+ **/
+public class JfrCommandExecutor implements CommandExecutorLayer {
+
+    /**
+     * The command executor which actually executes the commands.
+     **/
+    private final CommandExecutor delegate;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate The command executor which actually executes the commands.
+     **/
+    public JfrCommandExecutor(CommandExecutor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public CommandExecutor getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        DriverCommandEvent event = new DriverCommandEvent();
+        boolean failed = true;
+
+        event.begin();
+        try {
+            Response response = delegate.execute(command);
+            failed = response.getStatus() != null && response.getStatus() != 0;
+            return response;
+        } finally {
+            if (event.shouldCommit()) {
+                CustomWebElement element = CustomElementInvocations.currentElement();
+
+                event.command = command.getName();
+                event.session = String.valueOf(command.getSessionId());
+                if (element != null) {
+                    event.elementClass = CustomElementInvocations.getElementClass(element.getClass()).getName();
+                    event.locator = String.valueOf(element.getBy());
+                }
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+}
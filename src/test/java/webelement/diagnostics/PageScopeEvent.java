@@ -0,0 +1,37 @@
+package webelement.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for the lifetime of a page scope, from its opening until it was closed.
+ **/
+@Name("webelement.PageScope")
+@Label("Page Scope")
+@Category({"Selenium", "Custom Elements"})
+@Description("Lifetime of a page scope and the custom webelements which were registered in it")
+@StackTrace(false)
+public class PageScopeEvent extends Event {
+
+    @Label("Scope")
+    @Description("The name of the page scope or null if none was given")
+    public String scope;
+
+    @Label("Registered Elements")
+    public long registeredElements;
+
+    @Label("Live Elements")
+    @Description("The registered custom webelements which were neither released nor garbage collected when the scope was closed")
+    public int liveElements;
+
+    @Label("Released Elements")
+    public long releasedElements;
+
+    @Label("Navigations")
+    @Description("The navigations which released the registered custom webelements")
+    public long navigations;
+}
@@ -0,0 +1,363 @@
+package webelement.diagnostics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records a timeline of nested spans (test steps, method calls of custom webelements, decorations and driver commands)
+ * and writes it in the Chrome trace-event format, which can be opened in chrome://tracing or https://ui.perfetto.dev.
+ * <p>
+ * The spans are buffered in memory per thread while recording, so recording costs no I/O and no lock contention.
+ * While nothing is recorded a span costs a single volatile read. Test steps are recorded with
+ * "try (TraceRecorder.Span step = TraceRecorder.span(TraceRecorder.STEP, "Search")) { ... }", the driver commands
+ * with the {@link TracingCommandExecutor}.
+ **/
+public final class TraceRecorder {
+
+    /**
+     * The categories of the spans.
+     **/
+    public static final String STEP = "step";
+    public static final String ELEMENT = "element";
+    public static final String DECORATION = "decoration";
+    public static final String COMMAND = "command";
+
+    /**
+     * The maximal number of buffered spans, further spans are dropped.
+     **/
+    private static final int MAX_SPANS = 1_000_000;
+
+    /**
+     * A span which records nothing, returned while nothing is recorded.
+     **/
+    private static final Span NO_SPAN = new Span(null, null, null);
+
+    /**
+     * The buffers of all threads which recorded spans.
+     **/
+    private static final Queue<ThreadBuffer> BUFFERS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The buffer of each thread.
+     **/
+    private static final ThreadLocal<ThreadBuffer> BUFFER = new ThreadLocal<>();
+
+    /**
+     * The number of buffered spans.
+     **/
+    private static final AtomicInteger SPAN_COUNT = new AtomicInteger();
+
+    /**
+     * The number of dropped spans.
+     **/
+    private static final AtomicInteger DROPPED_SPANS = new AtomicInteger();
+
+    /**
+     * The current recording or null if nothing is recorded.
+     **/
+    private static volatile Recording recording;
+
+    private TraceRecorder() {
+    }
+
+    /**
+     * Starts a new recording. The spans of a previous recording are discarded.
+     **/
+    public static synchronized void start() {
+        BUFFERS.clear();
+        SPAN_COUNT.set(0);
+        DROPPED_SPANS.set(0);
+        recording = new Recording();
+    }
+
+    /**
+     * Returns true if spans are recorded.
+     *
+     * @return Returns true if spans are recorded, else false.
+     **/
+    public static boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Starts a span on the current thread, which ends when it is closed. Spans of the same thread must be closed in
+     * the reverse order of their start, e.g. with try-with-resources.
+     *
+     * @param category The category of the span, e.g. STEP.
+     * @param name     The name of the span.
+     * @return The span, which records nothing while nothing is recorded.
+     **/
+    public static Span span(String category, String name) {
+        Recording currentRecording = recording;
+        return currentRecording == null ? NO_SPAN : new Span(currentRecording, category, name);
+    }
+
+    /**
+     * Starts a span named "SimpleClassName.member" on the current thread. The name is only built while recording.
+     *
+     * @param category The category of the span, e.g. ELEMENT.
+     * @param owner    The class of the page object or custom webelement.
+     * @param member   The name of the method or field or null to name the span after the class.
+     * @return The span, which records nothing while nothing is recorded.
+     **/
+    public static Span span(String category, Class<?> owner, String member) {
+        Recording currentRecording = recording;
+        if (currentRecording == null) {
+            return NO_SPAN;
+        }
+        return new Span(currentRecording, category, member == null ? owner.getSimpleName() : owner.getSimpleName() + "." + member);
+    }
+
+    /**
+     * Stops the recording and writes the recorded spans to the file.
+     *
+     * @param file The file, usually with the extension ".json".
+     * @throws UncheckedIOException If the file could not be written.
+     * @throws IllegalStateException If nothing was recorded.
+     **/
+    public static synchronized void stop(Path file) {
+        Recording stoppedRecording = recording;
+
+        if (stoppedRecording == null) {
+            throw new IllegalStateException("The trace recorder was not started");
+        }
+        recording = null;
+
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.write("{\"displayTimeUnit\":\"ms\",\"otherData\":{\"droppedSpans\":" + DROPPED_SPANS.get() + "},\"traceEvents\":[\n");
+            writer.write("{\"ph\":\"M\",\"pid\":1,\"tid\":0,\"name\":\"process_name\",\"args\":{\"name\":\"webelement\"}}");
+            for (ThreadBuffer buffer : BUFFERS) {
+                if (buffer.recording != stoppedRecording) {
+                    continue;
+                }
+                writer.write(",\n{\"ph\":\"M\",\"pid\":1,\"tid\":" + buffer.threadId + ",\"name\":\"thread_name\",\"args\":{\"name\":"
+                        + quote(buffer.threadName) + "}}");
+                for (Span span : buffer.getSpans()) {
+                    writer.write(",\n");
+                    writeSpan(writer, span, buffer.threadId, stoppedRecording.startNanos);
+                }
+            }
+            writer.write("\n]}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write the trace to " + file, e);
+        }
+    }
+
+    /**
+     * Returns the number of buffered spans of the current recording.
+     *
+     * @return The number of buffered spans.
+     **/
+    public static int getSpanCount() {
+        return SPAN_COUNT.get();
+    }
+
+    /**
+     * Returns the number of spans which were dropped, because the buffer was full.
+     *
+     * @return The number of dropped spans.
+     **/
+    public static int getDroppedSpans() {
+        return DROPPED_SPANS.get();
+    }
+
+    /**
+     * Buffers a finished span in the buffer of the current thread.
+     *
+     * @param span The finished span.
+     **/
+    private static void record(Span span) {
+        if (SPAN_COUNT.incrementAndGet() > MAX_SPANS) {
+            SPAN_COUNT.decrementAndGet();
+            DROPPED_SPANS.incrementAndGet();
+            return;
+        }
+
+        ThreadBuffer buffer = BUFFER.get();
+        if (buffer == null || buffer.recording != span.recording) {
+            buffer = new ThreadBuffer(span.recording, Thread.currentThread());
+            BUFFER.set(buffer);
+            BUFFERS.add(buffer);
+        }
+        buffer.add(span);
+    }
+
+    /**
+     * Writes a span as complete event ("ph": "X") with its start and duration in microseconds.
+     **/
+    private static void writeSpan(Writer writer, Span span, long threadId, long startNanos) throws IOException {
+        writer.write("{\"ph\":\"X\",\"pid\":1,\"tid\":");
+        writer.write(Long.toString(threadId));
+        writer.write(",\"cat\":");
+        writer.write(quote(span.category));
+        writer.write(",\"name\":");
+        writer.write(quote(span.name));
+        writer.write(",\"ts\":");
+        writer.write(micros(span.startNanos - startNanos));
+        writer.write(",\"dur\":");
+        writer.write(micros(span.endNanos - span.startNanos));
+        if (span.args != null) {
+            writer.write(",\"args\":{");
+            for (int i = 0; i < span.args.size(); i += 2) {
+                writer.write((i > 0 ? "," : "") + quote(span.args.get(i)) + ":" + quote(span.args.get(i + 1)));
+            }
+            writer.write("}");
+        }
+        writer.write("}");
+    }
+
+    /**
+     * Formats nanoseconds as microseconds with three decimals.
+     **/
+    private static String micros(long nanos) {
+        return (nanos / 1000) + "." + String.format("%03d", nanos % 1000);
+    }
+
+    /**
+     * Quotes a text as JSON string.
+     **/
+    private static String quote(String text) {
+        if (text == null) {
+            return "null";
+        }
+
+        StringBuilder builder = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character == '"' || character == '\\') {
+                builder.append('\\').append(character);
+            } else if (character < 0x20) {
+                builder.append(String.format("\\u%04x", (int) character));
+            } else {
+                builder.append(character);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * A span of the timeline.
+     **/
+    public static final class Span implements AutoCloseable {
+
+        /**
+         * The recording of the span or null if it records nothing.
+         **/
+        private final Recording recording;
+
+        private final String category;
+        private final String name;
+        private final long startNanos;
+        private long endNanos;
+
+        /**
+         * The arguments as key, value, key, value, ... or null if there are none.
+         **/
+        private List<String> args;
+
+        /**
+         * Constructor. Starts the span.
+         *
+         * @param recording The recording of the span or null if it records nothing.
+         * @param category  The category of the span.
+         * @param name      The name of the span.
+         **/
+        private Span(Recording recording, String category, String name) {
+            this.recording = recording;
+            this.category = category;
+            this.name = name;
+            this.startNanos = recording != null ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Adds an argument, which the trace viewer shows for the span.
+         *
+         * @param key   The name of the argument.
+         * @param value The value of the argument.
+         * @return This span.
+         **/
+        public Span arg(String key, Object value) {
+            if (recording != null) {
+                if (args == null) {
+                    args = new ArrayList<>(4);
+                }
+                args.add(key);
+                args.add(String.valueOf(value));
+            }
+            return this;
+        }
+
+        /**
+         * Ends the span.
+         **/
+        @Override
+        public void close() {
+            if (recording != null && endNanos == 0 && recording == TraceRecorder.recording) {
+                endNanos = System.nanoTime();
+                record(this);
+            }
+        }
+    }
+
+    /**
+     * A started recording.
+     **/
+    private static final class Recording {
+
+        /**
+         * The time at which the recording was started, the start of the timeline.
+         **/
+        private final long startNanos = System.nanoTime();
+    }
+
+    /**
+     * The finished spans of a thread.
+     **/
+    private static final class ThreadBuffer {
+
+        private final Recording recording;
+        private final long threadId;
+        private final String threadName;
+        private final List<Span> spans = new ArrayList<>();
+
+        /**
+         * Constructor.
+         *
+         * @param recording The recording of the spans.
+         * @param thread    The thread of the spans.
+         **/
+        ThreadBuffer(Recording recording, Thread thread) {
+            this.recording = recording;
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+        }
+
+        /**
+         * Adds a finished span. Only the own thread adds spans, the lock is only contended while the trace is written.
+         *
+         * @param span The finished span.
+         **/
+        synchronized void add(Span span) {
+            spans.add(span);
+        }
+
+        /**
+         * Returns a copy of the finished spans.
+         *
+         * @return The finished spans.
+         **/
+        synchronized List<Span> getSpans() {
+            return new ArrayList<>(spans);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package webelement.diagnostics;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.Response;
+import webelement.customElements.superElements.CustomWebElement;
+import webelement.customElementsDecorator.CustomElementInvocations;
+import webelement.driver.CommandExecutorLayer;
+
+import java.io.IOException;
+
+/**
+ * A command executor which records a span of the {@link TraceRecorder} for each command of the webdriver, nested in
+ * the span of the custom webelement which sent it.
+ * <p>
+ * Add it as a layer of the {@link webelement.driver.WebDriverFactory}, e.g.
+ * ".withCommandExecutorLayer(TracingCommandExecutor::new)".
+ **/
+public class TracingCommandExecutor implements CommandExecutorLayer {
+
+    /**
+     * The command executor which actually executes the commands.
+     **/
+    private final CommandExecutor delegate;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate The command executor which actually executes the commands.
+     **/
+    public TracingCommandExecutor(CommandExecutor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public CommandExecutor getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        if (!TraceRecorder.isRecording()) {
+            return delegate.execute(command);
+        }
+
+        try (TraceRecorder.Span span = TraceRecorder.span(TraceRecorder.COMMAND, command.getName())) {
+            CustomWebElement element = CustomElementInvocations.currentElement();
+
+            span.arg("session", command.getSessionId());
+            if (element != null) {
+                span.arg("locator", element.getBy());
+            }
+            Response response = delegate.execute(command);
+            if (response.getStatus() != null && response.getStatus() != 0) {
+                span.arg("status", response.getStatus());
+            }
+            return response;
+        }
+    }
+}
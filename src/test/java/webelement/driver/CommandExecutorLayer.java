@@ -0,0 +1,18 @@
+package webelement.driver;
+
+import org.openqa.selenium.remote.CommandExecutor;
+
+/**
+ * A command executor which wraps another command executor, e.g. to record, cache or schedule the commands.
+ * <p>
+ * Use {@link WebDriverFactory#findCommandExecutor(org.openqa.selenium.WebDriver, Class)} to get a layer of a driver.
+ **/
+public interface CommandExecutorLayer extends CommandExecutor {
+
+    /**
+     * Returns the wrapped command executor.
+     *
+     * @return The wrapped command executor.
+     **/
+    CommandExecutor getDelegate();
+}
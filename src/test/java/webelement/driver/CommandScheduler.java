@@ -0,0 +1,448 @@
+package webelement.driver;
+
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Limits the number of commands which are executed at the same time by several drivers, e.g. test threads which
+ * share a small selenium grid. There is a global limit and a limit per node (a grid node, a selenium server or any
+ * other name the drivers are grouped by).
+ * <p>
+ * A command which exceeds a limit waits until a running command finished instead of failing. Waiting interactive
+ * commands (e.g. clicks, keys or navigation) are started before other commands and bulk reads (e.g. texts,
+ * attributes or screenshots) are started last. A command which waited longer than the aging time is started like an
+ * interactive command, so bulk reads are not starved.
+ * <p>
+ * Add it to the drivers of a {@link WebDriverFactory} with ".withCommandExecutorLayer(scheduler.layer("node-1"))".
+ **/
+public class CommandScheduler {
+
+    /**
+     * The priority of a command. Commands with a lower ordinal are started first.
+     **/
+    public enum Priority {
+        INTERACTIVE,
+        NORMAL,
+        BULK
+    }
+
+    /**
+     * The commands which interact with the page.
+     **/
+    private static final Set<String> INTERACTIVE_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            DriverCommand.GET,
+            DriverCommand.GO_BACK,
+            DriverCommand.GO_FORWARD,
+            DriverCommand.REFRESH,
+            DriverCommand.CLICK_ELEMENT,
+            DriverCommand.SEND_KEYS_TO_ELEMENT,
+            DriverCommand.CLEAR_ELEMENT,
+            DriverCommand.SUBMIT_ELEMENT,
+            DriverCommand.ACTIONS,
+            DriverCommand.SWITCH_TO_FRAME,
+            DriverCommand.SWITCH_TO_PARENT_FRAME,
+            DriverCommand.SWITCH_TO_WINDOW)));
+
+    /**
+     * The commands which read (potentially a lot of) data.
+     **/
+    private static final Set<String> BULK_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            DriverCommand.FIND_ELEMENTS,
+            DriverCommand.FIND_CHILD_ELEMENTS,
+            DriverCommand.GET_ELEMENT_TEXT,
+            DriverCommand.GET_ELEMENT_ATTRIBUTE,
+            DriverCommand.GET_ELEMENT_PROPERTY,
+            DriverCommand.GET_ELEMENT_VALUE_OF_CSS_PROPERTY,
+            DriverCommand.GET_ELEMENT_RECT,
+            DriverCommand.GET_PAGE_SOURCE,
+            DriverCommand.SCREENSHOT,
+            DriverCommand.ELEMENT_SCREENSHOT)));
+
+    /**
+     * The maximal number of commands which are executed at the same time.
+     **/
+    private final int maxInFlight;
+
+    /**
+     * The maximal number of commands of a node which are executed at the same time.
+     **/
+    private final int maxInFlightPerNode;
+
+    /**
+     * The time after which a waiting command is started like an interactive command.
+     **/
+    private final long agingNanos;
+
+    /**
+     * Guards the waiting commands and the counts of the executed commands.
+     **/
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The waiting commands in the order they arrived.
+     **/
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    /**
+     * The number of executed commands of each node.
+     **/
+    private final Map<String, Integer> inFlightByNode = new HashMap<>();
+
+    /**
+     * The number of executed commands.
+     **/
+    private int inFlight;
+
+    /**
+     * The maximal number of waiting commands.
+     **/
+    private int maxQueueDepth;
+
+    /**
+     * The number of scheduled commands by priority.
+     **/
+    private final AtomicLongArray scheduledCommands = new AtomicLongArray(Priority.values().length);
+
+    /**
+     * The number of commands which had to wait by priority.
+     **/
+    private final AtomicLongArray waitingCommands = new AtomicLongArray(Priority.values().length);
+
+    /**
+     * The summed up wait time of the commands by priority.
+     **/
+    private final AtomicLongArray waitNanos = new AtomicLongArray(Priority.values().length);
+
+    /**
+     * The maximal wait time of a command by priority.
+     **/
+    private final AtomicLongArray maxWaitNanos = new AtomicLongArray(Priority.values().length);
+
+    /**
+     * Constructor. Waiting commands are started like interactive commands after one second.
+     *
+     * @param maxInFlight        The maximal number of commands which are executed at the same time.
+     * @param maxInFlightPerNode The maximal number of commands of a node which are executed at the same time.
+     **/
+    public CommandScheduler(int maxInFlight, int maxInFlightPerNode) {
+        this(maxInFlight, maxInFlightPerNode, Duration.ofSeconds(1));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxInFlight        The maximal number of commands which are executed at the same time.
+     * @param maxInFlightPerNode The maximal number of commands of a node which are executed at the same time.
+     * @param aging              The time after which a waiting command is started like an interactive command.
+     **/
+    public CommandScheduler(int maxInFlight, int maxInFlightPerNode, Duration aging) {
+        if (maxInFlight < 1 || maxInFlightPerNode < 1) {
+            throw new IllegalArgumentException("The limits must be at least 1, but were " + maxInFlight + " and " + maxInFlightPerNode);
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerNode = maxInFlightPerNode;
+        this.agingNanos = aging.toNanos();
+    }
+
+    /**
+     * Returns a command executor layer which schedules the commands of a driver of the given node.
+     *
+     * @param node The name of the node the driver runs on.
+     * @return The command executor layer.
+     **/
+    public UnaryOperator<CommandExecutor> layer(String node) {
+        return delegate -> new SchedulingCommandExecutor(delegate, this, node);
+    }
+
+    /**
+     * Returns the priority of a command.
+     *
+     * @param commandName The name of the command, see {@link DriverCommand}.
+     * @return The priority of the command.
+     **/
+    public static Priority getPriority(String commandName) {
+        if (INTERACTIVE_COMMANDS.contains(commandName)) {
+            return Priority.INTERACTIVE;
+        }
+        return BULK_COMMANDS.contains(commandName) ? Priority.BULK : Priority.NORMAL;
+    }
+
+    /**
+     * Waits until a command of the node may be executed. Every call must be followed by a call of release().
+     *
+     * @param node     The name of the node.
+     * @param priority The priority of the command.
+     * @throws InterruptedIOException If the thread was interrupted while waiting.
+     **/
+    void acquire(String node, Priority priority) throws InterruptedIOException {
+        Waiter waiter = new Waiter(node, priority, lock.newCondition());
+
+        lock.lock();
+        try {
+            waiters.add(waiter);
+            dispatch();
+            // Only the commands which remain after the dispatch wait
+            maxQueueDepth = Math.max(maxQueueDepth, waiters.size());
+            while (!waiter.granted) {
+                waiter.condition.await();
+            }
+        } catch (InterruptedException e) {
+            if (waiter.granted) {
+                release(node);
+            } else {
+                waiters.remove(waiter);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a command slot of node " + node);
+        } finally {
+            lock.unlock();
+        }
+
+        long waitedNanos = waiter.grantedNanos - waiter.arrivedNanos;
+        scheduledCommands.incrementAndGet(priority.ordinal());
+        if (waiter.waited) {
+            waitingCommands.incrementAndGet(priority.ordinal());
+            waitNanos.addAndGet(priority.ordinal(), waitedNanos);
+            maxWaitNanos.accumulateAndGet(priority.ordinal(), waitedNanos, Math::max);
+        }
+    }
+
+    /**
+     * Tells that a command of the node finished and starts the next waiting commands.
+     *
+     * @param node The name of the node.
+     **/
+    void release(String node) {
+        lock.lock();
+        try {
+            inFlight--;
+            int nodeInFlight = inFlightByNode.get(node) - 1;
+            if (nodeInFlight == 0) {
+                inFlightByNode.remove(node);
+            } else {
+                inFlightByNode.put(node, nodeInFlight);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts the waiting commands with the highest priority as long as the limits allow it. A command of a node which
+     * reached its limit does not block the commands of other nodes. Must be called with the lock held.
+     **/
+    private void dispatch() {
+        while (inFlight < maxInFlight && !waiters.isEmpty()) {
+            long now = System.nanoTime();
+            Waiter next = null;
+            int nextRank = Integer.MAX_VALUE;
+
+            // The waiters are in the order they arrived, so the first one of the best rank is the oldest one
+            for (Waiter waiter : waiters) {
+                int rank = now - waiter.arrivedNanos >= agingNanos ? 0 : waiter.priority.ordinal();
+                if (rank < nextRank && inFlightByNode.getOrDefault(waiter.node, 0) < maxInFlightPerNode) {
+                    next = waiter;
+                    nextRank = rank;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+
+            waiters.remove(next);
+            inFlight++;
+            inFlightByNode.merge(next.node, 1, Integer::sum);
+            next.granted = true;
+            next.grantedNanos = now;
+            next.condition.signal();
+        }
+        // The waiters which remain after the dispatch had to wait
+        for (Waiter waiter : waiters) {
+            waiter.waited = true;
+        }
+    }
+
+    /**
+     * Returns the number of waiting commands.
+     *
+     * @return The number of waiting commands.
+     **/
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximal number of commands which were waiting at the same time.
+     *
+     * @return The maximal number of waiting commands.
+     **/
+    public int getMaxQueueDepth() {
+        lock.lock();
+        try {
+            return maxQueueDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of commands which are executed at the moment.
+     *
+     * @return The number of executed commands.
+     **/
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of commands of a node which are executed at the moment.
+     *
+     * @param node The name of the node.
+     * @return The number of executed commands of the node.
+     **/
+    public int getInFlight(String node) {
+        lock.lock();
+        try {
+            return inFlightByNode.getOrDefault(node, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of scheduled commands of a priority.
+     *
+     * @param priority The priority of the commands.
+     * @return The number of scheduled commands.
+     **/
+    public long getScheduledCommands(Priority priority) {
+        return scheduledCommands.get(priority.ordinal());
+    }
+
+    /**
+     * Returns the number of commands of a priority which had to wait.
+     *
+     * @param priority The priority of the commands.
+     * @return The number of waiting commands.
+     **/
+    public long getWaitingCommands(Priority priority) {
+        return waitingCommands.get(priority.ordinal());
+    }
+
+    /**
+     * Returns the summed up wait time of the commands of a priority.
+     *
+     * @param priority The priority of the commands.
+     * @return The summed up wait time in nanoseconds.
+     **/
+    public long getWaitNanos(Priority priority) {
+        return waitNanos.get(priority.ordinal());
+    }
+
+    /**
+     * Returns the maximal wait time of a command of a priority.
+     *
+     * @param priority The priority of the commands.
+     * @return The maximal wait time in nanoseconds.
+     **/
+    public long getMaxWaitNanos(Priority priority) {
+        return maxWaitNanos.get(priority.ordinal());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("CommandScheduler{inFlight=").append(getInFlight())
+                .append(", queueDepth=").append(getQueueDepth())
+                .append(", maxQueueDepth=").append(getMaxQueueDepth());
+
+        for (Priority priority : Priority.values()) {
+            long waiting = getWaitingCommands(priority);
+            builder.append(", ").append(priority).append("={scheduled=").append(getScheduledCommands(priority))
+                    .append(", waiting=").append(waiting)
+                    .append(", averageWaitMillis=").append(waiting == 0 ? 0 : getWaitNanos(priority) / waiting / 1_000_000)
+                    .append(", maxWaitMillis=").append(getMaxWaitNanos(priority) / 1_000_000)
+                    .append("}");
+        }
+        return builder.append("}").toString();
+    }
+
+    /**
+     * A command which waits for its start.
+     **/
+    private static class Waiter {
+
+        /**
+         * The name of the node of the command.
+         **/
+        private final String node;
+
+        /**
+         * The priority of the command.
+         **/
+        private final Priority priority;
+
+        /**
+         * Signalled when the command may be executed.
+         **/
+        private final Condition condition;
+
+        /**
+         * The time at which the command arrived.
+         **/
+        private final long arrivedNanos = System.nanoTime();
+
+        /**
+         * The time at which the command was allowed to be executed.
+         **/
+        private long grantedNanos;
+
+        /**
+         * True if the command may be executed.
+         **/
+        private boolean granted;
+
+        /**
+         * True if the command could not be executed immediately.
+         **/
+        private boolean waited;
+
+        /**
+         * Constructor.
+         *
+         * @param node      The name of the node of the command.
+         * @param priority  The priority of the command.
+         * @param condition Signalled when the command may be executed.
+         **/
+        Waiter(String node, Priority priority, Condition condition) {
+            this.node = node;
+            this.priority = priority;
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package webelement.driver;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import webelement.driver.CommandScheduler.Priority;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the limits, the priorities and the aging of the CommandScheduler. The commands are simulated by threads which
+ * acquire a command slot, the drivers by the SimulatedCommandExecutor.
+ **/
+public class CommandSchedulerTest {
+
+    /**
+     * The threads started by a test.
+     **/
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * Stops the threads which still wait for a command slot.
+     **/
+    @After
+    public void tearDown() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(10000);
+        }
+    }
+
+    /**
+     * A command waits while the global limit is reached, even if its own node has a free slot.
+     **/
+    @Test
+    public void waitsForTheGlobalLimit() throws Exception {
+        CommandScheduler scheduler = new CommandScheduler(2, 2);
+
+        scheduler.acquire("node-1", Priority.NORMAL);
+        scheduler.acquire("node-2", Priority.NORMAL);
+        Thread command = acquire(scheduler, "node-3", Priority.NORMAL, new CopyOnWriteArrayList<>());
+        awaitQueueDepth(scheduler, 1);
+
+        assertEquals(2, scheduler.getInFlight());
+        assertTrue(command.isAlive());
+
+        scheduler.release("node-1");
+        command.join(10000);
+
+        assertFalse(command.isAlive());
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(1, scheduler.getMaxQueueDepth());
+        assertEquals(1, scheduler.getInFlight("node-3"));
+        assertEquals(3, scheduler.getScheduledCommands(Priority.NORMAL));
+        assertEquals(1, scheduler.getWaitingCommands(Priority.NORMAL));
+        assertTrue(scheduler.getMaxWaitNanos(Priority.NORMAL) > 0);
+    }
+
+    /**
+     * A command waits while its node reached the limit per node, the commands of other nodes are started meanwhile.
+     **/
+    @Test
+    public void waitsForTheLimitOfTheNode() throws Exception {
+        CommandScheduler scheduler = new CommandScheduler(4, 1);
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        scheduler.acquire("node-1", Priority.NORMAL);
+        Thread command = acquire(scheduler, "node-1", Priority.INTERACTIVE, started);
+        awaitQueueDepth(scheduler, 1);
+
+        // The waiting command of node-1 does not block node-2
+        scheduler.acquire("node-2", Priority.BULK);
+        assertEquals(2, scheduler.getInFlight());
+        assertEquals(1, scheduler.getQueueDepth());
+        assertTrue(started.isEmpty());
+
+        scheduler.release("node-1");
+        command.join(10000);
+
+        assertEquals(Arrays.asList("node-1 INTERACTIVE"), started);
+        assertEquals(1, scheduler.getInFlight("node-1"));
+        assertEquals(1, scheduler.getInFlight("node-2"));
+    }
+
+    /**
+     * Waiting interactive commands are started first and bulk reads last, commands of the same priority in the order
+     * they arrived.
+     **/
+    @Test
+    public void startsTheCommandsByPriority() throws Exception {
+        CommandScheduler scheduler = new CommandScheduler(1, 1, Duration.ofMinutes(1));
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        scheduler.acquire("node-1", Priority.NORMAL);
+        List<Thread> commands = Arrays.asList(
+                acquireAndRelease(scheduler, "node-1", Priority.BULK, started, 1),
+                acquireAndRelease(scheduler, "node-1", Priority.NORMAL, started, 2),
+                acquireAndRelease(scheduler, "node-1", Priority.INTERACTIVE, started, 3),
+                acquireAndRelease(scheduler, "node-1", Priority.NORMAL, started, 4));
+
+        scheduler.release("node-1");
+        for (Thread command : commands) {
+            command.join(10000);
+        }
+
+        assertEquals(Arrays.asList("node-1 INTERACTIVE", "node-1 NORMAL", "node-1 NORMAL", "node-1 BULK"), started);
+        assertEquals(1, scheduler.getWaitingCommands(Priority.BULK));
+        assertEquals(1, scheduler.getWaitingCommands(Priority.INTERACTIVE));
+        assertEquals(0, scheduler.getInFlight());
+    }
+
+    /**
+     * A bulk read which waited longer than the aging time is started before an interactive command which arrived later.
+     **/
+    @Test
+    public void startsAgedCommandsFirst() throws Exception {
+        CommandScheduler scheduler = new CommandScheduler(1, 1, Duration.ofMillis(50));
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        scheduler.acquire("node-1", Priority.NORMAL);
+        Thread bulk = acquireAndRelease(scheduler, "node-1", Priority.BULK, started, 1);
+        Thread.sleep(100);
+        Thread interactive = acquireAndRelease(scheduler, "node-1", Priority.INTERACTIVE, started, 2);
+
+        scheduler.release("node-1");
+        bulk.join(10000);
+        interactive.join(10000);
+
+        assertEquals(Arrays.asList("node-1 BULK", "node-1 INTERACTIVE"), started);
+        assertTrue(scheduler.getMaxWaitNanos(Priority.BULK) >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    /**
+     * A waiting command which is interrupted leaves the queue and does not take a slot.
+     **/
+    @Test
+    public void removesInterruptedCommands() throws Exception {
+        CommandScheduler scheduler = new CommandScheduler(1, 1);
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        scheduler.acquire("node-1", Priority.NORMAL);
+        Thread command = acquire(scheduler, "node-1", Priority.NORMAL, started);
+        awaitQueueDepth(scheduler, 1);
+
+        command.interrupt();
+        command.join(10000);
+
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(1, scheduler.getInFlight());
+        assertTrue(started.isEmpty());
+    }
+
+    /**
+     * The layer schedules the commands of a driver by their priority and releases their slots after each command.
+     **/
+    @Test
+    public void schedulesTheCommandsOfADriver() {
+        CommandScheduler scheduler = new CommandScheduler(4, 2);
+        SimulatedCommandExecutor simulation = new SimulatedCommandExecutor()
+                .withElements(By.id("b_results"), 1)
+                .withChildElements(By.cssSelector("li"), 10);
+        RemoteWebDriver webDriver = new RemoteWebDriver(scheduler.layer("node-1")
+                .apply(new NavigationTrackingCommandExecutor(simulation)), new DesiredCapabilities());
+
+        webDriver.get("https://www.bing.com/");
+        assertEquals(10, webDriver.findElement(By.id("b_results")).findElements(By.cssSelector("li")).size());
+        webDriver.quit();
+
+        assertEquals(1, scheduler.getScheduledCommands(Priority.INTERACTIVE));
+        assertEquals(1, scheduler.getScheduledCommands(Priority.BULK));
+        // New session, find element and quit
+        assertEquals(3, scheduler.getScheduledCommands(Priority.NORMAL));
+        assertEquals(0, scheduler.getInFlight());
+        assertEquals(0, scheduler.getMaxQueueDepth());
+    }
+
+    /**
+     * The priorities of the commands.
+     **/
+    @Test
+    public void prioritizesTheCommands() {
+        assertEquals(Priority.INTERACTIVE, CommandScheduler.getPriority(DriverCommand.CLICK_ELEMENT));
+        assertEquals(Priority.INTERACTIVE, CommandScheduler.getPriority(DriverCommand.GET));
+        assertEquals(Priority.NORMAL, CommandScheduler.getPriority(DriverCommand.FIND_ELEMENT));
+        assertEquals(Priority.NORMAL, CommandScheduler.getPriority(DriverCommand.EXECUTE_SCRIPT));
+        assertEquals(Priority.BULK, CommandScheduler.getPriority(DriverCommand.GET_ELEMENT_TEXT));
+        assertEquals(Priority.BULK, CommandScheduler.getPriority(DriverCommand.SCREENSHOT));
+    }
+
+    /**
+     * The limits must be positive.
+     **/
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroLimits() {
+        new CommandScheduler(1, 0);
+    }
+
+    /**
+     * Starts a command which acquires a slot and keeps it.
+     **/
+    private Thread acquire(CommandScheduler scheduler, String node, Priority priority, List<String> started) {
+        return start(() -> {
+            scheduler.acquire(node, priority);
+            started.add(node + " " + priority);
+        });
+    }
+
+    /**
+     * Starts a command which acquires a slot and releases it right away, after the given number of commands wait.
+     **/
+    private Thread acquireAndRelease(CommandScheduler scheduler, String node, Priority priority, List<String> started,
+                                     int queueDepth) throws InterruptedException {
+        Thread thread = start(() -> {
+            scheduler.acquire(node, priority);
+            started.add(node + " " + priority);
+            scheduler.release(node);
+        });
+        awaitQueueDepth(scheduler, queueDepth);
+        return thread;
+    }
+
+    /**
+     * Waits until the given number of commands wait for a slot.
+     **/
+    private static void awaitQueueDepth(CommandScheduler scheduler, int queueDepth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (scheduler.getQueueDepth() < queueDepth) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Only " + scheduler.getQueueDepth() + " of " + queueDepth + " commands are waiting");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * A command which is executed on its own thread.
+     **/
+    private interface Command {
+        void execute() throws InterruptedIOException;
+    }
+
+    /**
+     * Starts a thread which executes the command. An interrupted command ends quietly.
+     **/
+    private Thread start(Command command) {
+        Thread thread = new Thread(() -> {
+            try {
+                command.execute();
+            } catch (InterruptedIOException e) {
+                // Interrupted while waiting for a slot
+            }
+        });
+        threads.add(thread);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,321 @@
+package webelement.driver;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the metrics of the HTTP connections which are used by a {@link PooledHttpClientFactory}.
+ * <p>
+ * The metrics of a connection are kept as long as the connection is alive. The totals are kept for the whole lifetime
+ * of the factory.
+ **/
+public class ConnectionMetrics implements EventListener.Factory {
+
+    /**
+     * The metrics of each alive connection. The okhttp connections use identity equality.
+     **/
+    private final Map<Connection, ConnectionStatistics> connections = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The number of opened connections.
+     **/
+    private final AtomicLong openedConnections = new AtomicLong();
+
+    /**
+     * The number of calls which reused an already opened connection.
+     **/
+    private final AtomicLong reusedConnectionCalls = new AtomicLong();
+
+    /**
+     * The number of calls.
+     **/
+    private final AtomicLong calls = new AtomicLong();
+
+    /**
+     * The number of failed calls.
+     **/
+    private final AtomicLong failedCalls = new AtomicLong();
+
+    /**
+     * The number of calls which had to wait for a free connection slot.
+     **/
+    private final AtomicLong waitingCalls = new AtomicLong();
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener();
+    }
+
+    /**
+     * Counts a call which had to wait, because all connection slots were in use.
+     **/
+    void countWaitingCall() {
+        waitingCalls.incrementAndGet();
+    }
+
+    /**
+     * Returns the metrics of the connections which are still alive.
+     *
+     * @return The metrics of the alive connections.
+     **/
+    public List<ConnectionStatistics> getConnections() {
+        synchronized (connections) {
+            return new ArrayList<>(connections.values());
+        }
+    }
+
+    /**
+     * Returns the number of opened connections.
+     *
+     * @return The number of opened connections.
+     **/
+    public long getOpenedConnections() {
+        return openedConnections.get();
+    }
+
+    /**
+     * Returns the number of calls which reused an already opened connection.
+     *
+     * @return The number of calls which reused a connection.
+     **/
+    public long getReusedConnectionCalls() {
+        return reusedConnectionCalls.get();
+    }
+
+    /**
+     * Returns the number of calls.
+     *
+     * @return The number of calls.
+     **/
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * Returns the number of failed calls.
+     *
+     * @return The number of failed calls.
+     **/
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    /**
+     * Returns the number of calls which had to wait for a free connection slot.
+     *
+     * @return The number of waiting calls.
+     **/
+    public long getWaitingCalls() {
+        return waitingCalls.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionMetrics{calls=" + calls + ", failedCalls=" + failedCalls + ", openedConnections=" + openedConnections
+                + ", reusedConnectionCalls=" + reusedConnectionCalls + ", waitingCalls=" + waitingCalls
+                + ", connections=" + getConnections() + "}";
+    }
+
+    /**
+     * The metrics of a single connection.
+     **/
+    public static class ConnectionStatistics {
+
+        /**
+         * The address of the connected server.
+         **/
+        private final String address;
+
+        /**
+         * The time it took to open the connection.
+         **/
+        private final long connectNanos;
+
+        /**
+         * The number of calls which used the connection.
+         **/
+        private final AtomicLong calls = new AtomicLong();
+
+        /**
+         * The number of sent request body bytes.
+         **/
+        private final AtomicLong sentBytes = new AtomicLong();
+
+        /**
+         * The number of received response body bytes.
+         **/
+        private final AtomicLong receivedBytes = new AtomicLong();
+
+        /**
+         * The summed up duration of all calls which used the connection.
+         **/
+        private final AtomicLong callNanos = new AtomicLong();
+
+        /**
+         * Constructor.
+         *
+         * @param address      The address of the connected server.
+         * @param connectNanos The time it took to open the connection or 0 if it is unknown.
+         **/
+        ConnectionStatistics(String address, long connectNanos) {
+            this.address = address;
+            this.connectNanos = connectNanos;
+        }
+
+        /**
+         * Returns the address of the connected server.
+         *
+         * @return The address of the connected server.
+         **/
+        public String getAddress() {
+            return address;
+        }
+
+        /**
+         * Returns the time it took to open the connection.
+         *
+         * @return The time it took to open the connection in nanoseconds or 0 if it is unknown.
+         **/
+        public long getConnectNanos() {
+            return connectNanos;
+        }
+
+        /**
+         * Returns the number of calls which used the connection.
+         *
+         * @return The number of calls.
+         **/
+        public long getCalls() {
+            return calls.get();
+        }
+
+        /**
+         * Returns the number of sent request body bytes.
+         *
+         * @return The number of sent bytes.
+         **/
+        public long getSentBytes() {
+            return sentBytes.get();
+        }
+
+        /**
+         * Returns the number of received response body bytes (after decompression).
+         *
+         * @return The number of received bytes.
+         **/
+        public long getReceivedBytes() {
+            return receivedBytes.get();
+        }
+
+        /**
+         * Returns the summed up duration of all calls which used the connection.
+         *
+         * @return The duration of all calls in nanoseconds.
+         **/
+        public long getCallNanos() {
+            return callNanos.get();
+        }
+
+        @Override
+        public String toString() {
+            return "{address=" + address + ", connectMillis=" + connectNanos / 1_000_000 + ", calls=" + calls
+                    + ", sentBytes=" + sentBytes + ", receivedBytes=" + receivedBytes + ", callMillis=" + callNanos.get() / 1_000_000 + "}";
+        }
+    }
+
+    /**
+     * Assigns the events of a single call to the metrics of its connection.
+     **/
+    private class CallListener extends EventListener {
+
+        /**
+         * The start of the call.
+         **/
+        private long callStart;
+
+        /**
+         * The start of the connection attempt or 0 if the call did not open a connection.
+         **/
+        private long connectStart;
+
+        /**
+         * The duration of the connection attempt or 0 if the call did not open a connection.
+         **/
+        private long connectNanos;
+
+        /**
+         * The metrics of the connection which is used by the call.
+         **/
+        private ConnectionStatistics statistics;
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+            calls.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connectNanos = System.nanoTime() - connectStart;
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            synchronized (connections) {
+                statistics = connections.get(connection);
+                if (statistics == null) {
+                    statistics = new ConnectionStatistics(String.valueOf(connection.route().socketAddress()), connectNanos);
+                    connections.put(connection, statistics);
+                    openedConnections.incrementAndGet();
+                } else {
+                    reusedConnectionCalls.incrementAndGet();
+                }
+            }
+            statistics.calls.incrementAndGet();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            if (statistics != null) {
+                statistics.sentBytes.addAndGet(byteCount);
+            }
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            if (statistics != null) {
+                statistics.receivedBytes.addAndGet(byteCount);
+            }
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            if (statistics != null) {
+                statistics.callNanos.addAndGet(System.nanoTime() - callStart);
+            }
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            failedCalls.incrementAndGet();
+            callEnd(call);
+        }
+    }
+}
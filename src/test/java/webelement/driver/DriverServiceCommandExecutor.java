@@ -0,0 +1,57 @@
+package webelement.driver;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.service.DriverService;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * A command executor for a local driver service (e.g. the chromedriver) which uses the given HTTP client factory.
+ * <p>
+ * Like the DriverCommandExecutor of selenium, it starts the driver service with the new session command and stops it
+ * with the quit command. The DriverCommandExecutor always uses the default HTTP client factory of selenium.
+ **/
+public class DriverServiceCommandExecutor extends HttpCommandExecutor {
+
+    /**
+     * The driver service which executes the commands.
+     **/
+    private final DriverService driverService;
+
+    /**
+     * Constructor.
+     *
+     * @param driverService     The driver service which executes the commands.
+     * @param httpClientFactory The factory for the HTTP client which sends the commands to the driver service.
+     **/
+    public DriverServiceCommandExecutor(DriverService driverService, HttpClient.Factory httpClientFactory) {
+        super(Collections.emptyMap(), driverService.getUrl(), httpClientFactory);
+        this.driverService = driverService;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        if (DriverCommand.NEW_SESSION.equals(command.getName())) {
+            driverService.start();
+        }
+
+        try {
+            return super.execute(command);
+        } catch (IOException e) {
+            if (!driverService.isRunning()) {
+                throw new WebDriverException("The driver service has unexpectedly died!", e);
+            }
+            throw e;
+        } finally {
+            if (DriverCommand.QUIT.equals(command.getName())) {
+                driverService.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package webelement.driver;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * The distribution of the latency of a simulated command (see {@link SimulatedCommandExecutor}).
+ **/
+@FunctionalInterface
+public interface LatencyModel {
+
+    /**
+     * Draws the latency of a single command.
+     *
+     * @param random The seeded random generator of the simulation.
+     * @return The latency in nanoseconds, never negative.
+     **/
+    long sampleNanos(Random random);
+
+    /**
+     * Returns a latency model which always returns the same latency.
+     *
+     * @param latency The latency.
+     * @return The latency model.
+     **/
+    static LatencyModel fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return random -> nanos;
+    }
+
+    /**
+     * Returns a latency model with uniformly distributed latencies.
+     *
+     * @param min The minimal latency.
+     * @param max The maximal latency.
+     * @return The latency model.
+     **/
+    static LatencyModel uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long rangeNanos = max.toNanos() - minNanos;
+
+        if (rangeNanos < 0) {
+            throw new IllegalArgumentException("The minimal latency " + min + " is greater than the maximal latency " + max);
+        }
+        return random -> minNanos + (long) (random.nextDouble() * rangeNanos);
+    }
+
+    /**
+     * Returns a latency model with normally distributed latencies. Negative latencies are cut to 0.
+     *
+     * @param mean      The mean latency.
+     * @param deviation The standard deviation of the latency.
+     * @return The latency model.
+     **/
+    static LatencyModel normal(Duration mean, Duration deviation) {
+        long meanNanos = mean.toNanos();
+        long deviationNanos = deviation.toNanos();
+        return random -> Math.max(0, meanNanos + (long) (random.nextGaussian() * deviationNanos));
+    }
+}
@@ -0,0 +1,89 @@
+package webelement.driver;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+import webelement.customElementsDecorator.CustomElementFrames;
+import webelement.customElementsDecorator.PageScope;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A command executor which tells the {@link CustomElementFrames} when the frame of a session was changed by something
+ * else than a custom webelement, e.g. by a manual "switchTo().frame()" or by a navigation, and releases the custom
+ * webelements of the open {@link PageScope}s of a session after a navigation.
+ * <p>
+ * The WebDriverFactory adds it to every driver, so the frame switches of custom webelements can be skipped safely.
+ **/
+public class NavigationTrackingCommandExecutor implements CommandExecutorLayer {
+
+    /**
+     * The commands after which the webdriver is in the top level document.
+     **/
+    private static final Set<String> TOP_LEVEL_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            DriverCommand.GET,
+            DriverCommand.GO_BACK,
+            DriverCommand.GO_FORWARD,
+            DriverCommand.REFRESH,
+            DriverCommand.SWITCH_TO_WINDOW)));
+
+    /**
+     * The commands which load another page, so the elements of the previous page are gone.
+     **/
+    private static final Set<String> NAVIGATION_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            DriverCommand.GET,
+            DriverCommand.GO_BACK,
+            DriverCommand.GO_FORWARD,
+            DriverCommand.REFRESH)));
+
+    /**
+     * The commands after which the frame of the webdriver is unknown.
+     **/
+    private static final Set<String> UNKNOWN_FRAME_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            DriverCommand.SWITCH_TO_FRAME,
+            DriverCommand.SWITCH_TO_PARENT_FRAME,
+            DriverCommand.CLOSE)));
+
+    /**
+     * The command executor which actually executes the commands.
+     **/
+    private final CommandExecutor delegate;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate The command executor which actually executes the commands.
+     **/
+    public NavigationTrackingCommandExecutor(CommandExecutor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        try {
+            return delegate.execute(command);
+        } finally {
+            // Also after a failed command, since it is not known how far it got
+            if (command.getSessionId() != null && NAVIGATION_COMMANDS.contains(command.getName())) {
+                PageScope.navigated(command.getSessionId().toString());
+            }
+            if (command.getSessionId() != null && !CustomElementFrames.isSwitching()) {
+                if (TOP_LEVEL_COMMANDS.contains(command.getName())) {
+                    CustomElementFrames.reset(command.getSessionId().toString(), true);
+                } else if (UNKNOWN_FRAME_COMMANDS.contains(command.getName())) {
+                    CustomElementFrames.reset(command.getSessionId().toString(), false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public CommandExecutor getDelegate() {
+        return delegate;
+    }
+}
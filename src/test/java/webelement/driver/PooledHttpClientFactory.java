@@ -0,0 +1,225 @@
+package webelement.driver;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Credentials;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.internal.OkHttpClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A factory for the HTTP clients of remote webdrivers which share one bounded pool of keep-alive connections.
+ * <p>
+ * The default factory of selenium keeps idle connections only for a short time and does not limit the number of
+ * connections. This factory keeps the connections to the selenium server (or grid) alive between the commands of all
+ * drivers which are created with it, limits the number of concurrently used connections and collects the
+ * {@link ConnectionMetrics} of the connections. Responses are gzip compressed if the server supports it, request
+ * compression can be enabled for servers which accept gzip compressed requests.
+ * <p>
+ * Use it with the {@link WebDriverFactory}, e.g. "new WebDriverFactory(url).withHttpClientFactory(factory)".
+ **/
+public class PooledHttpClientFactory implements HttpClient.Factory {
+
+    /**
+     * Requests with a smaller body are never compressed.
+     **/
+    private static final int MIN_COMPRESSED_BODY_SIZE = 1024;
+
+    /**
+     * The shared pool of the connections.
+     **/
+    private final ConnectionPool connectionPool;
+
+    /**
+     * Limits the number of concurrently used connections.
+     **/
+    private final Semaphore connectionSlots;
+
+    /**
+     * The metrics of the connections.
+     **/
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    /**
+     * Whether large request bodies are gzip compressed.
+     **/
+    private volatile boolean compressRequests;
+
+    /**
+     * Constructor. Allows 16 concurrently used connections which are kept alive for 5 minutes.
+     **/
+    public PooledHttpClientFactory() {
+        this(16, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxConnections The maximum number of concurrently used connections. Additional commands wait for a free
+     *                       connection. This is also the maximum number of idle connections kept in the pool.
+     * @param keepAlive      The time an idle connection is kept alive.
+     **/
+    public PooledHttpClientFactory(int maxConnections, Duration keepAlive) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("The maximum number of connections must be at least 1, but was " + maxConnections + ".");
+        }
+        this.connectionPool = new ConnectionPool(maxConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        this.connectionSlots = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Enables or disables the gzip compression of large request bodies. Only enable it if the server accepts requests
+     * with "Content-Encoding: gzip", which is not the case for the browser drivers themselves.
+     *
+     * @param compressRequests Whether large request bodies are gzip compressed.
+     * @return This factory.
+     **/
+    public PooledHttpClientFactory withRequestCompression(boolean compressRequests) {
+        this.compressRequests = compressRequests;
+        return this;
+    }
+
+    /**
+     * Returns the metrics of the connections of all clients created by this factory.
+     *
+     * @return The metrics of the connections.
+     **/
+    public ConnectionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the number of open connections in the pool.
+     *
+     * @return The number of open connections.
+     **/
+    public int getConnectionCount() {
+        return connectionPool.connectionCount();
+    }
+
+    /**
+     * Returns the number of idle connections in the pool.
+     *
+     * @return The number of idle connections.
+     **/
+    public int getIdleConnectionCount() {
+        return connectionPool.idleConnectionCount();
+    }
+
+    @Override
+    public HttpClient.Builder builder() {
+        return new HttpClient.Builder() {
+            @Override
+            public HttpClient createClient(URL url) {
+                okhttp3.OkHttpClient.Builder client = new okhttp3.OkHttpClient.Builder()
+                        .connectionPool(connectionPool)
+                        .eventListenerFactory(metrics)
+                        .retryOnConnectionFailure(true)
+                        .followRedirects(true)
+                        .followSslRedirects(true)
+                        .proxy(proxy)
+                        .readTimeout(readTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .connectTimeout(connectionTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+                // Same behaviour as the default client of selenium: credentials of the url and server side timeouts
+                String userInfo = url.getUserInfo();
+                if (userInfo != null && !userInfo.isEmpty()) {
+                    String[] parts = userInfo.split(":", 2);
+                    String credentials = Credentials.basic(parts[0], parts.length > 1 ? parts[1] : "");
+
+                    client.authenticator((route, response) -> response.request().header("Authorization") != null
+                            ? null
+                            : response.request().newBuilder().header("Authorization", credentials).build());
+                }
+                client.addInterceptor(chain -> chain.proceed(compress(chain.request())));
+                client.addNetworkInterceptor(chain -> {
+                    Response response = chain.proceed(chain.request());
+                    return response.code() == 408 ? response.newBuilder().code(500).message("Server-Side Timeout").build() : response;
+                });
+
+                return new PooledHttpClient(new OkHttpClient(client.build(), url));
+            }
+        };
+    }
+
+    @Override
+    public void cleanupIdleClients() {
+        connectionPool.evictAll();
+    }
+
+    /**
+     * Compresses the body of the request, if request compression is enabled and the body is large enough.
+     *
+     * @param request The request.
+     * @return The request with the compressed body or the request itself.
+     * @throws IOException If the body could not be compressed.
+     **/
+    private Request compress(Request request) throws IOException {
+        RequestBody body = request.body();
+
+        if (!compressRequests || body == null || body.contentLength() < MIN_COMPRESSED_BODY_SIZE || request.header("Content-Encoding") != null) {
+            return request;
+        }
+
+        Buffer compressed = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(compressed))) {
+            body.writeTo(sink);
+        }
+        return request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), RequestBody.create(body.contentType(), compressed.readByteString()))
+                .build();
+    }
+
+    /**
+     * A client which waits for a free connection slot before it executes a request.
+     **/
+    private class PooledHttpClient implements HttpClient {
+
+        /**
+         * The client which actually executes the requests.
+         **/
+        private final HttpClient delegate;
+
+        /**
+         * Constructor.
+         *
+         * @param delegate The client which actually executes the requests.
+         **/
+        PooledHttpClient(HttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            if (!connectionSlots.tryAcquire()) {
+                metrics.countWaitingCall();
+                try {
+                    connectionSlots.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a free connection.");
+                }
+            }
+            try {
+                return delegate.execute(request);
+            } finally {
+                connectionSlots.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package webelement.driver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the PooledHttpClientFactory against a local HTTP server, which answers every request with a small JSON body.
+ **/
+public class PooledHttpClientFactoryTest {
+
+    /**
+     * The local HTTP server.
+     **/
+    private HttpServer server;
+
+    /**
+     * The threads of the server.
+     **/
+    private ExecutorService serverThreads;
+
+    /**
+     * The url of the server.
+     **/
+    private URL url;
+
+    /**
+     * Counted down as soon as the server received a request for "/slow".
+     **/
+    private final CountDownLatch slowRequestReceived = new CountDownLatch(1);
+
+    /**
+     * The server answers the requests for "/slow" after this latch was counted down.
+     **/
+    private final CountDownLatch slowRequestAnswered = new CountDownLatch(1);
+
+    /**
+     * The "Content-Encoding" header of each received request.
+     **/
+    private final List<String> contentEncodings = new CopyOnWriteArrayList<>();
+
+    /**
+     * The uncompressed body of each received request.
+     **/
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts the server on a free port.
+     **/
+    @Before
+    public void setUp() throws IOException {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(serverThreads);
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort());
+    }
+
+    /**
+     * Stops the server.
+     **/
+    @After
+    public void tearDown() {
+        slowRequestAnswered.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    /**
+     * Sequential commands of a client use one keep-alive connection, which the metrics count once.
+     **/
+    @Test
+    public void reusesTheConnection() throws IOException {
+        PooledHttpClientFactory factory = new PooledHttpClientFactory(4, Duration.ofMinutes(1));
+        HttpClient client = factory.builder().createClient(url);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, client.execute(new HttpRequest(HttpMethod.GET, "/status")).getStatus());
+        }
+
+        ConnectionMetrics metrics = factory.getMetrics();
+        assertEquals(5, metrics.getCalls());
+        assertEquals(0, metrics.getFailedCalls());
+        assertEquals(1, metrics.getOpenedConnections());
+        assertEquals(4, metrics.getReusedConnectionCalls());
+        assertEquals(0, metrics.getWaitingCalls());
+        assertEquals(1, factory.getConnectionCount());
+        assertEquals(1, factory.getIdleConnectionCount());
+        assertEquals(1, metrics.getConnections().size());
+
+        ConnectionMetrics.ConnectionStatistics connection = metrics.getConnections().get(0);
+        assertEquals(5, connection.getCalls());
+        assertEquals(5 * "{\"value\":null}".length(), connection.getReceivedBytes());
+        assertTrue(connection.getCallNanos() > 0);
+    }
+
+    /**
+     * The clients of one factory share the pool, so the clients of several drivers use the same connection.
+     **/
+    @Test
+    public void sharesTheConnectionsBetweenClients() throws IOException {
+        PooledHttpClientFactory factory = new PooledHttpClientFactory(4, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            factory.builder().createClient(url).execute(new HttpRequest(HttpMethod.GET, "/status"));
+        }
+
+        assertEquals(1, factory.getMetrics().getOpenedConnections());
+        assertEquals(2, factory.getMetrics().getReusedConnectionCalls());
+
+        factory.cleanupIdleClients();
+        assertEquals(0, factory.getConnectionCount());
+    }
+
+    /**
+     * A command waits while all connection slots are used and reuses the connection afterwards.
+     **/
+    @Test
+    public void waitsForAFreeConnection() throws Exception {
+        PooledHttpClientFactory factory = new PooledHttpClientFactory(1, Duration.ofMinutes(1));
+        HttpClient client = factory.builder().createClient(url);
+        List<Integer> statuses = new CopyOnWriteArrayList<>();
+        Thread slowCommand = start(() -> statuses.add(client.execute(new HttpRequest(HttpMethod.GET, "/slow")).getStatus()));
+
+        assertTrue(slowRequestReceived.await(10, TimeUnit.SECONDS));
+        Thread waitingCommand = start(() -> statuses.add(client.execute(new HttpRequest(HttpMethod.GET, "/status")).getStatus()));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (factory.getMetrics().getWaitingCalls() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // The waiting command has not been sent yet
+        assertEquals(1, factory.getMetrics().getCalls());
+
+        slowRequestAnswered.countDown();
+        slowCommand.join(10000);
+        waitingCommand.join(10000);
+
+        assertEquals(Arrays.asList(200, 200), statuses);
+        assertEquals(1, factory.getMetrics().getWaitingCalls());
+        assertEquals(1, factory.getMetrics().getOpenedConnections());
+        assertEquals(1, factory.getMetrics().getReusedConnectionCalls());
+    }
+
+    /**
+     * Large request bodies are gzip compressed if enabled, small ones are sent as they are.
+     **/
+    @Test
+    public void compressesLargeRequests() throws IOException {
+        PooledHttpClientFactory factory = new PooledHttpClientFactory().withRequestCompression(true);
+        HttpClient client = factory.builder().createClient(url);
+        byte[] largeBody = new byte[8192];
+        byte[] smallBody = "{\"url\":\"https://www.bing.com/\"}".getBytes(StandardCharsets.UTF_8);
+
+        Arrays.fill(largeBody, (byte) 'x');
+        client.execute(post(largeBody));
+        client.execute(post(smallBody));
+
+        assertEquals(Arrays.asList("gzip", null), contentEncodings);
+        assertArrayEquals(largeBody, bodies.get(0));
+        assertArrayEquals(smallBody, bodies.get(1));
+        // The compressed body of 8 KB of the same character is much smaller
+        assertTrue(factory.getMetrics().getConnections().get(0).getSentBytes() < 1024);
+    }
+
+    /**
+     * Request compression is disabled by default, since the browser drivers do not accept it.
+     **/
+    @Test
+    public void sendsUncompressedRequestsByDefault() throws IOException {
+        PooledHttpClientFactory factory = new PooledHttpClientFactory();
+        byte[] largeBody = new byte[8192];
+
+        factory.builder().createClient(url).execute(post(largeBody));
+
+        assertEquals(Arrays.asList((String) null), contentEncodings);
+        assertArrayEquals(largeBody, bodies.get(0));
+        assertEquals(largeBody.length, factory.getMetrics().getConnections().get(0).getSentBytes());
+    }
+
+    /**
+     * The limit of the connections must be positive.
+     **/
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroConnections() {
+        new PooledHttpClientFactory(0, Duration.ofMinutes(1));
+    }
+
+    /**
+     * Creates a POST request with a JSON body.
+     **/
+    private static HttpRequest post(byte[] body) {
+        HttpRequest request = new HttpRequest(HttpMethod.POST, "/session");
+
+        request.setHeader("Content-Type", "application/json; charset=utf-8");
+        request.setContent(body);
+        return request;
+    }
+
+    /**
+     * Answers a request with {"value":null}, the requests for "/slow" only after slowRequestAnswered was counted down.
+     **/
+    private void handle(HttpExchange exchange) throws IOException {
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+
+        try (InputStream body = "gzip".equals(contentEncoding)
+                ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                contentEncodings.add(contentEncoding);
+                bodies.add(readAll(body));
+            } else {
+                readAll(body);
+            }
+        }
+        if ("/slow".equals(exchange.getRequestURI().getPath())) {
+            slowRequestReceived.countDown();
+            try {
+                slowRequestAnswered.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        byte[] response = "{\"value\":null}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    /**
+     * Reads a stream to its end.
+     **/
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A command which is executed on its own thread.
+     **/
+    private interface Command {
+        void execute() throws IOException;
+    }
+
+    /**
+     * Starts a thread which executes the command.
+     **/
+    private static Thread start(Command command) {
+        Thread thread = new Thread(() -> {
+            try {
+                command.execute();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,297 @@
+package webelement.driver;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A command executor which caches the values read from elements (text, attributes and the selected, displayed and
+ * enabled state) of its session.
+ * <p>
+ * Any command which may change the page (e.g. clicks, keys, scripts or navigation) clears the cache. Commands which
+ * only read (e.g. finding elements or getting the title) keep it. Changes which are not caused by a command (e.g. a
+ * timer or an answer of an ajax request) are covered by the time to live of the cached values only, so keep it
+ * short or wait with selenium waits, which are not affected as long as the time to live is shorter than their
+ * polling interval. The default time to live of 250 milliseconds is half the default polling interval of the
+ * FluentWait and WebDriverWait (500 milliseconds), so a poll never gets a value cached by the poll before.
+ * <p>
+ * Add it as the outermost layer of the {@link WebDriverFactory}, e.g. ".withCommandExecutorLayer(ReadCacheCommandExecutor::new)".
+ **/
+public class ReadCacheCommandExecutor implements CommandExecutorLayer {
+
+    /**
+     * The commands whose values are cached.
+     **/
+    private static final Set<String> CACHED_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            DriverCommand.GET_ELEMENT_TEXT,
+            DriverCommand.GET_ELEMENT_ATTRIBUTE,
+            DriverCommand.IS_ELEMENT_SELECTED,
+            DriverCommand.IS_ELEMENT_DISPLAYED,
+            DriverCommand.IS_ELEMENT_ENABLED)));
+
+    /**
+     * The commands which do not change the page and therefore keep the cached values.
+     **/
+    private static final Set<String> READ_ONLY_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            DriverCommand.FIND_ELEMENT,
+            DriverCommand.FIND_ELEMENTS,
+            DriverCommand.FIND_CHILD_ELEMENT,
+            DriverCommand.FIND_CHILD_ELEMENTS,
+            DriverCommand.GET_ELEMENT_TAG_NAME,
+            DriverCommand.GET_ELEMENT_PROPERTY,
+            DriverCommand.GET_ELEMENT_VALUE_OF_CSS_PROPERTY,
+            DriverCommand.GET_ELEMENT_RECT,
+            DriverCommand.GET_ELEMENT_LOCATION,
+            DriverCommand.GET_ELEMENT_SIZE,
+            DriverCommand.ELEMENT_EQUALS,
+            DriverCommand.ELEMENT_SCREENSHOT,
+            DriverCommand.SCREENSHOT,
+            DriverCommand.GET_TITLE,
+            DriverCommand.GET_CURRENT_URL,
+            DriverCommand.GET_PAGE_SOURCE,
+            DriverCommand.GET_CURRENT_WINDOW_HANDLE,
+            DriverCommand.GET_WINDOW_HANDLES,
+            DriverCommand.GET_ALL_COOKIES,
+            DriverCommand.GET_COOKIE,
+            DriverCommand.GET_CAPABILITIES,
+            DriverCommand.STATUS)));
+
+    /**
+     * The maximal number of cached values. When it is reached, the expired values are evicted and, if that is not
+     * enough, the whole cache is cleared.
+     **/
+    private static final int MAX_ENTRIES = 1024;
+
+    /**
+     * The command executor which actually executes the commands.
+     **/
+    private final CommandExecutor delegate;
+
+    /**
+     * The time a cached value is used.
+     **/
+    private final long timeToLiveNanos;
+
+    /**
+     * The cached values by their command.
+     **/
+    private final Map<String, CachedValue> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented before and after every command which clears the cache. A value is only cached if no such command
+     * was started or finished while it was read.
+     **/
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The number of reads which were answered from the cache.
+     **/
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * The number of reads which were sent to the browser.
+     **/
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * The number of commands which cleared the cache.
+     **/
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Constructor. Cached values are used for 250 milliseconds.
+     *
+     * @param delegate The command executor which actually executes the commands.
+     **/
+    public ReadCacheCommandExecutor(CommandExecutor delegate) {
+        this(delegate, Duration.ofMillis(250));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param delegate   The command executor which actually executes the commands.
+     * @param timeToLive The time a cached value is used.
+     **/
+    public ReadCacheCommandExecutor(CommandExecutor delegate, Duration timeToLive) {
+        this.delegate = delegate;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        if (CACHED_COMMANDS.contains(command.getName())) {
+            return read(command);
+        }
+        if (READ_ONLY_COMMANDS.contains(command.getName())) {
+            return delegate.execute(command);
+        }
+
+        generation.incrementAndGet();
+        cache.clear();
+        try {
+            return delegate.execute(command);
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns the cached value of the read command or executes it and caches its value.
+     *
+     * @param command The read command.
+     * @return The response of the command.
+     * @throws IOException If the command could not be sent.
+     **/
+    private Response read(Command command) throws IOException {
+        String key = command.getSessionId() + " " + command.getName() + " " + command.getParameters();
+        CachedValue cachedValue = cache.get(key);
+
+        if (cachedValue != null) {
+            if (System.nanoTime() - cachedValue.readNanos < timeToLiveNanos) {
+                hits.incrementAndGet();
+                return cachedValue.toResponse();
+            }
+            cache.remove(key, cachedValue);
+        }
+
+        misses.incrementAndGet();
+        long readGeneration = generation.get();
+        long readNanos = System.nanoTime();
+        Response response = delegate.execute(command);
+
+        // Only successful reads are cached, errors (e.g. a stale element) must be reported every time
+        boolean successful = (response.getStatus() == null || response.getStatus() == 0)
+                && (response.getState() == null || "success".equals(response.getState()));
+        if (successful) {
+            if (cache.size() >= MAX_ENTRIES) {
+                evict();
+            }
+            cache.put(key, new CachedValue(response, readNanos));
+            if (generation.get() != readGeneration) {
+                cache.remove(key);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Evicts the expired values. Clears the cache if there are too many values even so, e.g. because a polling loop
+     * reads many different elements without a command which clears the cache.
+     **/
+    private void evict() {
+        long now = System.nanoTime();
+
+        cache.values().removeIf(cachedValue -> now - cachedValue.readNanos >= timeToLiveNanos);
+        if (cache.size() >= MAX_ENTRIES) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Clears the cache.
+     **/
+    public void invalidate() {
+        generation.incrementAndGet();
+        cache.clear();
+        invalidations.incrementAndGet();
+    }
+
+    @Override
+    public CommandExecutor getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of reads which were answered from the cache.
+     *
+     * @return The number of cache hits.
+     **/
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of reads which were sent to the browser.
+     *
+     * @return The number of cache misses.
+     **/
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of cached values, including expired ones which were not evicted yet.
+     *
+     * @return The number of cached values.
+     **/
+    public int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the number of times the cache was cleared.
+     *
+     * @return The number of invalidations.
+     **/
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ReadCacheCommandExecutor{hits=" + hits + ", misses=" + misses + ", invalidations=" + invalidations + ", size=" + getSize() + "}";
+    }
+
+    /**
+     * A cached value of a read command.
+     **/
+    private static class CachedValue {
+
+        /**
+         * The response of the read command.
+         **/
+        private final Response response;
+
+        /**
+         * The time at which the command was started.
+         **/
+        private final long readNanos;
+
+        /**
+         * Constructor.
+         *
+         * @param response  The response of the read command.
+         * @param readNanos The time at which the command was started.
+         **/
+        CachedValue(Response response, long readNanos) {
+            this.response = response;
+            this.readNanos = readNanos;
+        }
+
+        /**
+         * Creates a copy of the response, because the webdriver replaces the value of a response.
+         *
+         * @return The copy of the response.
+         **/
+        Response toResponse() {
+            Response copy = new Response();
+            copy.setSessionId(response.getSessionId());
+            copy.setStatus(response.getStatus());
+            copy.setState(response.getState());
+            copy.setValue(response.getValue());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package webelement.driver;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the ReadCacheCommandExecutor against a simulated browser. A counting command executor between the cache and
+ * the SimulatedCommandExecutor records which commands actually reach the browser.
+ **/
+public class ReadCacheCommandExecutorTest {
+
+    /**
+     * The number of commands which reached the browser, by name.
+     **/
+    private final Map<String, AtomicInteger> executedCommands = new ConcurrentHashMap<>();
+
+    /**
+     * The driver of the test.
+     **/
+    private RemoteWebDriver webDriver;
+
+    /**
+     * Quits the driver.
+     **/
+    @After
+    public void tearDown() {
+        if (webDriver != null) {
+            webDriver.quit();
+        }
+    }
+
+    /**
+     * A second read of the same value within the time to live is answered from the cache.
+     **/
+    @Test
+    public void answersRepeatedReadsFromTheCache() {
+        ReadCacheCommandExecutor cache = createCache(Duration.ofMinutes(1));
+        WebElement element = webDriver.findElement(By.id("q"));
+
+        assertEquals(element.getText(), element.getText());
+        element.isDisplayed();
+
+        assertEquals(1, executed("getElementText"));
+        assertEquals(1, executed("isElementDisplayed"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getSize());
+    }
+
+    /**
+     * A read after the time to live reaches the browser again and replaces the expired value.
+     **/
+    @Test
+    public void readsExpiredValuesAgain() throws InterruptedException {
+        ReadCacheCommandExecutor cache = createCache(Duration.ofMillis(50));
+        WebElement element = webDriver.findElement(By.id("q"));
+
+        element.getText();
+        Thread.sleep(100);
+        element.getText();
+
+        assertEquals(2, executed("getElementText"));
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getSize());
+    }
+
+    /**
+     * A command which may change the page clears the cache, so the following read reaches the browser.
+     **/
+    @Test
+    public void clearsTheCacheOnWrites() {
+        ReadCacheCommandExecutor cache = createCache(Duration.ofMinutes(1));
+        WebElement element = webDriver.findElement(By.id("q"));
+        long invalidations = cache.getInvalidations();
+
+        element.getText();
+        element.click();
+        assertEquals(0, cache.getSize());
+        element.getText();
+
+        assertEquals(2, executed("getElementText"));
+        assertEquals(0, cache.getHits());
+        assertEquals(invalidations + 1, cache.getInvalidations());
+    }
+
+    /**
+     * Reads of many different values without a write, e.g. of a polling loop, do not grow the cache without bound.
+     **/
+    @Test
+    public void boundsTheCache() {
+        ReadCacheCommandExecutor cache = createCache(Duration.ofMinutes(1));
+        WebElement element = webDriver.findElement(By.id("q"));
+
+        for (int i = 0; i < 5000; i++) {
+            element.getAttribute("data-" + i);
+        }
+
+        assertTrue(String.valueOf(cache.getSize()), cache.getSize() <= 1024);
+        assertEquals(5000, cache.getMisses());
+    }
+
+    /**
+     * Creates the driver with the cache and returns the cache.
+     **/
+    private ReadCacheCommandExecutor createCache(Duration timeToLive) {
+        SimulatedCommandExecutor simulation = new SimulatedCommandExecutor().withElements(By.id("q"), 1);
+        CommandExecutor browser = new NavigationTrackingCommandExecutor(simulation);
+        ReadCacheCommandExecutor cache = new ReadCacheCommandExecutor(command -> {
+            executedCommands.computeIfAbsent(command.getName(), name -> new AtomicInteger()).incrementAndGet();
+            return browser.execute(command);
+        }, timeToLive);
+
+        webDriver = new RemoteWebDriver(cache, new DesiredCapabilities());
+        return cache;
+    }
+
+    /**
+     * Returns the number of commands with the given name which reached the browser.
+     **/
+    private int executed(String name) {
+        AtomicInteger count = executedCommands.get(name);
+
+        return count == null ? 0 : count.get();
+    }
+}
@@ -0,0 +1,76 @@
+package webelement.driver;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.Response;
+
+import java.io.IOException;
+
+/**
+ * A command executor which executes the commands of its driver only when the {@link CommandScheduler} allows it.
+ * <p>
+ * Create it via {@link CommandScheduler#layer(String)}.
+ **/
+public class SchedulingCommandExecutor implements CommandExecutorLayer {
+
+    /**
+     * The command executor which actually executes the commands.
+     **/
+    private final CommandExecutor delegate;
+
+    /**
+     * The scheduler which is shared by the drivers.
+     **/
+    private final CommandScheduler scheduler;
+
+    /**
+     * The name of the node the driver runs on.
+     **/
+    private final String node;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate  The command executor which actually executes the commands.
+     * @param scheduler The scheduler which is shared by the drivers.
+     * @param node      The name of the node the driver runs on.
+     **/
+    public SchedulingCommandExecutor(CommandExecutor delegate, CommandScheduler scheduler, String node) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+        this.node = node;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        scheduler.acquire(node, CommandScheduler.getPriority(command.getName()));
+        try {
+            return delegate.execute(command);
+        } finally {
+            scheduler.release(node);
+        }
+    }
+
+    @Override
+    public CommandExecutor getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the scheduler which is shared by the drivers.
+     *
+     * @return The scheduler.
+     **/
+    public CommandScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Returns the name of the node the driver runs on.
+     *
+     * @return The name of the node.
+     **/
+    public String getNode() {
+        return node;
+    }
+}
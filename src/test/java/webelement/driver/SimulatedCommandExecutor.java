@@ -0,0 +1,618 @@
+package webelement.driver;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.ErrorCodes;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+import webelement.modules.WebElementTransformer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+/**
+ * A command executor which simulates a browser, so the number of commands and the time page objects need can be
+ * measured without a browser and compared between commits.
+ * <p>
+ * The simulated page consists of elements which are declared by their locator. They can appear and disappear a given
+ * time after the page was loaded, child elements are found below every element. Each command advances a virtual
+ * clock by a latency drawn from its {@link LatencyModel} with a seeded random generator, so a scenario always yields
+ * the same result. The implicit wait moves the clock forward until the element appears or the wait is over. Nothing
+ * sleeps, so thousands of scenarios run in seconds.
+ * <p>
+ * Example: "SimulatedCommandExecutor simulation = new SimulatedCommandExecutor().withElements(By.id("b_results"), 1);
+ * RemoteWebDriver webDriver = simulation.createDriver(); simulation.startScenario("search"); ...;
+ * System.out.println(simulation.endScenario());"
+ * <p>
+ * Scripts return null unless a script handler was set. Locators are compared after the XPathOptimizer rewrote them,
+ * so a FindBy XPath matches the element declared with the same XPath.
+ **/
+public class SimulatedCommandExecutor implements CommandExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(SimulatedCommandExecutor.class.getName());
+
+    /**
+     * The key of an element reference in the W3C protocol.
+     **/
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+
+    /**
+     * Used to rewrite the locators like the FindBy annotations are rewritten.
+     **/
+    private static final WebElementTransformer TRANSFORMER = new WebElementTransformer();
+
+    /**
+     * The summary of a scenario.
+     **/
+    public static final class Summary {
+
+        private final String scenario;
+        private final long commands;
+        private final Map<String, Long> commandsByName;
+        private final long simulatedNanos;
+        private final long implicitWaitNanos;
+
+        /**
+         * Constructor.
+         *
+         * @param scenario          The name of the scenario.
+         * @param commands          The number of commands.
+         * @param commandsByName    The number of commands by their name.
+         * @param simulatedNanos    The simulated wall time in nanoseconds.
+         * @param implicitWaitNanos The part of the simulated wall time spent in implicit waits.
+         **/
+        public Summary(String scenario, long commands, Map<String, Long> commandsByName, long simulatedNanos, long implicitWaitNanos) {
+            this.scenario = scenario;
+            this.commands = commands;
+            this.commandsByName = Collections.unmodifiableMap(new TreeMap<>(commandsByName));
+            this.simulatedNanos = simulatedNanos;
+            this.implicitWaitNanos = implicitWaitNanos;
+        }
+
+        /**
+         * Returns the name of the scenario.
+         *
+         * @return The name of the scenario.
+         **/
+        public String getScenario() {
+            return scenario;
+        }
+
+        /**
+         * Returns the number of commands of the scenario.
+         *
+         * @return The number of commands.
+         **/
+        public long getCommands() {
+            return commands;
+        }
+
+        /**
+         * Returns the number of commands by their name (see DriverCommand).
+         *
+         * @return The number of commands by their name.
+         **/
+        public Map<String, Long> getCommandsByName() {
+            return commandsByName;
+        }
+
+        /**
+         * Returns the simulated wall time of the scenario including the implicit waits.
+         *
+         * @return The simulated wall time.
+         **/
+        public Duration getSimulatedTime() {
+            return Duration.ofNanos(simulatedNanos);
+        }
+
+        /**
+         * Returns the part of the simulated wall time which was spent in implicit waits.
+         *
+         * @return The simulated implicit wait time.
+         **/
+        public Duration getImplicitWaitTime() {
+            return Duration.ofNanos(implicitWaitNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "Summary{scenario=" + scenario + ", commands=" + commands + ", simulatedTime="
+                    + String.format("%.3f", simulatedNanos / 1e6) + "ms, implicitWaitTime="
+                    + String.format("%.3f", implicitWaitNanos / 1e6) + "ms, commandsByName=" + commandsByName + "}";
+        }
+    }
+
+    /**
+     * A declared element of the simulated page.
+     **/
+    private static final class ElementSpec {
+        private final By by;
+        private final boolean child;
+        private final int count;
+        private final long appearNanos;
+        private final long disappearNanos;
+        private String text = "";
+        private final Map<String, String> attributes = new HashMap<>();
+
+        private ElementSpec(By by, boolean child, int count, long appearNanos, long disappearNanos) {
+            this.by = by;
+            this.child = child;
+            this.count = count;
+            this.appearNanos = appearNanos;
+            this.disappearNanos = disappearNanos;
+        }
+
+        private boolean isPresent(long pageNanos) {
+            return appearNanos <= pageNanos && pageNanos < disappearNanos;
+        }
+    }
+
+    /**
+     * A found element, referenced by its id.
+     **/
+    private static final class FoundElement {
+        private final String id;
+        private final ElementSpec spec;
+        private final FoundElement parent;
+
+        private FoundElement(String id, ElementSpec spec, FoundElement parent) {
+            this.id = id;
+            this.spec = spec;
+            this.parent = parent;
+        }
+
+        private boolean isPresent(long pageNanos) {
+            return spec.isPresent(pageNanos) && (parent == null || parent.isPresent(pageNanos));
+        }
+    }
+
+    /**
+     * The declared elements of the page.
+     **/
+    private final List<ElementSpec> specs = new ArrayList<>();
+
+    /**
+     * The latency model of each command, by the command name.
+     **/
+    private final Map<String, LatencyModel> latencies = new HashMap<>();
+
+    /**
+     * The latency model of the commands without an own one.
+     **/
+    private LatencyModel defaultLatency = LatencyModel.fixed(Duration.ofMillis(5));
+
+    /**
+     * Returns the results of scripts. Gets the script and its arguments.
+     **/
+    private BiFunction<String, List<?>, Object> scriptHandler = (script, arguments) -> null;
+
+    /**
+     * Draws the latencies.
+     **/
+    private Random random = new Random(0);
+
+    /**
+     * The found elements of the current page by their id.
+     **/
+    private final Map<String, FoundElement> foundElements = new HashMap<>();
+
+    /**
+     * The virtual clock.
+     **/
+    private long nowNanos;
+
+    /**
+     * The virtual time at which the current page was loaded.
+     **/
+    private long pageLoadNanos;
+
+    /**
+     * The implicit wait of the session.
+     **/
+    private long implicitWaitNanos;
+
+    /**
+     * The url of the current page.
+     **/
+    private String currentUrl = "about:blank";
+
+    /**
+     * The name of the current scenario.
+     **/
+    private String scenario;
+
+    /**
+     * The virtual time at which the current scenario started.
+     **/
+    private long scenarioStartNanos;
+
+    /**
+     * The implicit wait time of the current scenario.
+     **/
+    private long scenarioImplicitWaitNanos;
+
+    /**
+     * The number of commands of the current scenario by their name.
+     **/
+    private final Map<String, Long> scenarioCommands = new HashMap<>();
+
+    /**
+     * Creates a RemoteWebDriver which sends its commands to this simulation. Like the drivers of the WebDriverFactory
+     * it uses the NavigationTrackingCommandExecutor as innermost layer.
+     *
+     * @return The simulated webdriver.
+     **/
+    public RemoteWebDriver createDriver() {
+        return new RemoteWebDriver(new NavigationTrackingCommandExecutor(this), new DesiredCapabilities());
+    }
+
+    /**
+     * Declares elements which are present as soon as the page is loaded.
+     *
+     * @param by    The locator of the elements.
+     * @param count The number of elements the locator finds.
+     * @return This simulation.
+     **/
+    public SimulatedCommandExecutor withElements(By by, int count) {
+        return withElements(by, count, Duration.ZERO, null);
+    }
+
+    /**
+     * Declares elements which appear and disappear after the page was loaded, e.g. the results of an ajax request.
+     *
+     * @param by             The locator of the elements.
+     * @param count          The number of elements the locator finds.
+     * @param appearAfter    The time after the page was loaded at which the elements appear.
+     * @param disappearAfter The time after the page was loaded at which the elements disappear or null if they stay.
+     *                       Found elements become stale when they disappear.
+     * @return This simulation.
+     **/
+    public synchronized SimulatedCommandExecutor withElements(By by, int count, Duration appearAfter, Duration disappearAfter) {
+        specs.add(new ElementSpec(normalize(by), false, count, appearAfter.toNanos(),
+                disappearAfter != null ? disappearAfter.toNanos() : Long.MAX_VALUE));
+        return this;
+    }
+
+    /**
+     * Declares elements which are found below every element, e.g. the cells of the rows of a table.
+     *
+     * @param by    The relative locator of the elements.
+     * @param count The number of elements the locator finds below each element.
+     * @return This simulation.
+     **/
+    public synchronized SimulatedCommandExecutor withChildElements(By by, int count) {
+        specs.add(new ElementSpec(normalize(by), true, count, 0, Long.MAX_VALUE));
+        return this;
+    }
+
+    /**
+     * Sets the text of the declared elements with the given locator.
+     *
+     * @param by   The locator of the elements.
+     * @param text The text of the elements.
+     * @return This simulation.
+     **/
+    public synchronized SimulatedCommandExecutor withText(By by, String text) {
+        for (ElementSpec spec : getSpecs(by)) {
+            spec.text = text;
+        }
+        return this;
+    }
+
+    /**
+     * Sets an attribute (or property) of the declared elements with the given locator.
+     *
+     * @param by    The locator of the elements.
+     * @param name  The name of the attribute.
+     * @param value The value of the attribute.
+     * @return This simulation.
+     **/
+    public synchronized SimulatedCommandExecutor withAttribute(By by, String name, String value) {
+        for (ElementSpec spec : getSpecs(by)) {
+            spec.attributes.put(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the latency model of a command.
+     *
+     * @param commandName The name of the command (see DriverCommand).
+     * @param latency     The latency model.
+     * @return This simulation.
+     **/
+    public synchronized SimulatedCommandExecutor withLatency(String commandName, LatencyModel latency) {
+        latencies.put(commandName, latency);
+        return this;
+    }
+
+    /**
+     * Sets the latency model of all commands without an own one. Default is a fixed latency of 5 ms.
+     *
+     * @param latency The latency model.
+     * @return This simulation.
+     **/
+    public synchronized SimulatedCommandExecutor withDefaultLatency(LatencyModel latency) {
+        defaultLatency = latency;
+        return this;
+    }
+
+    /**
+     * Sets the function which returns the results of executeScript() and executeAsyncScript().
+     *
+     * @param scriptHandler Gets the script and its arguments and returns the result.
+     * @return This simulation.
+     **/
+    public synchronized SimulatedCommandExecutor withScriptHandler(BiFunction<String, List<?>, Object> scriptHandler) {
+        this.scriptHandler = scriptHandler;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the random generator which draws the latencies.
+     *
+     * @param seed The seed.
+     * @return This simulation.
+     **/
+    public synchronized SimulatedCommandExecutor withSeed(long seed) {
+        random = new Random(seed);
+        return this;
+    }
+
+    /**
+     * Starts a scenario. The commands and the simulated time are counted until endScenario() is called.
+     *
+     * @param name The name of the scenario.
+     **/
+    public synchronized void startScenario(String name) {
+        scenario = name;
+        scenarioStartNanos = nowNanos;
+        scenarioImplicitWaitNanos = 0;
+        scenarioCommands.clear();
+    }
+
+    /**
+     * Ends the current scenario and logs its summary.
+     *
+     * @return The summary of the scenario.
+     **/
+    public synchronized Summary endScenario() {
+        long commands = 0;
+
+        for (long count : scenarioCommands.values()) {
+            commands += count;
+        }
+        Summary summary = new Summary(scenario, commands, scenarioCommands, nowNanos - scenarioStartNanos, scenarioImplicitWaitNanos);
+        LOGGER.info(summary.toString());
+        scenario = null;
+        return summary;
+    }
+
+    /**
+     * Returns the virtual time since the simulation was created.
+     *
+     * @return The simulated time.
+     **/
+    public synchronized Duration getSimulatedTime() {
+        return Duration.ofNanos(nowNanos);
+    }
+
+    @Override
+    public synchronized Response execute(Command command) {
+        String name = command.getName();
+        Map<String, ?> parameters = command.getParameters();
+
+        nowNanos += latencies.getOrDefault(name, defaultLatency).sampleNanos(random);
+        scenarioCommands.merge(name, 1L, Long::sum);
+
+        switch (name) {
+            case DriverCommand.NEW_SESSION:
+                Map<String, Object> capabilities = new HashMap<>();
+                capabilities.put("browserName", "simulated");
+                return success(capabilities);
+            case DriverCommand.GET:
+                currentUrl = String.valueOf(parameters.get("url"));
+                pageLoadNanos = nowNanos;
+                foundElements.clear();
+                return success(null);
+            case DriverCommand.REFRESH:
+            case DriverCommand.GO_BACK:
+            case DriverCommand.GO_FORWARD:
+                pageLoadNanos = nowNanos;
+                foundElements.clear();
+                return success(null);
+            case DriverCommand.GET_CURRENT_URL:
+                return success(currentUrl);
+            case DriverCommand.GET_TITLE:
+                return success("");
+            case DriverCommand.SET_TIMEOUT:
+                Object implicitWait = parameters.get("implicit");
+                if (implicitWait == null && "implicit".equals(parameters.get("type"))) {
+                    implicitWait = parameters.get("ms");
+                }
+                if (implicitWait != null) {
+                    implicitWaitNanos = Duration.ofMillis(((Number) implicitWait).longValue()).toNanos();
+                }
+                return success(null);
+            case DriverCommand.FIND_ELEMENT:
+            case DriverCommand.FIND_ELEMENTS:
+                return find(parameters, null, DriverCommand.FIND_ELEMENTS.equals(name));
+            case DriverCommand.EXECUTE_SCRIPT:
+            case DriverCommand.EXECUTE_ASYNC_SCRIPT:
+                Object arguments = parameters.get("args");
+                return success(scriptHandler.apply(String.valueOf(parameters.get("script")),
+                        arguments instanceof List ? (List<?>) arguments : Collections.emptyList()));
+            default:
+                break;
+        }
+
+        if (!parameters.containsKey("id")) {
+            return success(null);
+        }
+        FoundElement element = foundElements.get(String.valueOf(parameters.get("id")));
+        if (element == null || !element.isPresent(nowNanos - pageLoadNanos)) {
+            return failure(ErrorCodes.STALE_ELEMENT_REFERENCE, "The element " + parameters.get("id") + " is no longer attached to the DOM");
+        }
+
+        switch (name) {
+            case DriverCommand.FIND_CHILD_ELEMENT:
+            case DriverCommand.FIND_CHILD_ELEMENTS:
+                return find(parameters, element, DriverCommand.FIND_CHILD_ELEMENTS.equals(name));
+            case DriverCommand.GET_ELEMENT_TEXT:
+                return success(element.spec.text);
+            case DriverCommand.GET_ELEMENT_ATTRIBUTE:
+            case DriverCommand.GET_ELEMENT_PROPERTY:
+                return success(element.spec.attributes.get(String.valueOf(parameters.get("name"))));
+            case DriverCommand.GET_ELEMENT_TAG_NAME:
+                return success(TRANSFORMER.getLocatorType(element.spec.by) == WebElementTransformer.LocatorType.TAG_NAME
+                        ? TRANSFORMER.getLocatorValue(element.spec.by, WebElementTransformer.LocatorType.TAG_NAME) : "div");
+            case DriverCommand.IS_ELEMENT_DISPLAYED:
+            case DriverCommand.IS_ELEMENT_ENABLED:
+                return success(true);
+            case DriverCommand.IS_ELEMENT_SELECTED:
+                return success(false);
+            default:
+                return success(null);
+        }
+    }
+
+    /**
+     * Finds the declared elements of a locator, below a parent element or in the whole page. Waits up to the implicit
+     * wait for them to appear.
+     **/
+    private Response find(Map<String, ?> parameters, FoundElement parent, boolean multiple) {
+        By by = normalize(toBy(String.valueOf(parameters.get("using")), String.valueOf(parameters.get("value"))));
+        List<Map<String, Object>> elements = findPresent(by, parent);
+
+        if (elements.isEmpty() && implicitWaitNanos > 0) {
+            // Move the clock to the moment the first element appears, but at most by the implicit wait
+            long pageNanos = nowNanos - pageLoadNanos;
+            long waitNanos = implicitWaitNanos;
+            for (ElementSpec spec : specs) {
+                if (spec.by.equals(by) && spec.child == (parent != null) && spec.appearNanos > pageNanos) {
+                    waitNanos = Math.min(waitNanos, spec.appearNanos - pageNanos);
+                }
+            }
+            nowNanos += waitNanos;
+            scenarioImplicitWaitNanos += waitNanos;
+            elements = findPresent(by, parent);
+        }
+
+        if (multiple) {
+            return success(elements);
+        } else if (elements.isEmpty()) {
+            return failure(ErrorCodes.NO_SUCH_ELEMENT, "Unable to locate element: " + by);
+        }
+        return success(elements.get(0));
+    }
+
+    /**
+     * Returns the references of the present elements of a locator and remembers them.
+     **/
+    private List<Map<String, Object>> findPresent(By by, FoundElement parent) {
+        List<Map<String, Object>> elements = new ArrayList<>();
+        long pageNanos = nowNanos - pageLoadNanos;
+
+        for (int specIndex = 0; specIndex < specs.size(); specIndex++) {
+            ElementSpec spec = specs.get(specIndex);
+            if (spec.by.equals(by) && spec.child == (parent != null) && spec.isPresent(pageNanos)) {
+                for (int index = 0; index < spec.count; index++) {
+                    // The same element always gets the same id, like in a browser
+                    String id = "sim-" + specIndex + "-" + index + (parent != null ? "-of-" + parent.id : "");
+                    foundElements.put(id, new FoundElement(id, spec, parent));
+                    Map<String, Object> reference = new HashMap<>();
+                    reference.put(ELEMENT_KEY, id);
+                    reference.put("ELEMENT", id);
+                    elements.add(reference);
+                }
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Returns the declared elements of a locator.
+     **/
+    private List<ElementSpec> getSpecs(By by) {
+        List<ElementSpec> result = new ArrayList<>();
+        By normalizedBy = normalize(by);
+
+        for (ElementSpec spec : specs) {
+            if (spec.by.equals(normalizedBy)) {
+                result.add(spec);
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("No elements were declared for " + by);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the locator of a find command.
+     **/
+    private static By toBy(String using, String value) {
+        switch (using) {
+            case "id":
+                return By.id(value);
+            case "name":
+                return By.name(value);
+            case "class name":
+                return By.className(value);
+            case "css selector":
+                return By.cssSelector(value);
+            case "tag name":
+                return By.tagName(value);
+            case "xpath":
+                return By.xpath(value);
+            case "link text":
+                return By.linkText(value);
+            case "partial link text":
+                return By.partialLinkText(value);
+            default:
+                throw new IllegalArgumentException("Unknown locator strategy " + using);
+        }
+    }
+
+    /**
+     * Rewrites an XPath locator like the FindBy annotations are rewritten.
+     **/
+    private static By normalize(By by) {
+        return TRANSFORMER.optimizeLocator(by);
+    }
+
+    /**
+     * Creates the response of a successful command.
+     **/
+    private static Response success(Object value) {
+        Response response = new Response();
+        response.setStatus(ErrorCodes.SUCCESS);
+        response.setState("success");
+        response.setSessionId("simulated");
+        response.setValue(value);
+        return response;
+    }
+
+    /**
+     * Creates the response of a failed command, which the RemoteWebDriver turns into the matching exception.
+     **/
+    private static Response failure(int status, String message) {
+        Response response = new Response();
+        response.setStatus(status);
+        response.setState(new ErrorCodes().toState(status));
+        response.setSessionId("simulated");
+        response.setValue(Collections.singletonMap("message", message));
+        return response;
+    }
+}
@@ -0,0 +1,322 @@
+package webelement.driver;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverCommandExecutor;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Uploads files to the selenium server (or grid) of a remote session, so they can be entered into file inputs.
+ * <p>
+ * Selenium reads the whole file into memory, zips and base64 encodes it on the heap and sends it as one string. This
+ * uploader streams the file through the zip compression and the base64 encoding directly into the HTTP request, so
+ * the used memory does not depend on the size of the file. Several files are uploaded concurrently.
+ * <p>
+ * Files for local sessions (a driver service) are not uploaded, since the browser can read them directly.
+ **/
+public class StreamingFileUploader implements AutoCloseable {
+
+    /**
+     * The media type of the upload requests.
+     **/
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    /**
+     * The uploader used by the custom webelements, created on first use.
+     **/
+    private static volatile StreamingFileUploader defaultUploader;
+
+    /**
+     * The client which sends the upload requests.
+     **/
+    private final OkHttpClient client;
+
+    /**
+     * The threads which upload the files.
+     **/
+    private final ExecutorService executor;
+
+    /**
+     * The compression level of the zip, see {@link Deflater}.
+     **/
+    private volatile int compressionLevel = Deflater.BEST_SPEED;
+
+    /**
+     * The number of uploaded files.
+     **/
+    private final AtomicLong uploadedFiles = new AtomicLong();
+
+    /**
+     * The number of uploaded bytes (of the files, not of the requests).
+     **/
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    /**
+     * Constructor. Uploads up to 4 files concurrently.
+     **/
+    public StreamingFileUploader() {
+        this(new OkHttpClient.Builder()
+                .readTimeout(10, TimeUnit.MINUTES)
+                .writeTimeout(10, TimeUnit.MINUTES)
+                .build(), 4);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param client  The client which sends the upload requests.
+     * @param threads The maximum number of concurrent uploads.
+     **/
+    public StreamingFileUploader(OkHttpClient client, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.client = client;
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "file-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the uploader used by the custom webelements.
+     *
+     * @return The default uploader.
+     **/
+    public static StreamingFileUploader getDefault() {
+        if (defaultUploader == null) {
+            synchronized (StreamingFileUploader.class) {
+                if (defaultUploader == null) {
+                    defaultUploader = new StreamingFileUploader();
+                }
+            }
+        }
+        return defaultUploader;
+    }
+
+    /**
+     * Sets the compression level of the zip. Default is the fastest compression, since large fixtures are often
+     * compressed already.
+     *
+     * @param compressionLevel The compression level from 0 (none) to 9 (best), see {@link Deflater}.
+     * @return This uploader.
+     **/
+    public StreamingFileUploader withCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Returns the url of the selenium server of a remote session.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @return The url of the selenium server or null if the session is local (or the driver is no RemoteWebDriver).
+     **/
+    public static URL getRemoteUrl(WebDriver webDriver) {
+        HttpCommandExecutor commandExecutor = WebDriverFactory.findCommandExecutor(webDriver, HttpCommandExecutor.class);
+
+        if (commandExecutor == null || commandExecutor instanceof DriverServiceCommandExecutor
+                || commandExecutor instanceof DriverCommandExecutor) {
+            return null;
+        }
+        return commandExecutor.getAddressOfRemoteServer();
+    }
+
+    /**
+     * Makes the files available to the browser of the session: uploads them concurrently for a remote session and
+     * returns their paths on the remote machine, or returns their absolute paths for a local session.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param files     The files.
+     * @return The paths of the files for the browser, in the order of the files.
+     * @throws WebDriverException If a file could not be uploaded.
+     **/
+    public List<String> upload(WebDriver webDriver, List<Path> files) {
+        URL remoteUrl = getRemoteUrl(webDriver);
+        List<String> paths = new ArrayList<>(files.size());
+
+        if (remoteUrl == null) {
+            for (Path file : files) {
+                paths.add(file.toAbsolutePath().toString());
+            }
+            return paths;
+        }
+
+        String sessionId = ((RemoteWebDriver) webDriver).getSessionId().toString();
+        List<CompletableFuture<String>> uploads = new ArrayList<>(files.size());
+        for (Path file : files) {
+            uploads.add(uploadAsync(remoteUrl, sessionId, file));
+        }
+        try {
+            for (CompletableFuture<String> upload : uploads) {
+                paths.add(upload.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof WebDriverException ? (WebDriverException) e.getCause() : new WebDriverException(e.getCause());
+        }
+        return paths;
+    }
+
+    /**
+     * Uploads a file on one of the upload threads.
+     *
+     * @param remoteUrl The url of the selenium server.
+     * @param sessionId The id of the session.
+     * @param file      The file.
+     * @return Completes with the path of the file on the remote machine.
+     **/
+    public CompletableFuture<String> uploadAsync(URL remoteUrl, String sessionId, Path file) {
+        return CompletableFuture.supplyAsync(() -> upload(remoteUrl, sessionId, file), executor);
+    }
+
+    /**
+     * Uploads a file with the "uploadFile" command of the selenium server.
+     *
+     * @param remoteUrl The url of the selenium server.
+     * @param sessionId The id of the session.
+     * @param file      The file.
+     * @return The path of the file on the remote machine.
+     * @throws WebDriverException If the file could not be uploaded.
+     **/
+    public String upload(URL remoteUrl, String sessionId, Path file) {
+        if (!Files.isRegularFile(file)) {
+            throw new WebDriverException("You may only upload files: " + file);
+        }
+
+        String url = remoteUrl.toString().replaceAll("/+$", "") + "/session/" + sessionId + "/file";
+        Request request = new Request.Builder().url(url).post(new ZipBody(file, compressionLevel)).build();
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            String content = body == null ? "" : body.string();
+
+            if (!response.isSuccessful()) {
+                throw new WebDriverException("Cannot upload " + file + ": HTTP " + response.code() + " " + content);
+            }
+            Map<String, Object> value = new Json().toType(content, Json.MAP_TYPE);
+            uploadedFiles.incrementAndGet();
+            uploadedBytes.addAndGet(Files.size(file));
+            return (String) value.get("value");
+        } catch (IOException e) {
+            throw new WebDriverException("Cannot upload " + file, e);
+        }
+    }
+
+    /**
+     * Returns the number of uploaded files.
+     *
+     * @return The number of uploaded files.
+     **/
+    public long getUploadedFiles() {
+        return uploadedFiles.get();
+    }
+
+    /**
+     * Returns the number of uploaded bytes of the files.
+     *
+     * @return The number of uploaded bytes.
+     **/
+    public long getUploadedBytes() {
+        return uploadedBytes.get();
+    }
+
+    /**
+     * Stops the upload threads after the running uploads.
+     **/
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingFileUploader{uploadedFiles=" + uploadedFiles + ", uploadedBytes=" + uploadedBytes + "}";
+    }
+
+    /**
+     * The body of an upload request, {"file": "base64 encoded zip"}, which is zipped and encoded while it is sent.
+     **/
+    private static class ZipBody extends RequestBody {
+
+        /**
+         * The uploaded file.
+         **/
+        private final Path file;
+
+        /**
+         * The compression level of the zip.
+         **/
+        private final int compressionLevel;
+
+        /**
+         * Constructor.
+         *
+         * @param file             The uploaded file.
+         * @param compressionLevel The compression level of the zip.
+         **/
+        ZipBody(Path file, int compressionLevel) {
+            this.file = file;
+            this.compressionLevel = compressionLevel;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return JSON;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.writeUtf8("{\"file\":\"");
+            // Closing the zip writes its end and the base64 padding, but must not close the request
+            OutputStream request = new FilterOutputStream(sink.outputStream()) {
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    out.write(bytes, offset, length);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            try (ZipOutputStream zip = new ZipOutputStream(Base64.getEncoder().wrap(request))) {
+                zip.setLevel(compressionLevel);
+                zip.putNextEntry(new ZipEntry(file.getFileName().toString()));
+                Files.copy(file, zip);
+                zip.closeEntry();
+            }
+            sink.writeUtf8("\"}");
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package webelement.driver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the StreamingFileUploader against a local HTTP server, which stands in for the "uploadFile" command of a
+ * selenium server: it unpacks the uploaded zip and answers with the remote path of the file.
+ **/
+public class StreamingFileUploaderTest {
+
+    /**
+     * The files which are uploaded.
+     **/
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The local HTTP server.
+     **/
+    private HttpServer server;
+
+    /**
+     * The url of the server.
+     **/
+    private URL remoteUrl;
+
+    /**
+     * The uploader under test.
+     **/
+    private StreamingFileUploader uploader;
+
+    /**
+     * The path of each received request.
+     **/
+    private final List<String> paths = new CopyOnWriteArrayList<>();
+
+    /**
+     * The content type of each received request.
+     **/
+    private final List<String> contentTypes = new CopyOnWriteArrayList<>();
+
+    /**
+     * The name and the content of the zip entries of the received requests, in the order of the requests.
+     **/
+    private final List<Map.Entry<String, byte[]>> uploadedFiles = new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts the server on a free port and creates the uploader.
+     **/
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/wd/hub/session/", this::handle);
+        server.start();
+        remoteUrl = new URL("http://localhost:" + server.getAddress().getPort() + "/wd/hub/");
+        uploader = new StreamingFileUploader(new OkHttpClient(), 2);
+    }
+
+    /**
+     * Stops the server and the uploader.
+     **/
+    @After
+    public void tearDown() {
+        uploader.close();
+        server.stop(0);
+    }
+
+    /**
+     * The file is sent as {"file": "base64 encoded zip"} to the session and arrives unchanged.
+     **/
+    @Test
+    public void uploadsTheFileAsBase64EncodedZip() throws IOException {
+        byte[] content = randomBytes(300_000);
+        Path file = write("fixture.bin", content);
+
+        assertEquals("/remote/fixture.bin", uploader.upload(remoteUrl, "4f2a", file));
+
+        assertEquals(Arrays.asList("/wd/hub/session/4f2a/file"), paths);
+        assertTrue(contentTypes.get(0).startsWith("application/json"));
+        assertEquals(1, uploadedFiles.size());
+        assertEquals("fixture.bin", uploadedFiles.get(0).getKey());
+        assertArrayEquals(content, uploadedFiles.get(0).getValue());
+        assertEquals(1, uploader.getUploadedFiles());
+        assertEquals(content.length, uploader.getUploadedBytes());
+    }
+
+    /**
+     * Without compression the zip holds the file as it is, the round trip is the same.
+     **/
+    @Test
+    public void uploadsUncompressedZips() throws IOException {
+        byte[] content = "name;value\nsearch;Test\n".getBytes(StandardCharsets.UTF_8);
+        Path file = write("fixture.csv", content);
+
+        uploader.withCompressionLevel(0).upload(remoteUrl, "4f2a", file);
+
+        assertArrayEquals(content, uploadedFiles.get(0).getValue());
+    }
+
+    /**
+     * Several files are uploaded concurrently, each path is returned for its file.
+     **/
+    @Test
+    public void uploadsSeveralFiles() throws IOException {
+        List<CompletableFuture<String>> uploads = new ArrayList<>();
+        long bytes = 0;
+
+        for (int i = 0; i < 5; i++) {
+            byte[] content = randomBytes(10_000 * (i + 1));
+            uploads.add(uploader.uploadAsync(remoteUrl, "4f2a", write("fixture-" + i + ".bin", content)));
+            bytes += content.length;
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals("/remote/fixture-" + i + ".bin", uploads.get(i).join());
+        }
+
+        assertEquals(5, uploadedFiles.size());
+        assertEquals(5, uploader.getUploadedFiles());
+        assertEquals(bytes, uploader.getUploadedBytes());
+    }
+
+    /**
+     * A rejected upload fails with the status and the response of the server.
+     **/
+    @Test
+    public void failsIfTheServerRejectsTheUpload() throws IOException {
+        Path file = write("fixture.bin", randomBytes(100));
+
+        try {
+            uploader.upload(remoteUrl, "unknown", file);
+            fail("The upload to an unknown session did not fail");
+        } catch (WebDriverException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("HTTP 404"));
+            assertTrue(e.getMessage(), e.getMessage().contains("invalid session id"));
+        }
+        assertEquals(0, uploader.getUploadedFiles());
+    }
+
+    /**
+     * Only regular files can be uploaded.
+     **/
+    @Test(expected = WebDriverException.class)
+    public void rejectsDirectories() throws IOException {
+        uploader.upload(remoteUrl, "4f2a", temporaryFolder.newFolder().toPath());
+    }
+
+    /**
+     * The files of a session without a selenium server are not uploaded, the browser reads them directly.
+     **/
+    @Test
+    public void doesNotUploadFilesOfLocalSessions() throws IOException {
+        Path file = write("fixture.bin", randomBytes(100));
+        RemoteWebDriver webDriver = new SimulatedCommandExecutor().createDriver();
+
+        try {
+            assertNull(StreamingFileUploader.getRemoteUrl(webDriver));
+            assertEquals(Arrays.asList(file.toAbsolutePath().toString()), uploader.upload(webDriver, Arrays.asList(file)));
+        } finally {
+            webDriver.quit();
+        }
+        assertTrue(paths.isEmpty());
+    }
+
+    /**
+     * Writes a file into the temporary folder.
+     **/
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(temporaryFolder.getRoot().toPath().resolve(name), content);
+    }
+
+    /**
+     * Returns random bytes, which do not compress.
+     **/
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Unpacks the uploaded zip like the selenium server and answers with the remote path of the file. Uploads to the
+     * session "unknown" are answered like the selenium server answers an unknown session.
+     **/
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        byte[] body;
+
+        try (InputStream in = exchange.getRequestBody()) {
+            body = readAll(in);
+        }
+        paths.add(path);
+        contentTypes.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+
+        int status = 200;
+        String response;
+        if (path.startsWith("/wd/hub/session/unknown/")) {
+            status = 404;
+            response = "{\"value\":{\"error\":\"invalid session id\",\"message\":\"No active session with ID unknown\"}}";
+        } else {
+            Map<String, Object> request = new Json().toType(new String(body, StandardCharsets.UTF_8), Json.MAP_TYPE);
+            byte[] zip = Base64.getDecoder().decode((String) request.get("file"));
+
+            try (ZipInputStream entries = new ZipInputStream(new ByteArrayInputStream(zip))) {
+                ZipEntry entry = entries.getNextEntry();
+                uploadedFiles.add(new AbstractMap.SimpleImmutableEntry<>(entry.getName(), readAll(entries)));
+                if (entries.getNextEntry() != null) {
+                    throw new IOException("The zip contains more than one file");
+                }
+                response = "{\"value\":\"/remote/" + entry.getName() + "\"}";
+            }
+        }
+
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, responseBytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(responseBytes);
+        }
+    }
+
+    /**
+     * Reads a stream to its end.
+     **/
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+}
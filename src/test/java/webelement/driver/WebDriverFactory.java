@@ -0,0 +1,151 @@
+package webelement.driver;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.service.DriverService;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Creates the webdrivers which are used with the custom webelements, either for a remote selenium server (or grid)
+ * or for a local driver service.
+ * <p>
+ * All drivers of a factory send their commands through the same HTTP client factory, by default a
+ * {@link PooledHttpClientFactory}, so they share its keep-alive connections. The innermost layer is always a
+ * {@link NavigationTrackingCommandExecutor}, so custom webelements know the frame of the driver and page scopes notice
+ * navigations. Additional command executors (e.g. the JfrCommandExecutor) can be layered around the HTTP command
+ * executor, e.g.
+ * "new WebDriverFactory(url).withCommandExecutorLayer(JfrCommandExecutor::new).create(new ChromeOptions())".
+ **/
+public class WebDriverFactory {
+
+    /**
+     * The url of the remote selenium server or null if a local driver service is used.
+     **/
+    private final URL remoteUrl;
+
+    /**
+     * The local driver service or null if a remote selenium server is used.
+     **/
+    private final DriverService driverService;
+
+    /**
+     * The factory for the HTTP clients which send the commands.
+     **/
+    private HttpClient.Factory httpClientFactory = new PooledHttpClientFactory();
+
+    /**
+     * The command executor layers, from the innermost to the outermost one.
+     **/
+    private final List<UnaryOperator<CommandExecutor>> commandExecutorLayers = new ArrayList<>();
+
+    /**
+     * Constructor for drivers of a remote selenium server or grid.
+     *
+     * @param remoteUrl The url of the remote selenium server, e.g. "http://localhost:4444/wd/hub".
+     **/
+    public WebDriverFactory(URL remoteUrl) {
+        this.remoteUrl = remoteUrl;
+        this.driverService = null;
+    }
+
+    /**
+     * Constructor for drivers of a local driver service. The driver service is started with the driver and stopped
+     * when it quits, so create a new driver service for every driver (e.g. "ChromeDriverService.createDefaultService()").
+     *
+     * @param driverService The local driver service.
+     **/
+    public WebDriverFactory(DriverService driverService) {
+        this.remoteUrl = null;
+        this.driverService = driverService;
+    }
+
+    /**
+     * Sets the factory for the HTTP clients which send the commands. Default is a new {@link PooledHttpClientFactory}.
+     *
+     * @param httpClientFactory The factory for the HTTP clients.
+     * @return This factory.
+     **/
+    public WebDriverFactory withHttpClientFactory(HttpClient.Factory httpClientFactory) {
+        this.httpClientFactory = httpClientFactory;
+        return this;
+    }
+
+    /**
+     * Adds a command executor layer. The first added layer wraps the HTTP command executor (and its frame tracking),
+     * the last added layer receives the commands of the driver first.
+     *
+     * @param commandExecutorLayer Wraps the command executor of the previous layer.
+     * @return This factory.
+     **/
+    public WebDriverFactory withCommandExecutorLayer(UnaryOperator<CommandExecutor> commandExecutorLayer) {
+        commandExecutorLayers.add(commandExecutorLayer);
+        return this;
+    }
+
+    /**
+     * Returns the factory for the HTTP clients which send the commands.
+     *
+     * @return The factory for the HTTP clients.
+     **/
+    public HttpClient.Factory getHttpClientFactory() {
+        return httpClientFactory;
+    }
+
+    /**
+     * Creates the command executor of a new driver including all layers.
+     *
+     * @return The command executor.
+     **/
+    public CommandExecutor createCommandExecutor() {
+        CommandExecutor commandExecutor = driverService != null
+                ? new DriverServiceCommandExecutor(driverService, httpClientFactory)
+                : new HttpCommandExecutor(Collections.emptyMap(), remoteUrl, httpClientFactory);
+        commandExecutor = new NavigationTrackingCommandExecutor(commandExecutor);
+
+        for (UnaryOperator<CommandExecutor> commandExecutorLayer : commandExecutorLayers) {
+            commandExecutor = commandExecutorLayer.apply(commandExecutor);
+        }
+        return commandExecutor;
+    }
+
+    /**
+     * Creates a new driver and starts its session. The driver is a plain RemoteWebDriver, also for a local driver
+     * service, so it does not implement the browser specific interfaces of e.g. the ChromeDriver (WebStorage,
+     * LocationContext, NetworkConnection, HasTouchScreen).
+     *
+     * @param capabilities The capabilities of the session, e.g. "new ChromeOptions()".
+     * @return The driver.
+     **/
+    public RemoteWebDriver create(Capabilities capabilities) {
+        return new RemoteWebDriver(createCommandExecutor(), capabilities);
+    }
+
+    /**
+     * Returns the command executor layer of the given type of a driver, e.g. to get its metrics.
+     *
+     * @param webDriver            The driver.
+     * @param commandExecutorClass The type of the command executor layer.
+     * @param <T>                  The type of the command executor layer.
+     * @return The command executor layer or null if the driver does not use such a layer.
+     **/
+    public static <T extends CommandExecutor> T findCommandExecutor(WebDriver webDriver, Class<T> commandExecutorClass) {
+        CommandExecutor commandExecutor = webDriver instanceof RemoteWebDriver ? ((RemoteWebDriver) webDriver).getCommandExecutor() : null;
+
+        while (commandExecutor != null) {
+            if (commandExecutorClass.isInstance(commandExecutor)) {
+                return commandExecutorClass.cast(commandExecutor);
+            }
+            commandExecutor = commandExecutor instanceof CommandExecutorLayer ? ((CommandExecutorLayer) commandExecutor).getDelegate() : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,439 @@
+package webelement.modules;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Waits for each custom webelement as long as its locator needed in the past instead of one global implicit wait.
+ * <p>
+ * The time until an element appeared is recorded per page object class and locator and kept in a properties file
+ * between the runs. Once a locator has enough observations, it waits twice its 95th percentile (at least the minimal
+ * budget) and polls with a quarter of its median, so elements which are usually there fail fast and slow widgets get
+ * the time they need. Locators without enough observations wait the default budget. Each failed wait in a row of a
+ * locator with enough observations doubles its next budget, at most twice (four times the budget), until it succeeds
+ * again. All budgets and polling intervals stay within the hard caps.
+ * <p>
+ * Only the first location of a custom webelement is an observation. Its actions locate the element again, which is
+ * usually there already, so these lookups wait the budget without being recorded.
+ * <p>
+ * Enable it with "AdaptiveWaits.enable(webDriver, new AdaptiveWaits(Paths.get("adaptive-waits.properties")))" and set
+ * the implicit wait of the webdriver to 0, otherwise every unsuccessful poll waits the implicit wait. Call save() (or
+ * saveOnExit()) to keep the observations. Lists of custom webelements are not affected, an empty list is no failure.
+ **/
+public class AdaptiveWaits {
+
+    /**
+     * The number of observations which are kept per locator.
+     **/
+    private static final int MAX_SAMPLES = 50;
+
+    /**
+     * The number of observations which are needed before the history of a locator is used.
+     **/
+    private static final int MIN_SAMPLES = 5;
+
+    /**
+     * The adaptive waits of each webdriver.
+     **/
+    private static final Map<WebDriver, AdaptiveWaits> ENABLED_DRIVERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The file which keeps the observations or null if they are not kept.
+     **/
+    private final Path file;
+
+    /**
+     * The observations by page object class and locator.
+     **/
+    private final Map<String, LocatorHistory> histories = new ConcurrentHashMap<>();
+
+    /**
+     * The budget of locators without enough observations.
+     **/
+    private Duration defaultBudget = Duration.ofSeconds(10);
+
+    /**
+     * The hard caps of the budgets.
+     **/
+    private Duration minBudget = Duration.ofMillis(500);
+    private Duration maxBudget = Duration.ofSeconds(30);
+
+    /**
+     * The hard caps of the polling intervals.
+     **/
+    private Duration minPollingInterval = Duration.ofMillis(50);
+    private Duration maxPollingInterval = Duration.ofMillis(500);
+
+    /**
+     * Constructor. The observations are not kept between the runs.
+     **/
+    public AdaptiveWaits() {
+        this.file = null;
+    }
+
+    /**
+     * Constructor. Loads the observations of the previous runs from the file if it exists.
+     *
+     * @param file The file which keeps the observations.
+     * @throws UncheckedIOException If the file could not be read.
+     **/
+    public AdaptiveWaits(Path file) {
+        this.file = file;
+        if (Files.exists(file)) {
+            load();
+        }
+    }
+
+    /**
+     * Sets the budget of locators without enough observations. Default is 10 seconds.
+     *
+     * @param defaultBudget The budget of locators without enough observations.
+     * @return These adaptive waits.
+     **/
+    public AdaptiveWaits withDefaultBudget(Duration defaultBudget) {
+        this.defaultBudget = defaultBudget;
+        return this;
+    }
+
+    /**
+     * Sets the hard caps of the budgets. Default is 500 ms to 30 seconds.
+     *
+     * @param minBudget The minimal budget.
+     * @param maxBudget The maximal budget.
+     * @return These adaptive waits.
+     **/
+    public AdaptiveWaits withBudgetCaps(Duration minBudget, Duration maxBudget) {
+        this.minBudget = minBudget;
+        this.maxBudget = maxBudget;
+        return this;
+    }
+
+    /**
+     * Sets the hard caps of the polling intervals. Default is 50 ms to 500 ms.
+     *
+     * @param minPollingInterval The minimal polling interval.
+     * @param maxPollingInterval The maximal polling interval.
+     * @return These adaptive waits.
+     **/
+    public AdaptiveWaits withPollingCaps(Duration minPollingInterval, Duration maxPollingInterval) {
+        this.minPollingInterval = minPollingInterval;
+        this.maxPollingInterval = maxPollingInterval;
+        return this;
+    }
+
+    /**
+     * Lets the custom webelements of the webdriver wait with the adaptive waits.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param waits     The adaptive waits.
+     **/
+    public static void enable(WebDriver webDriver, AdaptiveWaits waits) {
+        ENABLED_DRIVERS.put(webDriver, waits);
+    }
+
+    /**
+     * Lets the custom webelements of the webdriver wait with the implicit wait again.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     **/
+    public static void disable(WebDriver webDriver) {
+        ENABLED_DRIVERS.remove(webDriver);
+    }
+
+    /**
+     * Returns the adaptive waits of the webdriver.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @return The adaptive waits or null if they are not enabled for the webdriver.
+     **/
+    public static AdaptiveWaits of(WebDriver webDriver) {
+        return ENABLED_DRIVERS.isEmpty() ? null : ENABLED_DRIVERS.get(webDriver);
+    }
+
+    /**
+     * Locates an element until it is found or the budget of its locator is spent and records how long it took.
+     *
+     * @param ownerClass The class of the page object (or custom webelement) of the element or null if it is unknown.
+     * @param locator    The locator of the element.
+     * @param locate     Locates the element without waiting and throws a NotFoundException if it is absent.
+     * @param <T>        The type of the located element.
+     * @return The located element.
+     * @throws NoSuchElementException If the element was not found within the budget.
+     **/
+    public <T> T await(Class<?> ownerClass, By locator, Supplier<T> locate) {
+        return await(ownerClass, locator, locate, true);
+    }
+
+    /**
+     * Locates an element until it is found or the budget of its locator is spent.
+     *
+     * @param ownerClass The class of the page object (or custom webelement) of the element or null if it is unknown.
+     * @param locator    The locator of the element.
+     * @param locate     Locates the element without waiting and throws a NotFoundException if it is absent.
+     * @param observe    Whether the time until the element appeared (or the failure) is recorded. Pass false for
+     *                   lookups of an element which was located before, they would only record its presence.
+     * @param <T>        The type of the located element.
+     * @return The located element.
+     * @throws NoSuchElementException If the element was not found within the budget.
+     **/
+    public <T> T await(Class<?> ownerClass, By locator, Supplier<T> locate, boolean observe) {
+        String key = (ownerClass != null ? ownerClass.getName() : "") + " " + locator;
+        LocatorHistory history = histories.computeIfAbsent(key, k -> new LocatorHistory());
+        long budgetMillis = getBudget(history).toMillis();
+        long pollingMillis = getPollingInterval(history).toMillis();
+        long start = System.nanoTime();
+
+        while (true) {
+            try {
+                T result = locate.get();
+                if (observe) {
+                    history.record((System.nanoTime() - start) / 1_000_000);
+                }
+                return result;
+            } catch (NotFoundException e) {
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+                if (elapsedMillis >= budgetMillis) {
+                    if (observe) {
+                        history.recordFailure();
+                    }
+                    throw new NoSuchElementException("Cannot locate " + locator + " within its adaptive budget of "
+                            + budgetMillis + " ms (" + history + ")", e);
+                }
+                try {
+                    Thread.sleep(Math.min(pollingMillis, budgetMillis - elapsedMillis));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the budget of a page object class and locator.
+     *
+     * @param ownerClass The class of the page object (or custom webelement) or null if it is unknown.
+     * @param locator    The locator.
+     * @return The time the locator is waited for.
+     **/
+    public Duration getBudget(Class<?> ownerClass, By locator) {
+        LocatorHistory history = histories.get((ownerClass != null ? ownerClass.getName() : "") + " " + locator);
+        return getBudget(history != null ? history : new LocatorHistory());
+    }
+
+    /**
+     * Writes the observations to the file.
+     *
+     * @throws UncheckedIOException If the file could not be written.
+     * @throws IllegalStateException If the observations are not kept in a file.
+     **/
+    public void save() {
+        if (file == null) {
+            throw new IllegalStateException("The adaptive waits were created without a file");
+        }
+
+        Properties properties = new Properties();
+        for (Map.Entry<String, LocatorHistory> history : histories.entrySet()) {
+            properties.setProperty(history.getKey(), history.getValue().serialize());
+        }
+        try {
+            // Written to a temporary file first, so concurrent runs never read a half written file
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporaryFile)) {
+                properties.store(out, "Observed appearance latencies (ms) per page object class and locator");
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot save the adaptive waits to " + file, e);
+        }
+    }
+
+    /**
+     * Saves the observations when the JVM exits.
+     *
+     * @return These adaptive waits.
+     **/
+    public AdaptiveWaits saveOnExit() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::save, "adaptive-waits-save"));
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveWaits{file=" + file + ", locators=" + histories + "}";
+    }
+
+    /**
+     * Reads the observations from the file.
+     **/
+    private void load() {
+        Properties properties = new Properties();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load the adaptive waits from " + file, e);
+        }
+        for (String key : properties.stringPropertyNames()) {
+            histories.put(key, LocatorHistory.deserialize(properties.getProperty(key)));
+        }
+    }
+
+    /**
+     * Computes the budget of a locator from its observations.
+     **/
+    private Duration getBudget(LocatorHistory history) {
+        long[] samples = history.getSamples();
+        long budgetMillis = defaultBudget.toMillis();
+
+        if (samples.length >= MIN_SAMPLES) {
+            // Each failure in a row doubles the budget (at most twice), so a widget which got slower does not fail forever
+            budgetMillis = 2 * percentile(samples, 95) << Math.min(history.getConsecutiveFailures(), 2);
+        }
+        return Duration.ofMillis(clamp(budgetMillis, minBudget.toMillis(), maxBudget.toMillis()));
+    }
+
+    /**
+     * Computes the polling interval of a locator from its observations.
+     **/
+    private Duration getPollingInterval(LocatorHistory history) {
+        long[] samples = history.getSamples();
+        long pollingMillis = samples.length < MIN_SAMPLES ? maxPollingInterval.toMillis() : percentile(samples, 50) / 4;
+        return Duration.ofMillis(clamp(pollingMillis, minPollingInterval.toMillis(), maxPollingInterval.toMillis()));
+    }
+
+    /**
+     * Returns the percentile of the samples.
+     **/
+    private static long percentile(long[] samples, int percentile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    /**
+     * Limits the value to the range from min to max.
+     **/
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * The observations of a locator: the latest appearance latencies and the number of failures in a row.
+     **/
+    private static class LocatorHistory {
+
+        /**
+         * The latest appearance latencies in ms, a ring buffer.
+         **/
+        private final long[] samples = new long[MAX_SAMPLES];
+
+        /**
+         * The number of recorded latencies.
+         **/
+        private int count;
+
+        /**
+         * The number of failed waits since the last success.
+         **/
+        private int consecutiveFailures;
+
+        /**
+         * Records the latency of a successful wait.
+         *
+         * @param millis The time until the element appeared.
+         **/
+        synchronized void record(long millis) {
+            samples[count % MAX_SAMPLES] = millis;
+            count++;
+            consecutiveFailures = 0;
+        }
+
+        /**
+         * Records a failed wait.
+         **/
+        synchronized void recordFailure() {
+            consecutiveFailures++;
+        }
+
+        /**
+         * Returns the recorded latencies.
+         *
+         * @return The latest appearance latencies in ms.
+         **/
+        synchronized long[] getSamples() {
+            return Arrays.copyOf(samples, Math.min(count, MAX_SAMPLES));
+        }
+
+        /**
+         * Returns the number of failed waits since the last success.
+         *
+         * @return The number of failures in a row.
+         **/
+        synchronized int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        /**
+         * Returns the observations in the form "failures;latency,latency,...".
+         *
+         * @return The serialized observations.
+         **/
+        synchronized String serialize() {
+            StringBuilder builder = new StringBuilder().append(consecutiveFailures).append(';');
+            long[] latest = getSamples();
+
+            for (int i = 0; i < latest.length; i++) {
+                builder.append(i > 0 ? "," : "").append(latest[i]);
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Reads observations which were written by serialize().
+         *
+         * @param value The serialized observations.
+         * @return The observations.
+         **/
+        static LocatorHistory deserialize(String value) {
+            LocatorHistory history = new LocatorHistory();
+            String[] parts = value.split(";", 2);
+
+            history.consecutiveFailures = Integer.parseInt(parts[0].trim());
+            if (parts.length > 1 && !parts[1].trim().isEmpty()) {
+                for (String sample : parts[1].split(",")) {
+                    history.record(Long.parseLong(sample.trim()));
+                }
+                // record() resets the failures
+                history.consecutiveFailures = Integer.parseInt(parts[0].trim());
+            }
+            return history;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return Math.min(count, MAX_SAMPLES) + " observations, " + consecutiveFailures + " failures in a row";
+        }
+    }
+}
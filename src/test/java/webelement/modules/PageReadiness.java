@@ -0,0 +1,199 @@
+package webelement.modules;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Waits until a page is idle: the document is loaded, no fetch or XMLHttpRequest is pending, no animation frame
+ * callback is queued and this has been the case for a short quiet period. This replaces fixed sleeps after a
+ * navigation or an action which loads data.
+ * <p>
+ * The first wait in a document injects small counters into fetch, XMLHttpRequest and requestAnimationFrame.
+ * Requests which were started before are not counted, but a navigation via get() only returns after the page was
+ * loaded anyway. The whole wait is a single executeAsyncScript() call, so the script timeout of the webdriver must be
+ * longer than the timeout of the wait.
+ * <p>
+ * With "PageReadiness.enableGating(webDriver, new PageReadiness())" the initialisation of page objects and every
+ * method call of a custom webelement (except the nested ones) wait until the page is idle, which costs one script
+ * execution per call.
+ **/
+public class PageReadiness {
+
+    /**
+     * Installs the counters if needed and calls back as soon as the page is idle or the timeout expired. Arguments:
+     * the timeout in ms, the quiet period in ms, true if queued animation frames keep the page busy and the callback.
+     * Calls back with [ready, readyState, pending requests, queued animation frames].
+     **/
+    private static final String WAIT_SCRIPT = ""
+            + "var timeout = arguments[0], quiet = arguments[1], countFrames = arguments[2];\n"
+            + "var callback = arguments[arguments.length - 1];\n"
+            + "var state = window.__webelementReadiness;\n"
+            + "if (!state) {\n"
+            + "  state = window.__webelementReadiness = {requests: 0, frames: 0, last: 0};\n"
+            + "  var settled = function () { state.last = Date.now(); };\n"
+            + "  var done = function () { state.requests--; settled(); };\n"
+            + "  if (window.fetch) {\n"
+            + "    var fetch = window.fetch;\n"
+            + "    window.fetch = function () {\n"
+            + "      state.requests++;\n"
+            + "      try { var promise = fetch.apply(this, arguments); } catch (e) { done(); throw e; }\n"
+            + "      promise.then(done, done);\n"
+            + "      return promise;\n"
+            + "    };\n"
+            + "  }\n"
+            + "  var send = XMLHttpRequest.prototype.send;\n"
+            + "  XMLHttpRequest.prototype.send = function () {\n"
+            + "    state.requests++;\n"
+            + "    this.addEventListener('loadend', done);\n"
+            + "    try { return send.apply(this, arguments); } catch (e) { done(); throw e; }\n"
+            + "  };\n"
+            + "  var request = window.requestAnimationFrame, cancel = window.cancelAnimationFrame, queued = {};\n"
+            + "  if (request && cancel) {\n"
+            + "    var dequeue = function (id) {\n"
+            + "      if (queued[id]) { delete queued[id]; state.frames--; settled(); }\n"
+            + "    };\n"
+            + "    window.requestAnimationFrame = function (frameCallback) {\n"
+            + "      var id = request.call(window, function (time) { dequeue(id); frameCallback(time); });\n"
+            + "      queued[id] = true;\n"
+            + "      state.frames++;\n"
+            + "      return id;\n"
+            + "    };\n"
+            + "    window.cancelAnimationFrame = function (id) { dequeue(id); return cancel.call(window, id); };\n"
+            + "  }\n"
+            + "}\n"
+            + "var deadline = Date.now() + timeout;\n"
+            + "(function check() {\n"
+            + "  var now = Date.now();\n"
+            + "  var busy = document.readyState !== 'complete' || state.requests > 0 || (countFrames && state.frames > 0);\n"
+            + "  if (busy) { state.last = now; }\n"
+            + "  if (!busy && now - state.last >= quiet) {\n"
+            + "    callback([true, document.readyState, state.requests, state.frames]);\n"
+            + "  } else if (now >= deadline) {\n"
+            + "    callback([false, document.readyState, state.requests, state.frames]);\n"
+            + "  } else {\n"
+            + "    setTimeout(check, 20);\n"
+            + "  }\n"
+            + "})();\n";
+
+    /**
+     * The readiness used to gate each webdriver.
+     **/
+    private static final Map<WebDriver, PageReadiness> GATED_DRIVERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The maximal time to wait.
+     **/
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * The time the page must be idle.
+     **/
+    private Duration quietPeriod = Duration.ofMillis(100);
+
+    /**
+     * True if queued animation frame callbacks keep the page busy.
+     **/
+    private boolean animationFrames = true;
+
+    /**
+     * Sets the maximal time to wait. Default is 10 seconds.
+     *
+     * @param timeout The maximal time to wait.
+     * @return This page readiness.
+     **/
+    public PageReadiness withTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the time the page must be idle, so a request which is started right after another one ended is noticed.
+     * Default is 100 ms.
+     *
+     * @param quietPeriod The time the page must be idle.
+     * @return This page readiness.
+     **/
+    public PageReadiness withQuietPeriod(Duration quietPeriod) {
+        this.quietPeriod = quietPeriod;
+        return this;
+    }
+
+    /**
+     * Sets whether queued animation frame callbacks keep the page busy. Turn it off for pages with endless animations.
+     * Default is true.
+     *
+     * @param animationFrames True if queued animation frame callbacks keep the page busy.
+     * @return This page readiness.
+     **/
+    public PageReadiness withAnimationFrames(boolean animationFrames) {
+        this.animationFrames = animationFrames;
+        return this;
+    }
+
+    /**
+     * Waits in a single script execution until the page (or the frame the webdriver is switched to) is idle.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @throws TimeoutException If the page is still busy after the timeout.
+     **/
+    public void waitUntilReady(WebDriver webDriver) {
+        List<?> result = (List<?>) ((JavascriptExecutor) webDriver).executeAsyncScript(WAIT_SCRIPT, timeout.toMillis(),
+                quietPeriod.toMillis(), animationFrames);
+
+        if (!Boolean.TRUE.equals(result.get(0))) {
+            throw new TimeoutException("The page was not ready after " + timeout.toMillis() + " ms: readyState="
+                    + result.get(1) + ", pending requests=" + result.get(2) + ", queued animation frames=" + result.get(3));
+        }
+    }
+
+    /**
+     * Lets the initialisation of page objects and the method calls of custom webelements wait until the page is idle.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param readiness The page readiness to wait with.
+     **/
+    public static void enableGating(WebDriver webDriver, PageReadiness readiness) {
+        GATED_DRIVERS.put(webDriver, readiness);
+    }
+
+    /**
+     * Stops waiting for the page before the initialisation of page objects and the method calls of custom webelements.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     **/
+    public static void disableGating(WebDriver webDriver) {
+        GATED_DRIVERS.remove(webDriver);
+    }
+
+    /**
+     * Returns true if the webdriver waits for the page before the initialisation of page objects and the method
+     * calls of custom webelements.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @return Returns true if gating is enabled for the webdriver, else false.
+     **/
+    public static boolean isGated(WebDriver webDriver) {
+        return !GATED_DRIVERS.isEmpty() && GATED_DRIVERS.containsKey(webDriver);
+    }
+
+    /**
+     * Waits until the page is idle if gating is enabled for the webdriver. Used by the CustomElementBinders and the
+     * CustomElementInvocations.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     **/
+    public static void awaitIfGated(WebDriver webDriver) {
+        PageReadiness readiness = GATED_DRIVERS.isEmpty() ? null : GATED_DRIVERS.get(webDriver);
+
+        if (readiness != null) {
+            readiness.waitUntilReady(webDriver);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package webelement.modules;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Captures screenshots of single elements and writes them to disk in the background.
+ * <p>
+ * The calling thread only waits for the base64 encoded PNG of the browser. Decoding, cropping, compression and the
+ * disk write run on a small thread pool. Its queue is bounded: if it is full, the calling thread writes the screenshot
+ * itself, so a burst of screenshots can not exhaust the memory. The default writer is closed by a shutdown hook, so
+ * the queued screenshots are written before the JVM exits. The image format is chosen by the file extension,
+ * "jpg" or "jpeg" files are compressed with the configured quality, all other files are written as PNG.
+ **/
+public class ScreenshotWriter implements AutoCloseable {
+
+    /**
+     * Scrolls the element into view and returns its bounds within the viewport and the device pixel ratio. Argument:
+     * the element.
+     **/
+    private static final String BOUNDS_SCRIPT = ""
+            + "var element = arguments[0];\n"
+            + "element.scrollIntoView({block: 'nearest', inline: 'nearest'});\n"
+            + "var rect = element.getBoundingClientRect();\n"
+            + "return [rect.left, rect.top, rect.width, rect.height, window.devicePixelRatio || 1];\n";
+
+    /**
+     * The screenshot writer used by the custom webelements, created on first use.
+     **/
+    private static volatile ScreenshotWriter defaultWriter;
+
+    /**
+     * Decodes, crops, compresses and writes the screenshots.
+     **/
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * The quality of jpeg files between 0 and 1.
+     **/
+    private volatile float jpegQuality = 0.85f;
+
+    /**
+     * Constructor. Uses one background thread and queues up to 32 screenshots.
+     **/
+    public ScreenshotWriter() {
+        this(1, 32);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threads       The number of background threads.
+     * @param queueCapacity The number of screenshots which may wait for a background thread.
+     **/
+    public ScreenshotWriter(int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "screenshot-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        // Runs the screenshot on the calling thread if the queue is full, rejects it after close()
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory, (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("The screenshot writer was closed.");
+                    }
+                    runnable.run();
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the screenshot writer used by the custom webelements. It is closed when the JVM shuts down.
+     *
+     * @return The default screenshot writer.
+     **/
+    public static ScreenshotWriter getDefault() {
+        if (defaultWriter == null) {
+            synchronized (ScreenshotWriter.class) {
+                if (defaultWriter == null) {
+                    ScreenshotWriter writer = new ScreenshotWriter();
+                    Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "screenshot-writer-shutdown"));
+                    defaultWriter = writer;
+                }
+            }
+        }
+        return defaultWriter;
+    }
+
+    /**
+     * Sets the quality of jpeg files. Default is 0.85.
+     *
+     * @param jpegQuality The quality between 0 (smallest files) and 1 (best quality).
+     * @return This screenshot writer.
+     **/
+    public ScreenshotWriter withJpegQuality(float jpegQuality) {
+        if (jpegQuality < 0 || jpegQuality > 1) {
+            throw new IllegalArgumentException("The jpeg quality must be between 0 and 1: " + jpegQuality);
+        }
+        this.jpegQuality = jpegQuality;
+        return this;
+    }
+
+    /**
+     * Captures the region of an element and writes it to a file in the background.
+     * <p>
+     * The browser captures the element itself if it supports element screenshots. Otherwise the viewport is captured
+     * and cropped to the bounds of the element in the background.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param webElement The element which should be captured.
+     * @param file       The file to which the screenshot should be written. Missing directories are created.
+     * @return Completes with the file as soon as it was written.
+     **/
+    public CompletableFuture<Path> capture(WebDriver webDriver, WebElement webElement, Path file) {
+        try {
+            return write(webElement.getScreenshotAs(OutputType.BASE64), null, file);
+        } catch (UnsupportedCommandException e) {
+            // Older drivers can only capture the viewport
+            List<?> bounds = (List<?>) ((JavascriptExecutor) webDriver).executeScript(BOUNDS_SCRIPT, webElement);
+            String screenshot = ((TakesScreenshot) webDriver).getScreenshotAs(OutputType.BASE64);
+            double ratio = ((Number) bounds.get(4)).doubleValue();
+            Rectangle region = new Rectangle(
+                    (int) Math.floor(((Number) bounds.get(0)).doubleValue() * ratio),
+                    (int) Math.floor(((Number) bounds.get(1)).doubleValue() * ratio),
+                    (int) Math.ceil(((Number) bounds.get(2)).doubleValue() * ratio),
+                    (int) Math.ceil(((Number) bounds.get(3)).doubleValue() * ratio));
+            return write(screenshot, region, file);
+        }
+    }
+
+    /**
+     * Writes a screenshot to a file in the background.
+     *
+     * @param base64Png The base64 encoded PNG as returned by the webdriver.
+     * @param region    The region in pixels to which the screenshot should be cropped or null for the whole screenshot.
+     * @param file      The file to which the screenshot should be written. Missing directories are created.
+     * @return Completes with the file as soon as it was written, completes exceptionally if the writer was closed.
+     **/
+    public CompletableFuture<Path> write(String base64Png, Rectangle region, Path file) {
+        CompletableFuture<Path> future = new CompletableFuture<>();
+
+        try {
+            executor.execute(() -> {
+                try {
+                    writeNow(base64Png, region, file);
+                    future.complete(file);
+                } catch (IOException e) {
+                    future.completeExceptionally(
+                            new UncheckedIOException("The screenshot " + file + " could not be written.", e));
+                } catch (RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The writer was closed before or while the screenshot was submitted
+            future.completeExceptionally(new IllegalStateException("The screenshot writer was closed.", e));
+        }
+        return future;
+    }
+
+    /**
+     * Returns the number of screenshots which wait for a background thread.
+     *
+     * @return The number of queued screenshots.
+     **/
+    public int getQueuedScreenshots() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of screenshots which were written in the background.
+     *
+     * @return The number of written screenshots.
+     **/
+    public long getWrittenScreenshots() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Waits until the queued screenshots are written and stops the background threads.
+     **/
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Decodes, crops, compresses and writes a screenshot.
+     **/
+    private void writeNow(String base64Png, Rectangle region, Path file) throws IOException {
+        byte[] png = Base64.getMimeDecoder().decode(base64Png);
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean jpeg = fileName.endsWith(".jpg") || fileName.endsWith(".jpeg");
+
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        // The PNG of the browser is written unchanged if it needs neither cropping nor another format
+        if (region == null && !jpeg) {
+            Files.write(file, png);
+            return;
+        }
+
+        // Decodes from memory, the file cache of ImageIO is closed by its own shutdown hook
+        BufferedImage image = ImageIO.read(new MemoryCacheImageInputStream(new ByteArrayInputStream(png)));
+        if (image == null) {
+            throw new IOException("The screenshot is no PNG image.");
+        }
+        if (region != null) {
+            Rectangle bounds = region.intersection(new Rectangle(image.getWidth(), image.getHeight()));
+            if (bounds.isEmpty()) {
+                throw new IOException("The element is outside of the screenshot: " + region);
+            }
+            image = image.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height);
+        }
+        if (jpeg) {
+            writeJpeg(image, file);
+        } else {
+            ImageIO.write(image, "png", file.toFile());
+        }
+    }
+
+    /**
+     * Writes an image as jpeg with the configured quality. Jpeg has no alpha channel, so it is dropped.
+     **/
+    private void writeJpeg(BufferedImage image, Path file) throws IOException {
+        BufferedImage rgbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        Graphics2D graphics = rgbImage.createGraphics();
+
+        graphics.drawImage(image, 0, 0, Color.WHITE, null);
+        graphics.dispose();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        Files.deleteIfExists(file);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(rgbImage, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
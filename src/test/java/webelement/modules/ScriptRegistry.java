@@ -0,0 +1,265 @@
+package webelement.modules;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Installs the large helper scripts of the custom webelements as named functions into the page, so an execution
+ * sends only a short call of the function with its arguments instead of the whole source.
+ * <p>
+ * The call checks whether the function is installed in the document (or frame) it runs in. If not, e.g. after a
+ * navigation, a reload or in another frame, the script is installed and executed with a second command. Only
+ * synchronous scripts can be pinned.
+ * <p>
+ * The registry counts the bytes of the scripts which would have been sent without it and the bytes which were sent,
+ * see toString().
+ **/
+public final class ScriptRegistry {
+
+    /**
+     * Returned by a call if the function is not installed in the document.
+     **/
+    private static final String MISSING = "__webelementScriptMissing";
+
+    /**
+     * The registry used by the custom webelements.
+     **/
+    private static final ScriptRegistry DEFAULT = new ScriptRegistry();
+
+    /**
+     * The pinned scripts by their name.
+     **/
+    private final Map<String, PinnedScript> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the registry used by the custom webelements.
+     *
+     * @return The default registry.
+     **/
+    public static ScriptRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Pins a script.
+     *
+     * @param name   The name of the script, unique within the registry.
+     * @param source The source of the script, as it would be passed to executeScript().
+     * @return The pinned script.
+     * @throws IllegalArgumentException If another script with the same name was already pinned.
+     **/
+    public PinnedScript pin(String name, String source) {
+        PinnedScript script = scripts.computeIfAbsent(name, key -> new PinnedScript(key, source));
+
+        if (!script.source.equals(source)) {
+            throw new IllegalArgumentException("Another script with the name " + name + " is already pinned");
+        }
+        return script;
+    }
+
+    /**
+     * Returns the pinned scripts.
+     *
+     * @return The pinned scripts.
+     **/
+    public List<PinnedScript> getScripts() {
+        return new ArrayList<>(scripts.values());
+    }
+
+    /**
+     * Returns the bytes of the scripts which would have been sent without pinning them.
+     *
+     * @return The bytes of the full scripts.
+     **/
+    public long getFullBytes() {
+        long bytes = 0;
+
+        for (PinnedScript script : scripts.values()) {
+            bytes += script.getFullBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the bytes of the scripts which were sent.
+     *
+     * @return The bytes of the sent scripts.
+     **/
+    public long getSentBytes() {
+        long bytes = 0;
+
+        for (PinnedScript script : scripts.values()) {
+            bytes += script.getSentBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ScriptRegistry{fullBytes=" + getFullBytes() + ", sentBytes=" + getSentBytes() + ", scripts=" + getScripts() + "}";
+    }
+
+    /**
+     * A script which is installed as a named function into the page.
+     **/
+    public static final class PinnedScript {
+
+        /**
+         * The name of the script.
+         **/
+        private final String name;
+
+        /**
+         * The source of the script.
+         **/
+        private final String source;
+
+        /**
+         * Calls the installed function or returns MISSING.
+         **/
+        private final String callScript;
+
+        /**
+         * Installs the function and calls it.
+         **/
+        private final String installScript;
+
+        /**
+         * The bytes of the source, the call and the installation.
+         **/
+        private final int sourceBytes;
+        private final int callBytes;
+        private final int installBytes;
+
+        /**
+         * The number of executions.
+         **/
+        private final AtomicLong calls = new AtomicLong();
+
+        /**
+         * The number of installations.
+         **/
+        private final AtomicLong installs = new AtomicLong();
+
+        /**
+         * The number of sent bytes.
+         **/
+        private final AtomicLong sentBytes = new AtomicLong();
+
+        /**
+         * Constructor.
+         *
+         * @param name   The name of the script.
+         * @param source The source of the script.
+         **/
+        PinnedScript(String name, String source) {
+            this.name = name;
+            this.source = source;
+            // The hash keeps the functions of different versions of a script apart, e.g. in a long living page
+            String key = name + "_" + Integer.toHexString(source.hashCode());
+            this.callScript = ""
+                    + "var scripts = window.__webelementScripts;\n"
+                    + "return scripts && scripts['" + key + "'] ? scripts['" + key + "'].apply(null, arguments) : '" + MISSING + "';\n";
+            this.installScript = ""
+                    + "var scripts = window.__webelementScripts = window.__webelementScripts || {};\n"
+                    + "scripts['" + key + "'] = function () {\n"
+                    + source
+                    + "\n};\n"
+                    + "return scripts['" + key + "'].apply(null, arguments);\n";
+            this.sourceBytes = source.getBytes(StandardCharsets.UTF_8).length;
+            this.callBytes = callScript.getBytes(StandardCharsets.UTF_8).length;
+            this.installBytes = installScript.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        /**
+         * Executes the script with the given arguments. Costs one command if the script is installed in the current
+         * document, else two commands.
+         *
+         * @param webDriver The webDriver used to interact with the webbrowser.
+         * @param arguments The arguments of the script.
+         * @return The return value of the script, see executeScript().
+         **/
+        public Object execute(WebDriver webDriver, Object... arguments) {
+            JavascriptExecutor executor = (JavascriptExecutor) webDriver;
+
+            calls.incrementAndGet();
+            sentBytes.addAndGet(callBytes);
+            Object result = executor.executeScript(callScript, arguments);
+            if (!MISSING.equals(result)) {
+                return result;
+            }
+
+            installs.incrementAndGet();
+            sentBytes.addAndGet(installBytes);
+            return executor.executeScript(installScript, arguments);
+        }
+
+        /**
+         * Returns the name of the script.
+         *
+         * @return The name of the script.
+         **/
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the source of the script.
+         *
+         * @return The source of the script.
+         **/
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Returns the number of executions.
+         *
+         * @return The number of executions.
+         **/
+        public long getCalls() {
+            return calls.get();
+        }
+
+        /**
+         * Returns the number of installations, e.g. once per document.
+         *
+         * @return The number of installations.
+         **/
+        public long getInstalls() {
+            return installs.get();
+        }
+
+        /**
+         * Returns the bytes of the script which would have been sent without pinning it.
+         *
+         * @return The bytes of the full script for all executions.
+         **/
+        public long getFullBytes() {
+            return calls.get() * sourceBytes;
+        }
+
+        /**
+         * Returns the bytes of the script which were sent.
+         *
+         * @return The bytes of the calls and installations.
+         **/
+        public long getSentBytes() {
+            return sentBytes.get();
+        }
+
+        @Override
+        public String toString() {
+            long currentCalls = calls.get();
+            return name + "{calls=" + currentCalls + ", installs=" + installs + ", bytesPerCallBefore=" + sourceBytes
+                    + ", bytesPerCallAfter=" + (currentCalls == 0 ? callBytes : sentBytes.get() / currentCalls) + "}";
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package webelement.modules;
+
+/**
+ * JavaScript helpers for custom webelements which do their work in a single executeScript() call.
+ * Every script expects its locators in the form of WebElementTransformer.transformByToScriptLocator().
+ **/
+public final class WebElementScripts {
+
+    /**
+     * Defines the function "find(root, locator)", which returns all elements below root (an element or the document)
+     * that match the locator. The locator strategies behave like their selenium counterparts.
+     **/
+    public static final String FIND_FUNCTION = ""
+            + "function find(root, locator) {\n"
+            + "  var type = locator[0], value = locator[1];\n"
+            + "  var quote = function (text) { return '\"' + text.replace(/[\"\\\\]/g, '\\\\$&') + '\"'; };\n"
+            + "  var all = function (selector) { return Array.prototype.slice.call(root.querySelectorAll(selector)); };\n"
+            + "  var links = function (matches) {\n"
+            + "    return all('a').filter(function (link) { return matches((link.innerText || link.textContent).trim()); });\n"
+            + "  };\n"
+            + "  switch (type) {\n"
+            + "    case 'ID': return all('[id=' + quote(value) + ']');\n"
+            + "    case 'NAME': return all('[name=' + quote(value) + ']');\n"
+            + "    case 'CLASS_NAME': return all('.' + CSS.escape(value));\n"
+            + "    case 'CSS': case 'TAG_NAME': return all(value);\n"
+            + "    case 'LINK_TEXT': return links(function (text) { return text === value; });\n"
+            + "    case 'PARTIAL_LINK_TEXT': return links(function (text) { return text.indexOf(value) >= 0; });\n"
+            + "    case 'XPATH':\n"
+            + "      var result = document.evaluate(value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null), nodes = [];\n"
+            + "      for (var i = 0; i < result.snapshotLength; i++) { nodes.push(result.snapshotItem(i)); }\n"
+            + "      return nodes;\n"
+            + "  }\n"
+            + "  throw new Error('Unknown locator type ' + type);\n"
+            + "}\n";
+
+    /**
+     * Defines the function "fire(element, types)", which dispatches bubbling events like a user interaction would.
+     **/
+    public static final String FIRE_FUNCTION = ""
+            + "function fire(element, types) {\n"
+            + "  types.forEach(function (type) { element.dispatchEvent(new Event(type, {bubbles: true})); });\n"
+            + "}\n";
+
+    private WebElementScripts() {
+    }
+}
@@ -0,0 +1,225 @@
+package webelement.modules;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Computes the visibility or enablement of a whole collection of elements in a single script execution.
+ * <p>
+ * The isDisplayed() of selenium executes a large script per element, so filtering a list by its visible items costs
+ * one expensive command per item. The script of this class checks all elements at once, with the same rules as
+ * selenium for the common cases: an element is visible if it and its ancestors are not hidden by "display: none",
+ * "visibility: hidden" or "opacity: 0" and it (or one of its children) has a size. Options are visible if their select
+ * is. An element is enabled unless it is a disabled form control (including the controls of a disabled fieldset).
+ * <p>
+ * The presence checks find the elements in a script as well, so they answer immediately instead of waiting for the
+ * implicit wait like a findElements() without matches.
+ * <p>
+ * A fingerprint is a hash of the markup and the form values (value, checked and selected) of elements and their
+ * subtrees, so a change of their content can be noticed with one small command instead of reading the content again.
+ * Changes which only come from a stylesheet are not noticed.
+ **/
+public final class WebElementStates {
+
+    /**
+     * Returns the indices of the elements with the requested state. Arguments: the locator of the elements (or null),
+     * the elements (or null) and the state ("displayed" or "enabled").
+     **/
+    private static final ScriptRegistry.PinnedScript INDICES_SCRIPT = ScriptRegistry.getDefault().pin("indices", WebElementScripts.FIND_FUNCTION
+            + "function displayed(element) {\n"
+            + "  if (!element.isConnected) { return false; }\n"
+            + "  var tag = element.tagName.toUpperCase();\n"
+            + "  if (tag === 'OPTION' || tag === 'OPTGROUP') {\n"
+            + "    var select = element.closest('select, datalist');\n"
+            + "    return !select || (select.tagName.toUpperCase() === 'SELECT' && displayed(select));\n"
+            + "  }\n"
+            + "  if (tag === 'INPUT' && (element.type || '').toLowerCase() === 'hidden') { return false; }\n"
+            + "  for (var node = element; node && node.nodeType === 1; node = node.parentElement) {\n"
+            + "    var style = getComputedStyle(node);\n"
+            + "    if (style.display === 'none' || parseFloat(style.opacity) === 0) { return false; }\n"
+            + "  }\n"
+            + "  var visibility = getComputedStyle(element).visibility;\n"
+            + "  return visibility !== 'hidden' && visibility !== 'collapse' && sized(element);\n"
+            + "}\n"
+            + "function sized(element) {\n"
+            + "  var rect = element.getBoundingClientRect();\n"
+            + "  return (rect.width > 0 && rect.height > 0) || Array.prototype.some.call(element.children, function (child) {\n"
+            + "    var style = getComputedStyle(child);\n"
+            + "    return style.display !== 'none' && style.visibility !== 'hidden' && sized(child);\n"
+            + "  });\n"
+            + "}\n"
+            + "function enabled(element) {\n"
+            + "  return !(element.matches && element.matches(':disabled'));\n"
+            + "}\n"
+            + "var elements = arguments[0] ? find(document, arguments[0]) : arguments[1];\n"
+            + "var check = arguments[2] === 'displayed' ? displayed : enabled, indices = [];\n"
+            + "for (var i = 0; i < elements.length; i++) {\n"
+            + "  if (check(elements[i])) { indices.push(i); }\n"
+            + "}\n"
+            + "return indices;\n");
+
+    /**
+     * Counts the elements which match the locator. Arguments: the root element (or null for the document) and the
+     * locator.
+     **/
+    private static final ScriptRegistry.PinnedScript COUNT_SCRIPT = ScriptRegistry.getDefault().pin("count", WebElementScripts.FIND_FUNCTION
+            + "return find(arguments[0] || document, arguments[1]).length;\n");
+
+    /**
+     * Returns true if the element is still attached to the document. Argument: the element.
+     **/
+    private static final String ATTACHED_SCRIPT = "return arguments[0].isConnected !== false;\n";
+
+    /**
+     * Hashes the subtrees of the elements which match the locator (or of the root element if there is no locator).
+     * Arguments: the root element (or null for the document), the locator (or null) and the maximal number of
+     * hashed elements (or null for all). Returns "count:length:hash".
+     **/
+    private static final ScriptRegistry.PinnedScript FINGERPRINT_SCRIPT = ScriptRegistry.getDefault().pin("fingerprint", WebElementScripts.FIND_FUNCTION
+            + "var hash = 0x811c9dc5 | 0, length = 0;\n"
+            + "function add(text) {\n"
+            + "  for (var i = 0; i < text.length; i++) { hash = Math.imul(hash ^ text.charCodeAt(i), 16777619); }\n"
+            + "  length += text.length;\n"
+            + "}\n"
+            + "var elements = arguments[1] ? find(arguments[0] || document, arguments[1]) : [arguments[0]];\n"
+            + "var count = arguments[2] === null ? elements.length : Math.min(arguments[2], elements.length);\n"
+            + "for (var i = 0; i < count; i++) {\n"
+            + "  var element = elements[i];\n"
+            + "  add(element.outerHTML);\n"
+            + "  // Form values are not reflected in the markup\n"
+            + "  var controls = [element].concat(Array.prototype.slice.call(element.querySelectorAll('input, select, textarea, option')));\n"
+            + "  for (var j = 0; j < controls.length; j++) {\n"
+            + "    var control = controls[j];\n"
+            + "    if ('value' in control || 'checked' in control || 'selected' in control) {\n"
+            + "      add('|' + (control.value || '') + (control.checked ? '1' : '0') + (control.selected ? '1' : '0'));\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n"
+            + "return elements.length + ':' + length + ':' + (hash >>> 0).toString(16);\n");
+
+    private WebElementStates() {
+    }
+
+    /**
+     * Returns the indices of the visible elements which match the locator.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param by        The locator of the elements.
+     * @return The indices of the visible elements, in the order of findElements().
+     **/
+    public static List<Integer> visibleIndices(WebDriver webDriver, By by) {
+        return indices(webDriver, new WebElementTransformer().transformByToScriptLocator(by), null, "displayed");
+    }
+
+    /**
+     * Returns the indices of the visible elements.
+     *
+     * @param webDriver   The webDriver used to interact with the webbrowser.
+     * @param webElements The elements.
+     * @return The indices of the visible elements.
+     **/
+    public static List<Integer> visibleIndices(WebDriver webDriver, List<? extends WebElement> webElements) {
+        return webElements.isEmpty() ? Collections.<Integer>emptyList() : indices(webDriver, null, webElements, "displayed");
+    }
+
+    /**
+     * Returns the indices of the enabled elements which match the locator.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param by        The locator of the elements.
+     * @return The indices of the enabled elements, in the order of findElements().
+     **/
+    public static List<Integer> enabledIndices(WebDriver webDriver, By by) {
+        return indices(webDriver, new WebElementTransformer().transformByToScriptLocator(by), null, "enabled");
+    }
+
+    /**
+     * Returns the indices of the enabled elements.
+     *
+     * @param webDriver   The webDriver used to interact with the webbrowser.
+     * @param webElements The elements.
+     * @return The indices of the enabled elements.
+     **/
+    public static List<Integer> enabledIndices(WebDriver webDriver, List<? extends WebElement> webElements) {
+        return webElements.isEmpty() ? Collections.<Integer>emptyList() : indices(webDriver, null, webElements, "enabled");
+    }
+
+    /**
+     * Counts the elements which match the locator without waiting for the implicit wait.
+     *
+     * @param webDriver The webDriver used to interact with the webbrowser.
+     * @param root      The element within which the elements are searched or null to search the whole page.
+     * @param by        The locator of the elements.
+     * @return The number of matching elements.
+     **/
+    public static int countPresent(WebDriver webDriver, WebElement root, By by) {
+        Object count = COUNT_SCRIPT.execute(webDriver, root, new WebElementTransformer().transformByToScriptLocator(by));
+        return ((Number) count).intValue();
+    }
+
+    /**
+     * Returns true if the element is still attached to the document, without waiting for the implicit wait.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param webElement The element.
+     * @return Returns true if the element is attached, false if it is stale.
+     **/
+    public static boolean isAttached(WebDriver webDriver, WebElement webElement) {
+        try {
+            return Boolean.TRUE.equals(((JavascriptExecutor) webDriver).executeScript(ATTACHED_SCRIPT, webElement));
+        } catch (StaleElementReferenceException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the fingerprint of an element and its subtree.
+     *
+     * @param webDriver  The webDriver used to interact with the webbrowser.
+     * @param webElement The element.
+     * @return The fingerprint, which changes when the markup or a form value of the subtree changes.
+     **/
+    public static String fingerprint(WebDriver webDriver, WebElement webElement) {
+        return (String) FINGERPRINT_SCRIPT.execute(webDriver, webElement, null, null);
+    }
+
+    /**
+     * Returns the fingerprint of the elements which match the locator and their subtrees, without waiting for the
+     * implicit wait. The fingerprint changes as well when elements are added or removed.
+     *
+     * @param webDriver   The webDriver used to interact with the webbrowser.
+     * @param root        The element within which the elements are searched or null to search the whole page.
+     * @param by          The locator of the elements.
+     * @param maxElements The maximal number of hashed elements, e.g. 1 for the element a findElement() would return.
+     * @return The fingerprint of the matching elements.
+     **/
+    public static String fingerprint(WebDriver webDriver, WebElement root, By by, int maxElements) {
+        return (String) FINGERPRINT_SCRIPT.execute(webDriver, root, new WebElementTransformer().transformByToScriptLocator(by), maxElements);
+    }
+
+    /**
+     * Executes the script which computes the indices.
+     *
+     * @param webDriver   The webDriver used to interact with the webbrowser.
+     * @param locator     The locator of the elements or null.
+     * @param webElements The elements or null.
+     * @param state       The requested state, "displayed" or "enabled".
+     * @return The indices of the elements with the requested state.
+     **/
+    private static List<Integer> indices(WebDriver webDriver, List<String> locator, List<? extends WebElement> webElements, String state) {
+        List<?> result = (List<?>) INDICES_SCRIPT.execute(webDriver, locator, webElements, state);
+        List<Integer> indices = new ArrayList<>(result.size());
+
+        for (Object index : result) {
+            indices.add(((Number) index).intValue());
+        }
+        return indices;
+    }
+}
@@ -5,6 +5,8 @@ import org.openqa.selenium.By.*;
 import org.openqa.selenium.support.FindBy;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Offers transformation methods and locator access.
@@ -19,12 +21,25 @@ public class WebElementTransformer {
     }
 
     /**
-     * Transforms a FindBy annotation to a By locator.
+     * Transforms a FindBy annotation to a By locator. Simple XPath expressions are rewritten to the equivalent and
+     * faster id, name, tag name or css locator (see {@link XPathOptimizer}).
      *
      * @param findBy The FindBy annotation which should be transformed to a By locator.
      * @return The locator which was created from the given parameter.
      **/
     public By transformFindByToBy(FindBy findBy) {
+        return transformFindByToBy(findBy, true);
+    }
+
+    /**
+     * Transforms a FindBy annotation to a By locator.
+     *
+     * @param findBy        The FindBy annotation which should be transformed to a By locator.
+     * @param optimizeXPath Whether a simple XPath expression is rewritten (see {@link XPathOptimizer}). Pass false for
+     *                      locators which are searched below an element, e.g. in a list item.
+     * @return The locator which was created from the given parameter.
+     **/
+    public By transformFindByToBy(FindBy findBy, boolean optimizeXPath) {
         if (findBy == null) {
             return null;
         } else if (findBy.id() != null && !findBy.id().isEmpty()) {
@@ -32,7 +47,7 @@ public class WebElementTransformer {
         } else if (findBy.name() != null && !findBy.name().isEmpty()) {
             return By.name(findBy.name());
         } else if (findBy.xpath() != null && !findBy.xpath().isEmpty()) {
-            return By.xpath(findBy.xpath());
+            return optimizeXPath ? XPathOptimizer.optimize(findBy.xpath()) : By.xpath(findBy.xpath());
         } else if (findBy.css() != null && !findBy.css().isEmpty()) {
             return By.cssSelector(findBy.css());
         } else if (findBy.className() != null && !findBy.className().isEmpty()) {
@@ -48,6 +63,20 @@ public class WebElementTransformer {
         throw new IllegalArgumentException("FindBy could not be mapped to By: " + findBy.toString());
     }
 
+    /**
+     * Rewrites a simple XPath locator to the equivalent and faster id, name, tag name or css locator. Only use it for
+     * locators which are searched in the whole document (see {@link XPathOptimizer}).
+     *
+     * @param locator The locator which should be optimized.
+     * @return The optimized locator or the locator itself if it is no XPath locator or could not be optimized.
+     **/
+    public By optimizeLocator(By locator) {
+        if (locator instanceof ByXPath) {
+            return XPathOptimizer.optimize(getLocatorValue(locator, LocatorType.XPATH));
+        }
+        return locator;
+    }
+
     /**
      * Returns the used type of a given by locator.
      *
@@ -90,28 +119,30 @@ public class WebElementTransformer {
         try {
             switch (type) {
                 case ID:
-                    locatorField = locator.getClass().getDeclaredField("id");
+                    locatorField = getDeclaredField(locator, "id");
                     break;
                 case CLASS_NAME:
-                    locatorField = locator.getClass().getDeclaredField("className");
+                    locatorField = getDeclaredField(locator, "className");
                     break;
                 case CSS:
-                    locatorField = locator.getClass().getDeclaredField("selector");
+                    // The field was renamed in newer selenium versions
+                    locatorField = getDeclaredField(locator, "cssSelector", "selector");
                     break;
                 case LINK_TEXT:
-                    locatorField = locator.getClass().getDeclaredField("linkText");
+                    locatorField = getDeclaredField(locator, "linkText");
                     break;
                 case NAME:
-                    locatorField = locator.getClass().getDeclaredField("name");
+                    locatorField = getDeclaredField(locator, "name");
                     break;
                 case PARTIAL_LINK_TEXT:
-                    locatorField = locator.getClass().getDeclaredField("linkText");
+                    locatorField = getDeclaredField(locator, "partialLinkText", "linkText");
                     break;
                 case TAG_NAME:
-                    locatorField = locator.getClass().getDeclaredField("name");
+                    // The field was renamed in newer selenium versions
+                    locatorField = getDeclaredField(locator, "tagName", "name");
                     break;
                 case XPATH:
-                    locatorField = locator.getClass().getDeclaredField("xpathExpression");
+                    locatorField = getDeclaredField(locator, "xpathExpression");
                     break;
                 default:
                     throw new IllegalArgumentException("The locator value for " + locator.toString() + " with the type " + type.toString() + " was not found.");
@@ -131,4 +162,34 @@ public class WebElementTransformer {
                     + locator.toString() + " with the type " + type.toString(), e);
         }
     }
+
+    /**
+     * Transforms a By locator to the form in which the helper scripts of the WebElementScripts class expect it.
+     *
+     * @param locator The locator which should be transformed.
+     * @return A list with the name of the LocatorType and the locator value.
+     **/
+    public List<String> transformByToScriptLocator(By locator) {
+        LocatorType type = getLocatorType(locator);
+        return Arrays.asList(type.name(), getLocatorValue(locator, type));
+    }
+
+    /**
+     * Returns the first declared field of the locator class with one of the given names.
+     *
+     * @param locator    The locator whose field should be returned.
+     * @param fieldNames The possible names of the field.
+     * @return The field.
+     * @throws NoSuchFieldException If the locator class has none of the fields.
+     **/
+    private Field getDeclaredField(By locator, String... fieldNames) throws NoSuchFieldException {
+        for (String fieldName : fieldNames) {
+            try {
+                return locator.getClass().getDeclaredField(fieldName);
+            } catch (NoSuchFieldException e) {
+                // Try the next name
+            }
+        }
+        throw new NoSuchFieldException(String.join(", ", fieldNames));
+    }
 }
@@ -0,0 +1,418 @@
+package webelement.modules;
+
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites simple XPath locators into id, name, tag name or css locators, which browsers evaluate much faster.
+ * <p>
+ * Only expressions with an exactly equivalent css selector are rewritten: paths of descendant ("//") and child ("/")
+ * steps with a lower case tag name or "*", whose predicates only test attributes, e.g. "//*[@id='x']" (By.id),
+ * "//input[@name='q']" (input[name="q"]) or "//div[contains(@class,'a')]" (div[class*="a"]). Everything else (text
+ * tests, positions, axes, functions, svg tag names, ...) is kept as XPath and reported once via java.util.logging.
+ * Value tests of attributes whose values css compares case-insensitively in html documents (e.g. type, lang or
+ * method) are kept as XPath as well, since "//input[@type='TEXT']" would also find the inputs with type="text".
+ * <p>
+ * The rewritten locators are equivalent when they are searched in the whole document, like the FindBy locators of
+ * page objects and custom webelements are. An XPath starting with "//" searches the whole document even below an
+ * element, a css selector does not, so do not use a rewritten locator below an element. The FindBy locators of
+ * custom webelements within list items are therefore kept as XPath, and relative paths (".//") are never rewritten.
+ * Set the system property "webelement.optimizeXPath" to "false" to disable the rewriting.
+ **/
+public final class XPathOptimizer {
+
+    /**
+     * The logger for the rewritten and the not optimized locators.
+     **/
+    private static final Logger LOGGER = Logger.getLogger(XPathOptimizer.class.getName());
+
+    /**
+     * Whether the rewriting is enabled.
+     **/
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("webelement.optimizeXPath"));
+
+    /**
+     * A lower case tag or attribute name.
+     **/
+    private static final Pattern NAME = Pattern.compile("[a-z][a-z0-9_-]*");
+
+    /**
+     * Tag names of svg and mathml elements. In XPath a tag name only matches html elements, in css it matches all
+     * elements, so these are not rewritten.
+     **/
+    private static final Set<String> FOREIGN_TAG_NAMES = new HashSet<>(Arrays.asList(
+            "svg", "math", "g", "path", "circle", "ellipse", "line", "polygon", "polyline", "rect", "text", "tspan", "use",
+            "defs", "symbol", "image", "foreignobject", "lineargradient", "radialgradient", "stop", "mask", "pattern"));
+
+    /**
+     * Tag names which are used by html and svg elements. The css selector excludes the svg elements.
+     **/
+    private static final Set<String> SHARED_TAG_NAMES = new HashSet<>(Arrays.asList("a", "title", "style", "script"));
+
+    /**
+     * The attributes whose values css selectors compare case-insensitively on html elements (see "Case-sensitivity of
+     * selectors" in the html standard). XPath compares them case-sensitively, so their value tests are not rewritten.
+     **/
+    private static final Set<String> CASE_INSENSITIVE_ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "accept", "accept-charset", "align", "alink", "axis", "bgcolor", "charset", "checked", "clear", "codetype",
+            "color", "compact", "declare", "defer", "dir", "direction", "disabled", "enctype", "face", "frame",
+            "hreflang", "http-equiv", "lang", "language", "link", "media", "method", "multiple", "nohref", "noresize",
+            "noshade", "nowrap", "readonly", "rel", "rev", "rules", "scope", "scrolling", "selected", "shape", "target",
+            "text", "type", "valign", "valuetype", "vlink"));
+
+    /**
+     * The class token test which is used instead of a class selector in XPath, e.g.
+     * "contains(concat(' ', normalize-space(@class), ' '), ' a ')".
+     **/
+    private static final Pattern CLASS_TOKEN = Pattern.compile(
+            "contains\\(\\s*concat\\(\\s*(['\"]) \\1\\s*,\\s*normalize-space\\(\\s*@class\\s*\\)\\s*,\\s*(['\"]) \\2\\s*\\)\\s*,\\s*(['\"]) ([^\\s'\"]+) \\3\\s*\\)");
+
+    /**
+     * The rewritten locator of each XPath expression. The XPath locator itself if it could not be rewritten.
+     **/
+    private static final Map<String, By> LOCATORS = new ConcurrentHashMap<>();
+
+    /**
+     * The reason why an XPath expression could not be rewritten.
+     **/
+    private static final Map<String, String> NOT_OPTIMIZED = new ConcurrentHashMap<>();
+
+    private XPathOptimizer() {
+    }
+
+    /**
+     * Returns the fastest locator which is equivalent to the XPath expression.
+     *
+     * @param xpath The XPath expression.
+     * @return An id, name, tag name or css locator if the expression could be rewritten, else an XPath locator.
+     **/
+    public static By optimize(String xpath) {
+        if (!ENABLED) {
+            return By.xpath(xpath);
+        }
+        return LOCATORS.computeIfAbsent(xpath, XPathOptimizer::rewrite);
+    }
+
+    /**
+     * Returns the XPath expressions which could not be rewritten so far together with the reason.
+     *
+     * @return The not optimized XPath expressions and the reason why, sorted by the expression.
+     **/
+    public static Map<String, String> getNotOptimized() {
+        return Collections.unmodifiableMap(new TreeMap<>(NOT_OPTIMIZED));
+    }
+
+    /**
+     * Returns a report of all XPath expressions which were seen so far.
+     *
+     * @return The report with one line per XPath expression.
+     **/
+    public static String getReport() {
+        StringBuilder report = new StringBuilder("XPath locators: ").append(LOCATORS.size()).append(", optimized: ")
+                .append(LOCATORS.size() - NOT_OPTIMIZED.size()).append(", not optimized: ").append(NOT_OPTIMIZED.size());
+
+        for (Map.Entry<String, By> locator : new TreeMap<>(LOCATORS).entrySet()) {
+            String reason = NOT_OPTIMIZED.get(locator.getKey());
+            report.append(System.lineSeparator()).append(reason == null ? "  optimized: " : "  not optimized: ")
+                    .append(locator.getKey()).append(reason == null ? " -> " + locator.getValue() : " (" + reason + ")");
+        }
+        return report.toString();
+    }
+
+    /**
+     * Rewrites the XPath expression.
+     *
+     * @param xpath The XPath expression.
+     * @return The rewritten locator or an XPath locator.
+     **/
+    private static By rewrite(String xpath) {
+        try {
+            By locator = new Parser(xpath.trim()).parse();
+            LOGGER.log(Level.FINE, "The xpath locator \"{0}\" was rewritten to {1}", new Object[]{xpath, locator});
+            return locator;
+        } catch (IllegalArgumentException e) {
+            NOT_OPTIMIZED.put(xpath, e.getMessage());
+            LOGGER.log(Level.INFO, "The xpath locator \"{0}\" could not be optimized: {1}", new Object[]{xpath, e.getMessage()});
+            return By.xpath(xpath);
+        }
+    }
+
+    /**
+     * Parses the supported subset of XPath and creates the css selector. Throws an IllegalArgumentException with the
+     * reason if the expression is not supported.
+     **/
+    private static final class Parser {
+
+        /**
+         * The XPath expression.
+         **/
+        private final String xpath;
+
+        /**
+         * The current position in the expression.
+         **/
+        private int position;
+
+        /**
+         * Constructor.
+         *
+         * @param xpath The XPath expression.
+         **/
+        Parser(String xpath) {
+            this.xpath = xpath;
+        }
+
+        /**
+         * Parses the expression.
+         *
+         * @return The rewritten locator.
+         **/
+        By parse() {
+            // A relative path is meant to be searched below an element, where a css selector also matches through the
+            // element and its ancestors
+            if (xpath.startsWith("//")) {
+                position = 2;
+            } else {
+                throw new IllegalArgumentException("only paths starting with // are supported");
+            }
+
+            StringBuilder selector = new StringBuilder();
+            List<String[]> lastConditions;
+            String lastName;
+            int steps = 0;
+
+            while (true) {
+                lastName = parseName();
+                lastConditions = new ArrayList<>();
+                selector.append(lastName);
+                while (peek('[')) {
+                    position++;
+                    parseConditions(lastConditions);
+                    expect(']');
+                }
+                for (String[] condition : lastConditions) {
+                    selector.append(condition[1]);
+                }
+                if (SHARED_TAG_NAMES.contains(lastName)) {
+                    selector.append(":not(svg *)");
+                }
+                steps++;
+
+                if (position == xpath.length()) {
+                    break;
+                } else if (xpath.startsWith("//", position)) {
+                    position += 2;
+                    selector.append(' ');
+                } else if (xpath.startsWith("/", position)) {
+                    position += 1;
+                    selector.append(" > ");
+                } else {
+                    throw new IllegalArgumentException("unsupported expression at position " + position);
+                }
+            }
+
+            // A single step with a single id or name test is a plain id or name locator
+            if (steps == 1 && lastName.equals("*") && lastConditions.size() == 1 && lastConditions.get(0)[0] != null
+                    && !lastConditions.get(0)[2].isEmpty()) {
+                String[] condition = lastConditions.get(0);
+                if (condition[0].equals("id")) {
+                    return By.id(condition[2]);
+                } else if (condition[0].equals("name")) {
+                    return By.name(condition[2]);
+                }
+            }
+            if (steps == 1 && !lastName.equals("*") && !SHARED_TAG_NAMES.contains(lastName) && lastConditions.isEmpty()) {
+                return By.tagName(lastName);
+            }
+            return By.cssSelector(selector.toString());
+        }
+
+        /**
+         * Parses the name test of a step.
+         *
+         * @return The tag name or "*".
+         **/
+        private String parseName() {
+            if (peek('*')) {
+                position++;
+                return "*";
+            }
+            Matcher name = NAME.matcher(xpath).region(position, xpath.length());
+            if (!name.lookingAt()) {
+                throw new IllegalArgumentException("only lower case tag names and * are supported at position " + position);
+            }
+            position = name.end();
+            if (peek(':') || peek('(')) {
+                throw new IllegalArgumentException("axes, namespaces and node tests are not supported");
+            }
+            if (FOREIGN_TAG_NAMES.contains(name.group())) {
+                throw new IllegalArgumentException("the tag name " + name.group() + " is used by svg or mathml");
+            }
+            return name.group();
+        }
+
+        /**
+         * Parses the "and" combined conditions of a predicate. Each condition is stored as [attribute name if it is an
+         * equality test else null, css selector, value].
+         *
+         * @param conditions The list to which the conditions are added.
+         **/
+        private void parseConditions(List<String[]> conditions) {
+            do {
+                skipWhitespace();
+                conditions.add(parseCondition());
+                skipWhitespace();
+            } while (consume("and ") || consume("and\t"));
+        }
+
+        /**
+         * Parses a single condition.
+         *
+         * @return The condition.
+         **/
+        private String[] parseCondition() {
+            Matcher classToken = CLASS_TOKEN.matcher(xpath).region(position, xpath.length());
+            if (classToken.lookingAt()) {
+                position = classToken.end();
+                return new String[]{null, "[class~=" + toCssString(classToken.group(4)) + "]", classToken.group(4)};
+            }
+
+            for (String[] function : new String[][]{{"contains(", "*="}, {"starts-with(", "^="}}) {
+                if (consume(function[0])) {
+                    skipWhitespace();
+                    String attribute = parseAttribute();
+                    skipWhitespace();
+                    expect(',');
+                    skipWhitespace();
+                    String value = parseLiteral();
+                    skipWhitespace();
+                    expect(')');
+                    if (value.isEmpty()) {
+                        // contains() and starts-with() are true for an empty value even without the attribute
+                        throw new IllegalArgumentException("an empty value of " + function[0] + ") is not supported");
+                    }
+                    checkCaseSensitive(attribute, value);
+                    return new String[]{null, "[" + attribute + function[1] + toCssString(value) + "]", value};
+                }
+            }
+
+            String attribute = parseAttribute();
+            skipWhitespace();
+            if (!peek('=')) {
+                return new String[]{null, "[" + attribute + "]", null};
+            }
+            position++;
+            skipWhitespace();
+            String value = parseLiteral();
+            checkCaseSensitive(attribute, value);
+            return new String[]{attribute, "[" + attribute + "=" + toCssString(value) + "]", value};
+        }
+
+        /**
+         * Parses an attribute reference like "@name".
+         *
+         * @return The attribute name.
+         **/
+        private String parseAttribute() {
+            expect('@');
+            Matcher name = NAME.matcher(xpath).region(position, xpath.length());
+            if (!name.lookingAt()) {
+                throw new IllegalArgumentException("only attribute tests with lower case names are supported at position " + position);
+            }
+            position = name.end();
+            return name.group();
+        }
+
+        /**
+         * Parses a string literal in single or double quotes.
+         *
+         * @return The value of the literal.
+         **/
+        private String parseLiteral() {
+            if (!peek('\'') && !peek('"')) {
+                throw new IllegalArgumentException("only string literals are supported at position " + position);
+            }
+            char quote = xpath.charAt(position);
+            int end = xpath.indexOf(quote, position + 1);
+            if (end < 0) {
+                throw new IllegalArgumentException("unterminated string literal at position " + position);
+            }
+            String value = xpath.substring(position + 1, end);
+            position = end + 1;
+            return value;
+        }
+
+        /**
+         * Throws an IllegalArgumentException if css would compare the value of the attribute case-insensitively.
+         * Values without letters compare the same either way.
+         *
+         * @param attribute The attribute name.
+         * @param value     The compared value.
+         **/
+        private static void checkCaseSensitive(String attribute, String value) {
+            if (CASE_INSENSITIVE_ATTRIBUTES.contains(attribute) && !value.toLowerCase(Locale.ROOT).equals(value.toUpperCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("css compares the values of the attribute " + attribute + " case-insensitively");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < xpath.length() && Character.isWhitespace(xpath.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean peek(char character) {
+            return position < xpath.length() && xpath.charAt(position) == character;
+        }
+
+        private boolean consume(String text) {
+            if (xpath.startsWith(text, position)) {
+                position += text.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char character) {
+            if (!peek(character)) {
+                throw new IllegalArgumentException("unsupported expression at position " + position);
+            }
+            position++;
+        }
+
+        /**
+         * Creates a css string literal.
+         *
+         * @param value The value of the literal.
+         * @return The quoted and escaped literal.
+         **/
+        private static String toCssString(String value) {
+            StringBuilder literal = new StringBuilder("\"");
+
+            for (char character : value.toCharArray()) {
+                if (character == '"' || character == '\\') {
+                    literal.append('\\').append(character);
+                } else if (Character.isISOControl(character)) {
+                    literal.append('\\').append(Integer.toHexString(character)).append(' ');
+                } else {
+                    literal.append(character);
+                }
+            }
+            return literal.append('"').toString();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package webelement.modules;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests which XPath locators the XPathOptimizer rewrites and into which locators, and which it keeps as XPath.
+ **/
+public class XPathOptimizerTest {
+
+    /**
+     * A single id or name test on any element is a plain id or name locator.
+     **/
+    @Test
+    public void rewritesIdAndNameTests() {
+        assertEquals(By.id("sb_form_q"), XPathOptimizer.optimize("//*[@id='sb_form_q']"));
+        assertEquals(By.name("q"), XPathOptimizer.optimize("//*[@name=\"q\"]"));
+        assertEquals(By.cssSelector("input[id=\"sb_form_go\"]"), XPathOptimizer.optimize("//input[@id='sb_form_go']"));
+    }
+
+    /**
+     * A single tag name is a tag name locator.
+     **/
+    @Test
+    public void rewritesTagNames() {
+        assertEquals(By.tagName("iframe"), XPathOptimizer.optimize("//iframe"));
+        assertEquals(By.cssSelector("*"), XPathOptimizer.optimize("//*"));
+    }
+
+    /**
+     * Attribute presence and value tests become attribute selectors.
+     **/
+    @Test
+    public void rewritesAttributeTests() {
+        assertEquals(By.cssSelector("input[type]"), XPathOptimizer.optimize("//input[@type]"));
+        assertEquals(By.cssSelector("input[name=\"q\"]"), XPathOptimizer.optimize("//input[ @name = 'q' ]"));
+        assertEquals(By.cssSelector("input[type=\"1\"]"), XPathOptimizer.optimize("//input[@type='1']"));
+        assertEquals(By.cssSelector("a[title=\"say \\\"hi\\\"\"]:not(svg *)"),
+                XPathOptimizer.optimize("//a[@title='say \"hi\"']"));
+    }
+
+    /**
+     * The class token test of XPath becomes a class token selector.
+     **/
+    @Test
+    public void rewritesClassTokenTests() {
+        assertEquals(By.cssSelector("li[class~=\"b_algo\"]"),
+                XPathOptimizer.optimize("//li[contains(concat(' ', normalize-space(@class), ' '), ' b_algo ')]"));
+    }
+
+    /**
+     * contains() and starts-with() become substring and prefix selectors.
+     **/
+    @Test
+    public void rewritesContainsAndStartsWith() {
+        assertEquals(By.cssSelector("div[class*=\"a\"]"), XPathOptimizer.optimize("//div[contains(@class,'a')]"));
+        assertEquals(By.cssSelector("a[href^=\"https://\"]:not(svg *)"),
+                XPathOptimizer.optimize("//a[starts-with(@href, 'https://')]"));
+    }
+
+    /**
+     * Conditions combined with "and" and several predicates of a step are concatenated.
+     **/
+    @Test
+    public void rewritesCombinedConditions() {
+        assertEquals(By.cssSelector("input[name=\"q\"][id]"), XPathOptimizer.optimize("//input[@name='q' and @id]"));
+        assertEquals(By.cssSelector("input[name=\"q\"][id]"), XPathOptimizer.optimize("//input[@name='q'][@id]"));
+    }
+
+    /**
+     * Descendant steps ("//") become descendant combinators, child steps ("/") child combinators.
+     **/
+    @Test
+    public void rewritesDescendantAndChildSteps() {
+        assertEquals(By.cssSelector("ol[id=\"b_results\"] li"), XPathOptimizer.optimize("//ol[@id='b_results']//li"));
+        assertEquals(By.cssSelector("ol[id=\"b_results\"] > li > h2"),
+                XPathOptimizer.optimize("//ol[@id='b_results']/li/h2"));
+    }
+
+    /**
+     * The tag names which svg uses as well exclude the svg elements, since css would match them.
+     **/
+    @Test
+    public void excludesSvgElementsOfSharedTagNames() {
+        assertEquals(By.cssSelector("a:not(svg *)"), XPathOptimizer.optimize("//a"));
+        assertEquals(By.cssSelector("div > title:not(svg *)"), XPathOptimizer.optimize("//div/title"));
+    }
+
+    /**
+     * Relative paths are meant to be searched below an element, which css selectors can not express.
+     **/
+    @Test
+    public void keepsRelativePaths() {
+        assertNotOptimized(".//li");
+        assertNotOptimized("li");
+        assertNotOptimized("/html/body");
+    }
+
+    /**
+     * Positions, text tests and other functions have no css equivalent.
+     **/
+    @Test
+    public void keepsPositionsAndFunctions() {
+        assertNotOptimized("//li[2]");
+        assertNotOptimized("(//li)[1]");
+        assertNotOptimized("//li[last()]");
+        assertNotOptimized("//a[text()='Next']");
+        assertNotOptimized("//a[contains(., 'Next')]");
+        assertNotOptimized("//div[contains(@class, '')]");
+    }
+
+    /**
+     * Axes and node tests are not supported.
+     **/
+    @Test
+    public void keepsAxes() {
+        assertNotOptimized("//li/following-sibling::li");
+        assertNotOptimized("//li/..");
+        assertNotOptimized("//li/node()");
+    }
+
+    /**
+     * Tag names which are not lower case or belong to svg or mathml elements are kept.
+     **/
+    @Test
+    public void keepsForeignAndUpperCaseTagNames() {
+        assertNotOptimized("//svg");
+        assertNotOptimized("//div//path");
+        assertNotOptimized("//DIV");
+    }
+
+    /**
+     * Value tests of attributes which css compares case-insensitively are kept, unless the value has no letters.
+     **/
+    @Test
+    public void keepsCaseInsensitiveAttributes() {
+        assertNotOptimized("//input[@type='TEXT']");
+        assertNotOptimized("//input[@type='text']");
+        assertNotOptimized("//html[starts-with(@lang, 'en')]");
+        assertEquals(By.cssSelector("input[type=\"1\"][name=\"q\"]"), XPathOptimizer.optimize("//input[@type='1' and @name='q']"));
+    }
+
+    /**
+     * Asserts that the XPath expression is kept and reported with a reason.
+     **/
+    private static void assertNotOptimized(String xpath) {
+        assertEquals(By.xpath(xpath), XPathOptimizer.optimize(xpath));
+        assertTrue(xpath, XPathOptimizer.getNotOptimized().containsKey(xpath));
+    }
+}